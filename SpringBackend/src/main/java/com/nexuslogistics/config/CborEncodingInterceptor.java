@@ -0,0 +1,167 @@
+package com.nexuslogistics.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Opt-in CBOR encoding per STOMP subscription.
+ * <p>
+ * A client subscribing with {@code x-encoding: cbor} over the raw WebSocket endpoint
+ * receives the messages of that subscription as CBOR instead of JSON, with a
+ * {@code content-type} of {@code application/octet-stream} (so they are sent as
+ * binary WebSocket frames) and an {@code x-encoding: cbor} header. Repeated keys
+ * such as {@code "lat"}/{@code "lng"} are written once per message as string
+ * references. Everything else keeps the JSON default.
+ * <p>
+ * The broker serializes a topic message once and hands the same payload to every
+ * subscriber, so the transcoded bytes are cached by payload identity and each
+ * message is converted once, not once per session. SockJS sessions can only carry
+ * text and stay on JSON.
+ * <p>
+ * This interceptor belongs on the client outbound channel; the opt-ins are recorded
+ * from the inbound channel by {@link #subscriptionTracker()}.
+ */
+@Component
+@Slf4j
+public class CborEncodingInterceptor implements ChannelInterceptor {
+
+    public static final String ENCODING_HEADER = "x-encoding";
+    public static final String CBOR = "cbor";
+    public static final String BINARY_CAPABLE_ATTRIBUTE = "nexus.binaryCapable";
+
+    private static final int CACHE_SLOTS = 64;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = CBORFactory.builder().enable(CBORGenerator.Feature.STRINGREF).build();
+
+    // Subscription ids that asked for CBOR, per session
+    private final Map<String, Set<String>> cborSubscriptions = new ConcurrentHashMap<>();
+
+    // Direct-mapped cache of the last transcoded payloads: slot -> {json, cbor}
+    private final AtomicReferenceArray<byte[][]> transcoded = new AtomicReferenceArray<>(CACHE_SLOTS);
+
+    private final ChannelInterceptor subscriptionTracker = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+            if (type == SimpMessageType.SUBSCRIBE) {
+                onSubscribe(message);
+            } else if (type == SimpMessageType.UNSUBSCRIBE) {
+                onUnsubscribe(message);
+            } else if (type == SimpMessageType.DISCONNECT) {
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId != null) cborSubscriptions.remove(sessionId);
+            }
+            return message;
+        }
+    };
+
+    /**
+     * The inbound half: records which subscriptions asked for CBOR.
+     */
+    public ChannelInterceptor subscriptionTracker() {
+        return subscriptionTracker;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        return isMessageFrame(message) ? encode(message) : message;
+    }
+
+    // Broker messages carry no STOMP command until the protocol handler turns them into MESSAGE frames
+    private static boolean isMessageFrame(Message<?> message) {
+        StompCommand command = StompHeaderAccessor.getCommand(message.getHeaders());
+        if (command != null) return command == StompCommand.MESSAGE;
+        return SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE;
+    }
+
+    private void onSubscribe(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (!CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))) return;
+        if (accessor.getSessionId() == null || accessor.getSubscriptionId() == null) return;
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE))) {
+            log.debug("Session {} asked for CBOR on a text-only transport, keeping JSON", accessor.getSessionId());
+            return;
+        }
+        cborSubscriptions.computeIfAbsent(accessor.getSessionId(), id -> ConcurrentHashMap.newKeySet())
+                .add(accessor.getSubscriptionId());
+    }
+
+    private void onUnsubscribe(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        Set<String> subscriptions = cborSubscriptions.get(accessor.getSessionId());
+        String subscriptionId = accessor.getSubscriptionId();
+        if (subscriptions != null && subscriptionId != null) subscriptions.remove(subscriptionId);
+    }
+
+    private Message<?> encode(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        Set<String> subscriptions = sessionId != null ? cborSubscriptions.get(sessionId) : null;
+        if (subscriptions == null) return message;
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String subscriptionId = accessor.getSubscriptionId();
+        if (subscriptionId == null || !subscriptions.contains(subscriptionId)) return message;
+        if (!(message.getPayload() instanceof byte[] json)) return message;
+        MimeType contentType = accessor.getContentType();
+        if (contentType != null && !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) return message;
+
+        byte[] cbor;
+        try {
+            cbor = cachedCbor(json);
+        } catch (IOException e) {
+            log.warn("Could not transcode message for subscription {} to CBOR: {}", accessor.getSubscriptionId(), e.getMessage());
+            return message;
+        }
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(ENCODING_HEADER, CBOR);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    private byte[] cachedCbor(byte[] json) throws IOException {
+        int slot = (System.identityHashCode(json) & 0x7fffffff) % CACHE_SLOTS;
+        byte[][] entry = transcoded.get(slot);
+        if (entry != null && entry[0] == json) return entry[1];
+
+        byte[] cbor = toCbor(json);
+        transcoded.set(slot, new byte[][] { json, cbor });
+        return cbor;
+    }
+
+    /**
+     * Streams a JSON document into CBOR without building a tree.
+     */
+    public byte[] toCbor(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 16);
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = cborFactory.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+}
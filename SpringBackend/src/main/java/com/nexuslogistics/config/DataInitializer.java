@@ -10,6 +10,7 @@ import com.nexuslogistics.repository.VehicleRepository;
 import com.nexuslogistics.repository.ShipmentRepository;
 import com.nexuslogistics.repository.LoadingDockRepository;
 import com.nexuslogistics.repository.DriverScoreRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -19,6 +20,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Configuration
+@Slf4j
 public class DataInitializer {
 
     @Bean
@@ -32,7 +34,7 @@ public class DataInitializer {
             PasswordEncoder encoder) {
         return args -> {
             if (userRepo.count() == 0) {
-                System.out.println("Seeding default users and profiles...");
+                log.info("Seeding default users and profiles...");
                 
                 // Seed Users
                 User admin = User.builder()
@@ -124,7 +126,7 @@ public class DataInitializer {
                 // Seed Driver Scores
                 scoreRepo.save(com.nexuslogistics.model.DriverScore.builder().driver(profile).safetyScore(92).ecoScore(88).totalFuelSaved(120.5).rank(5).build());
 
-                System.out.println("Industry-level test data seeding completed.");
+                log.info("Industry-level test data seeding completed.");
             }
         };
     }
@@ -3,6 +3,7 @@ package com.nexuslogistics.config;
 import com.nexuslogistics.security.AuthTokenFilter;
 import com.nexuslogistics.security.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -33,6 +34,13 @@ public class SecurityConfig {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    // Actuator endpoints are only served here; application.properties binds it to localhost
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -64,9 +72,11 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll() // Login/Signup
-                .requestMatchers("/ws-logistics/**").permitAll() // WebSockets
+                .requestMatchers("/ws-logistics/**", "/ws-logistics-native").permitAll() // WebSockets
                 .requestMatchers("/api/telemetry/**").permitAll() // IoT
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll() // Swagger
+                .requestMatchers(request -> managementPort > 0 && managementPort != serverPort
+                        && request.getLocalPort() == managementPort).permitAll() // Probes and scraping
                 .anyRequest().authenticated()
             );
         
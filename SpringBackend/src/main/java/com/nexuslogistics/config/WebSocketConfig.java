@@ -1,19 +1,129 @@
 package com.nexuslogistics.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.HandshakeInterceptor;
 
+import java.util.Map;
+
+/**
+ * STOMP over WebSocket.
+ * <p>
+ * {@code nexus.broker.mode=simple} (the default) keeps all subscriptions in this JVM.
+ * {@code nexus.broker.mode=relay} forwards "/topic" and "/queue" to an external STOMP
+ * broker (RabbitMQ, ActiveMQ, Artemis) so that several backend nodes behind a load
+ * balancer share one fan-out; user destinations are resolved across nodes through
+ * the broker as well.
+ * <p>
+ * Client channels run on dedicated pools and every session has a send buffer and
+ * send time limit, so one slow consumer is disconnected instead of stalling the rest.
+ * Subscriptions may opt into CBOR payloads, see {@link CborEncodingInterceptor}.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private CborEncodingInterceptor cborEncodingInterceptor;
+
+    // Defined by the broker configuration itself, hence lazy
+    @Autowired
+    @Lazy
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Value("${nexus.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${nexus.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${nexus.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${nexus.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${nexus.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${nexus.broker.relay.virtualHost:}")
+    private String relayVirtualHost;
+
+    @Value("${nexus.broker.heartbeatMs:10000}")
+    private long heartbeatMs;
+
+    @Value("${nexus.broker.inbound.corePoolSize:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${nexus.broker.inbound.maxPoolSize:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${nexus.broker.inbound.queueCapacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${nexus.broker.outbound.corePoolSize:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${nexus.broker.outbound.maxPoolSize:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${nexus.broker.outbound.queueCapacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${nexus.broker.sendTimeLimitMs:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${nexus.broker.sendBufferSizeLimit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${nexus.broker.messageSizeLimit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${nexus.broker.timeToFirstMessageMs:60000}")
+    private int timeToFirstMessageMs;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            log.info("Relaying STOMP destinations to {}:{}", relayHost, relayPort);
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost.isEmpty() ? null : relayVirtualHost)
+                    .setSystemHeartbeatSendInterval(heartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMs)
+                    // Sessions of other nodes are only known to the broker
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            // "/queue" carries the per-session fleet streams
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] { heartbeatMs, heartbeatMs })
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         config.setApplicationDestinationPrefixes("/app");
+        config.configureBrokerChannel().taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
     }
 
     @Override
@@ -21,5 +131,51 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws-logistics")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+
+        // Plain WebSocket without the SockJS fallback; the only endpoint that can carry binary frames
+        registry.addEndpoint("/ws-logistics-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(new BinaryCapableHandshakeInterceptor());
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(cborEncodingInterceptor.subscriptionTracker());
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(cborEncodingInterceptor);
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .setTimeToFirstMessage(timeToFirstMessageMs);
+    }
+
+    private static class BinaryCapableHandshakeInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            attributes.put(CborEncodingInterceptor.BINARY_CAPABLE_ATTRIBUTE, Boolean.TRUE);
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+        }
     }
 }
@@ -0,0 +1,74 @@
+package com.nexuslogistics.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * WebSocket session counts and the queue depth of every STOMP channel pool.
+ * <p>
+ * The broker beans are looked up lazily: meter binders are bound as soon as the
+ * registry exists, well before the broker configuration has been processed.
+ */
+@Component
+public class WebSocketMetrics implements MeterBinder {
+
+    @Autowired
+    @Lazy
+    private SubProtocolWebSocketHandler subProtocolWebSocketHandler;
+
+    @Autowired
+    @Lazy
+    @Qualifier("clientInboundChannelExecutor")
+    private ThreadPoolTaskExecutor clientInboundChannelExecutor;
+
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannelExecutor")
+    private ThreadPoolTaskExecutor clientOutboundChannelExecutor;
+
+    @Autowired
+    @Lazy
+    @Qualifier("brokerChannelExecutor")
+    private ThreadPoolTaskExecutor brokerChannelExecutor;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("nexus.websocket.sessions", this, m -> m.stats().getWebSocketSessions())
+                .tag("transport", "websocket").register(registry);
+        Gauge.builder("nexus.websocket.sessions", this, m -> m.stats().getHttpStreamingSessions())
+                .tag("transport", "http_streaming").register(registry);
+        Gauge.builder("nexus.websocket.sessions", this, m -> m.stats().getHttpPollingSessions())
+                .tag("transport", "http_polling").register(registry);
+
+        // Sessions closed by the server, cumulative
+        FunctionCounter.builder("nexus.websocket.sessions.dropped", this, m -> m.stats().getLimitExceededSessions())
+                .tag("reason", "send_limit").register(registry);
+        FunctionCounter.builder("nexus.websocket.sessions.dropped", this, m -> m.stats().getNoMessagesReceivedSessions())
+                .tag("reason", "no_messages").register(registry);
+        FunctionCounter.builder("nexus.websocket.sessions.dropped", this, m -> m.stats().getTransportErrorSessions())
+                .tag("reason", "transport_error").register(registry);
+
+        bindChannel(registry, "inbound", clientInboundChannelExecutor);
+        bindChannel(registry, "outbound", clientOutboundChannelExecutor);
+        bindChannel(registry, "broker", brokerChannelExecutor);
+    }
+
+    private SubProtocolWebSocketHandler.Stats stats() {
+        return subProtocolWebSocketHandler.getStats();
+    }
+
+    private static void bindChannel(MeterRegistry registry, String channel, ThreadPoolTaskExecutor executor) {
+        Gauge.builder("nexus.broker.queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .tag("channel", channel).register(registry);
+        Gauge.builder("nexus.broker.threads.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", channel).register(registry);
+    }
+}
@@ -3,13 +3,17 @@ package com.nexuslogistics.controller;
 import com.nexuslogistics.dto.JwtResponse;
 import com.nexuslogistics.dto.LoginRequest;
 import com.nexuslogistics.dto.SignupRequest;
+import com.nexuslogistics.dto.UserUpdateRequest;
 import com.nexuslogistics.model.ERole;
 import com.nexuslogistics.model.User;
 import com.nexuslogistics.repository.UserRepository;
+import com.nexuslogistics.security.JwtAuthenticationCache;
 import com.nexuslogistics.security.JwtUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -35,6 +39,9 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    JwtAuthenticationCache jwtAuthenticationCache;
+
     @PostMapping("/signin")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
 
@@ -54,6 +61,17 @@ public class AuthController {
                                  user.getRole().name()));
     }
 
+    // Tokens are otherwise valid until they expire, so signing out revokes the presented one
+    @PostMapping("/signout")
+    public ResponseEntity<?> logoutUser(@RequestHeader(value = "Authorization", required = false) String headerAuth) {
+        if (headerAuth == null || !headerAuth.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Error: No token to sign out!"));
+        }
+        jwtAuthenticationCache.revokeToken(headerAuth.substring(7));
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok(Map.of("message", "Signed out successfully!"));
+    }
+
     @PostMapping("/signup")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         if (userRepository.existsByUsername(signUpRequest.getUsername())) {
@@ -69,26 +87,7 @@ public class AuthController {
         }
 
         // Create new user's account
-        String strRole = signUpRequest.getRole();
-        ERole role;
-
-        if (strRole == null) {
-            role = ERole.ROLE_USER;
-        } else {
-            switch (strRole.toUpperCase()) {
-                case "ADMIN":
-                    role = ERole.ROLE_ADMIN;
-                    break;
-                case "DRIVER":
-                    role = ERole.ROLE_DRIVER;
-                    break;
-                case "DISPATCHER":
-                    role = ERole.ROLE_DISPATCHER;
-                    break;
-                default:
-                    role = ERole.ROLE_USER;
-            }
-        }
+        ERole role = toRole(signUpRequest.getRole());
 
         User user = User.builder()
                 .username(signUpRequest.getUsername())
@@ -102,4 +101,33 @@ public class AuthController {
 
         return ResponseEntity.ok(Map.of("message", "User registered successfully!"));
     }
+
+    // Issued tokens carry the roles, so a change revokes them and the user signs in again
+    @PutMapping("/users/{username}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateUser(@PathVariable String username, @RequestBody UserUpdateRequest updateRequest) {
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Error: User not found!"));
+        }
+        if (updateRequest.getRole() != null) user.setRole(toRole(updateRequest.getRole()));
+        if (updateRequest.getEnabled() != null) user.setEnabled(updateRequest.getEnabled());
+        userRepository.save(user);
+        jwtAuthenticationCache.revokeUser(username);
+        return ResponseEntity.ok(Map.of("message", "User updated successfully!"));
+    }
+
+    private static ERole toRole(String role) {
+        if (role == null) return ERole.ROLE_USER;
+        switch (role.toUpperCase()) {
+            case "ADMIN":
+                return ERole.ROLE_ADMIN;
+            case "DRIVER":
+                return ERole.ROLE_DRIVER;
+            case "DISPATCHER":
+                return ERole.ROLE_DISPATCHER;
+            default:
+                return ERole.ROLE_USER;
+        }
+    }
 }
@@ -1,15 +1,32 @@
 package com.nexuslogistics.controller;
 
 import com.nexuslogistics.dto.ShipmentDTO;
+import com.nexuslogistics.dto.ShipmentFilter;
+import com.nexuslogistics.dto.ShipmentPage;
 import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.service.ShipmentExportService;
 import com.nexuslogistics.service.ShipmentService;
+import com.nexuslogistics.storage.ContentStore;
+import com.nexuslogistics.storage.StoredContent;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/shipments")
@@ -19,11 +36,55 @@ public class DeliveryController {
     @Autowired
     private ShipmentService shipmentService;
 
+    @Autowired
+    private ShipmentExportService shipmentExportService;
+
+    @Autowired
+    private ContentStore contentStore;
+
     @GetMapping
     public List<ShipmentDTO> getAllShipments() {
         return shipmentService.getAllShipments();
     }
 
+    /**
+     * Paged listing for the dashboard, e.g. /api/shipments/page?status=PENDING&size=50,
+     * then &cursor= the nextCursor of the previous page.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getShipmentPage(ShipmentFilter filter,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "50") int size) {
+        try {
+            ShipmentPage page = shipmentService.getShipmentPage(filter, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Error: " + e.getMessage() + "!"));
+        }
+    }
+
+    /**
+     * Bulk export with the same filters as the listing, e.g.
+     * /api/shipments/export?format=ndjson&gzip=true&status=DELIVERED.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportShipments(ShipmentFilter filter,
+                                             @RequestParam(defaultValue = ShipmentExportService.CSV) String format,
+                                             @RequestParam(defaultValue = "false") boolean gzip) {
+        if (!ShipmentExportService.isSupported(format)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Error: Export format must be csv or ndjson!"));
+        }
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : ShipmentExportService.CSV.equals(format) ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.parseMediaType("application/x-ndjson");
+        StreamingResponseBody body = out -> shipmentExportService.export(filter, format, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"shipments." + format + (gzip ? ".gz" : "") + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ShipmentDTO> getShipmentById(@PathVariable Long id) {
         return shipmentService.getShipmentById(id)
@@ -52,18 +113,90 @@ public class DeliveryController {
      * Endpoint for drivers to submit Proof of Delivery (Signature & Photo).
      */
     @PostMapping("/{id}/complete")
-    public ResponseEntity<String> completeDelivery(
+    public ResponseEntity<?> completeDelivery(
             @PathVariable Long id,
             @RequestParam("signature") String signatureData,
             @RequestParam(value = "photo", required = false) MultipartFile photo,
             @RequestParam("lat") double lat,
-            @RequestParam("lng") double lng) {
-        
-        // Mocking photo upload: in production this returns a URL from S3/CDN
-        String photoUrl = (photo != null) ? "uploads/" + photo.getOriginalFilename() : null;
-        
-        shipmentService.completeDelivery(id, signatureData, photoUrl, lat, lng);
-        
+            @RequestParam("lng") double lng) throws IOException {
+
+        try {
+            shipmentService.completeDelivery(id, signatureData, photo, lat, lng);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Error: Signature and photo must be PNG, JPEG, GIF or WebP images!"));
+        }
+
         return ResponseEntity.ok("e-POD logged at [" + lat + ", " + lng + "]. Shipment finalized.");
     }
+
+    @GetMapping("/{id}/signature")
+    public ResponseEntity<?> getSignature(@PathVariable Long id, @RequestHeader HttpHeaders headers)
+            throws IOException {
+        Optional<StoredContent> signature = shipmentService.getSignature(id);
+        return signature.isPresent()
+                ? serveContent(signature.get(), "signature-" + id, headers) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{id}/photo")
+    public ResponseEntity<?> getDeliveryPhoto(@PathVariable Long id, @RequestHeader HttpHeaders headers)
+            throws IOException {
+        Optional<StoredContent> photo = shipmentService.getDeliveryPhoto(id);
+        return photo.isPresent()
+                ? serveContent(photo.get(), "photo-" + id, headers) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Streams stored content, or the single byte range asked for. Content ids are hashes
+     * of the bytes, so they double as strong ETags. The content type is the one the service
+     * vetted, and browsers are told not to sniff another one.
+     */
+    private ResponseEntity<?> serveContent(StoredContent content, String name, HttpHeaders requestHeaders)
+            throws IOException {
+        long size = contentStore.size(content.getId());
+        if (size < 0) return ResponseEntity.notFound().build();
+        String etag = "\"" + content.getId() + "\"";
+        if (requestHeaders.getIfNoneMatch().contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        long start = 0;
+        long length = size;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null || ifRange.equals(etag)) {
+            try {
+                List<HttpRange> ranges = requestHeaders.getRange();
+                if (ranges.size() == 1) { // several ranges are answered with the whole content
+                    start = ranges.get(0).getRangeStart(size);
+                    if (start >= size) throw new IllegalArgumentException("Range starts past the end");
+                    long end = ranges.get(0).getRangeEnd(size);
+                    length = end - start + 1;
+                    response = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size).build();
+            }
+        }
+
+        long offset = start;
+        long count = length;
+        StreamingResponseBody body = out -> contentStore.transferTo(content.getId(), offset, count,
+                Channels.newChannel(out));
+        MediaType contentType = content.getContentType() != null
+                ? MediaType.parseMediaType(content.getContentType()) : MediaType.APPLICATION_OCTET_STREAM;
+        String extension = "image".equals(contentType.getType()) ? contentType.getSubtype() : "bin";
+        return response
+                .contentType(contentType)
+                .contentLength(length)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.inline().filename(name + "." + extension).build().toString())
+                .header("X-Content-Type-Options", "nosniff")
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .body(body);
+    }
 }
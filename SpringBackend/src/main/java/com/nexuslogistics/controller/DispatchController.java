@@ -1,15 +1,24 @@
 package com.nexuslogistics.controller;
 
+import com.nexuslogistics.dto.FleetPlan;
+import com.nexuslogistics.dto.TimedRoute;
 import com.nexuslogistics.model.Shipment;
 import com.nexuslogistics.model.Vehicle;
+import com.nexuslogistics.model.VehicleState;
 import com.nexuslogistics.repository.ShipmentRepository;
 import com.nexuslogistics.repository.VehicleRepository;
+import com.nexuslogistics.service.DispatchPlanService;
+import com.nexuslogistics.service.DistanceMatrixService;
+import com.nexuslogistics.service.FleetDispatchService;
+import com.nexuslogistics.service.FleetStateRegistry;
 import com.nexuslogistics.service.RouteOptimizationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -26,14 +35,30 @@ public class DispatchController {
     @Autowired
     private VehicleRepository vehicleRepository;
 
+    @Autowired
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Autowired
+    private FleetDispatchService fleetDispatchService;
+
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    @Autowired
+    private DispatchPlanService dispatchPlanService;
+
     @PostMapping("/optimize/{vehicleId}")
     public ResponseEntity<List<Shipment>> getOptimizedRoute(@PathVariable Long vehicleId) {
-        Optional<Vehicle> vehicleOpt = vehicleRepository.findById(vehicleId);
-        if (vehicleOpt.isEmpty()) {
-            return ResponseEntity.notFound().build();
+        // Start from the live position rather than the last database checkpoint
+        VehicleState vehicle = fleetStateRegistry.get(vehicleId);
+        if (vehicle == null) {
+            Optional<Vehicle> vehicleOpt = vehicleRepository.findById(vehicleId);
+            if (vehicleOpt.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            vehicle = VehicleState.of(vehicleOpt.get(), 0);
         }
 
-        Vehicle vehicle = vehicleOpt.get();
         List<Shipment> assignedShipments = shipmentRepository.findByAssignedVehicleId(vehicleId);
 
         if (assignedShipments.isEmpty()) {
@@ -49,4 +74,54 @@ public class DispatchController {
 
         return ResponseEntity.ok(optimized);
     }
+
+    // Orders the assigned shipments against their estimated delivery times, departing now
+    @PostMapping("/optimize/{vehicleId}/timed")
+    public ResponseEntity<TimedRoute> getTimedRoute(@PathVariable Long vehicleId) {
+        VehicleState vehicle = fleetStateRegistry.get(vehicleId);
+        if (vehicle == null) {
+            Optional<Vehicle> vehicleOpt = vehicleRepository.findById(vehicleId);
+            if (vehicleOpt.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            vehicle = VehicleState.of(vehicleOpt.get(), 0);
+        }
+
+        return ResponseEntity.ok(routeOptimizationService.optimizeRouteWithTimeWindows(
+            vehicle.getLatitude(),
+            vehicle.getLongitude(),
+            shipmentRepository.findByAssignedVehicleId(vehicleId),
+            vehicle.getMaxCapacity(),
+            LocalDateTime.now()
+        ));
+    }
+
+    // Proposes routes for all pending shipments across the available fleet; nothing is persisted
+    @PostMapping("/fleet-plan")
+    public ResponseEntity<FleetPlan> planFleet() {
+        return ResponseEntity.ok(fleetDispatchService.planFleet());
+    }
+
+    // Solves the fleet again and keeps the result as the plan that later changes are repaired into
+    @PostMapping("/plan")
+    public ResponseEntity<FleetPlan> replan() {
+        return ResponseEntity.ok(dispatchPlanService.replan());
+    }
+
+    @GetMapping("/plan")
+    public ResponseEntity<FleetPlan> getPlan() {
+        return dispatchPlanService.getPlan()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/plan/stats")
+    public ResponseEntity<Map<String, Object>> getPlanStats() {
+        return ResponseEntity.ok(dispatchPlanService.getStats());
+    }
+
+    @GetMapping("/matrix-stats")
+    public ResponseEntity<Map<String, Object>> getMatrixStats() {
+        return ResponseEntity.ok(distanceMatrixService.getStats());
+    }
 }
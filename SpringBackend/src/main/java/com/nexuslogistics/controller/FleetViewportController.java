@@ -0,0 +1,40 @@
+package com.nexuslogistics.controller;
+
+import com.nexuslogistics.dto.ViewportRequest;
+import com.nexuslogistics.geo.BoundingBox;
+import com.nexuslogistics.service.FleetBroadcastService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+
+@Controller
+@Slf4j
+public class FleetViewportController {
+
+    @Autowired
+    private FleetBroadcastService fleetBroadcastService;
+
+    // The live map sends its new bounds here after every pan or zoom; an empty request clears the viewport
+    @MessageMapping("/fleet/viewport")
+    public void updateViewport(ViewportRequest request, SimpMessageHeaderAccessor headers) {
+        if (request.getTiles() != null && request.getTiles().size() > FleetBroadcastService.MAX_VIEWPORT_TILES) {
+            log.debug("Ignoring viewport of {} tiles from session {}", request.getTiles().size(), headers.getSessionId());
+            return;
+        }
+        List<BoundingBox> viewport;
+        try {
+            viewport = FleetBroadcastService.parseViewport(request.getBbox(),
+                    request.getTiles() != null ? String.join(",", request.getTiles()) : null);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed viewport from session {}: {}", headers.getSessionId(), e.getMessage());
+            return;
+        }
+        if (!fleetBroadcastService.updateViewport(headers.getSessionId(), viewport)) {
+            log.debug("Session {} updated a viewport without subscribing to /user/queue/fleet", headers.getSessionId());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.nexuslogistics.controller;
+
+import com.nexuslogistics.dto.GeofenceRequest;
+import com.nexuslogistics.geo.GeoFence;
+import com.nexuslogistics.service.GeofencingService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/geofences")
+@CrossOrigin(origins = "*")
+public class GeofenceController {
+
+    @Autowired
+    private GeofencingService geofencingService;
+
+    @GetMapping
+    public Collection<GeoFence> getAllFences() {
+        return geofencingService.getFences();
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getGeofenceStats() {
+        return geofencingService.getStats();
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DISPATCHER')")
+    public ResponseEntity<?> createFence(@Valid @RequestBody GeofenceRequest request) {
+        long vehicleId = request.getVehicleId() != null ? request.getVehicleId() : 0;
+
+        if ("CIRCLE".equalsIgnoreCase(request.getType())) {
+            if (request.getLatitude() == null || request.getLongitude() == null
+                    || request.getRadiusMeters() == null || request.getRadiusMeters() <= 0) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("message", "Error: A circle fence needs latitude, longitude and a positive radius!"));
+            }
+            return ResponseEntity.ok(geofencingService.addCircleFence(request.getName(), vehicleId,
+                    request.getLatitude(), request.getLongitude(), request.getRadiusMeters()));
+        }
+
+        if ("POLYGON".equalsIgnoreCase(request.getType())) {
+            List<double[]> points = request.getPoints();
+            if (points == null || points.size() < 3 || points.stream().anyMatch(p -> p.length != 2)) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("message", "Error: A polygon fence needs at least three [lat, lng] points!"));
+            }
+            double[] lats = new double[points.size()];
+            double[] lngs = new double[points.size()];
+            for (int i = 0; i < points.size(); i++) {
+                lats[i] = points.get(i)[0];
+                lngs[i] = points.get(i)[1];
+            }
+            return ResponseEntity.ok(geofencingService.addPolygonFence(request.getName(), vehicleId, lats, lngs));
+        }
+
+        return ResponseEntity.badRequest().body(Map.of("message", "Error: Fence type must be CIRCLE or POLYGON!"));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DISPATCHER')")
+    public ResponseEntity<Void> deleteFence(@PathVariable long id) {
+        return geofencingService.removeFence(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
@@ -17,6 +17,6 @@ public class LeaderboardController {
 
     @GetMapping
     public List<DriverScore> getEcoLeaderboard() {
-        return driverScoreRepository.findAllByOrderByEcoScoreDesc();
+        return driverScoreRepository.findTop100ByOrderByEcoScoreDesc();
     }
 }
@@ -0,0 +1,71 @@
+package com.nexuslogistics.controller;
+
+import com.nexuslogistics.dto.OptimizationJobRequest;
+import com.nexuslogistics.dto.OptimizationJobView;
+import com.nexuslogistics.service.OptimizationJobService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Background route optimization: submit a job, then poll it here or subscribe to
+ * "/topic/jobs/{id}" for progress. Jobs are visible to the user who submitted them.
+ */
+@RestController
+@RequestMapping("/api/dispatch/jobs")
+@CrossOrigin(origins = "*")
+public class OptimizationJobController {
+
+    @Autowired
+    private OptimizationJobService optimizationJobService;
+
+    @PostMapping
+    public ResponseEntity<?> submit(@Valid @RequestBody OptimizationJobRequest request, Principal principal) {
+        try {
+            OptimizationJobView job = optimizationJobService.submit(principal.getName(), request);
+            return ResponseEntity.status(job.isCached() ? HttpStatus.OK : HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Error: " + e.getMessage() + "!"));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Error: " + e.getMessage() + "!"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("message", "Error: " + e.getMessage() + "!"));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", "Error: The optimization queue is full, try again later!"));
+        }
+    }
+
+    @GetMapping
+    public List<OptimizationJobView> list(Principal principal) {
+        return optimizationJobService.list(principal.getName());
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return optimizationJobService.getStats();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<OptimizationJobView> get(@PathVariable String id, Principal principal) {
+        return optimizationJobService.get(principal.getName(), id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<OptimizationJobView> cancel(@PathVariable String id, Principal principal) {
+        return optimizationJobService.cancel(principal.getName(), id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,35 +1,90 @@
 package com.nexuslogistics.controller;
 
+import com.nexuslogistics.dto.TelemetryBatchResult;
+import com.nexuslogistics.dto.TelemetryPing;
 import com.nexuslogistics.model.Vehicle;
-import com.nexuslogistics.service.VehicleService;
+import com.nexuslogistics.service.FleetBroadcastService;
+import com.nexuslogistics.service.FleetSimulationService;
+import com.nexuslogistics.service.TelemetryIngestionService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.Map;
+
 @RestController
 @CrossOrigin(origins = "*")
 public class TelemetryController {
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private TelemetryIngestionService telemetryIngestionService;
+
+    @Autowired
+    private FleetBroadcastService fleetBroadcastService;
 
     @Autowired
-    private VehicleService vehicleService;
+    private FleetSimulationService fleetSimulationService;
 
     // This endpoint can be used by mobile apps/IoT trackers to push GPS data
     @PostMapping("/api/telemetry/update")
-    public void receiveTelemetry(@RequestBody Vehicle vehicleUpdate) {
-        // 1. Update the database
-        vehicleService.updateVehicleLocation(
-            vehicleUpdate.getId(), 
-            vehicleUpdate.getLatitude(), 
-            vehicleUpdate.getLongitude(), 
-            vehicleUpdate.getSpeed()
-        );
-
-        // 2. Broadcast the update to all connected frontend clients via WebSockets
-        messagingTemplate.convertAndSend("/topic/fleet", vehicleUpdate);
-        
-        System.out.println("Broadcasted telemetry for vehicle: " + vehicleUpdate.getVId());
+    public ResponseEntity<?> receiveTelemetry(@RequestBody Vehicle vehicleUpdate) {
+        if (vehicleUpdate.getId() == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Error: Vehicle id is required!"));
+        }
+
+        // Update the live fleet state and queue the position for the next batched database flush.
+        // Connected clients receive the change in the next coalesced fleet frame.
+        TelemetryPing ping = TelemetryPing.builder()
+                .vehicleId(vehicleUpdate.getId())
+                .latitude(vehicleUpdate.getLatitude())
+                .longitude(vehicleUpdate.getLongitude())
+                .speed(vehicleUpdate.getSpeed())
+                .build();
+
+        switch (telemetryIngestionService.offer(ping)) {
+            case UNKNOWN_VEHICLE:
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "Error: Unknown vehicle " + ping.getVehicleId()));
+            case QUEUE_FULL:
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(Map.of("message", "Telemetry queue is full, retry later"));
+            case UNAVAILABLE:
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .body(Map.of("message", "Telemetry ingestion is shutting down"));
+            default:
+                break;
+        }
+
+        return ResponseEntity.accepted().build();
+    }
+
+    // Gateways aggregating many trackers post a JSON array or an NDJSON stream of position updates
+    @PostMapping(value = "/api/telemetry/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<TelemetryBatchResult> receiveTelemetryBatch(HttpServletRequest request) throws IOException {
+        TelemetryBatchResult result = telemetryIngestionService.ingestBatch(request.getInputStream());
+        return result.isComplete() ? ResponseEntity.ok(result) : ResponseEntity.badRequest().body(result);
+    }
+
+    @GetMapping("/api/telemetry/stats")
+    public Map<String, Object> getIngestionStats() {
+        return telemetryIngestionService.getStats();
+    }
+
+    @GetMapping("/api/telemetry/broadcast-stats")
+    public Map<String, Object> getBroadcastStats() {
+        return fleetBroadcastService.getStats();
+    }
+
+    @GetMapping("/api/telemetry/simulation-stats")
+    public Map<String, Object> getSimulationStats() {
+        return fleetSimulationService.getStats();
     }
 }
@@ -0,0 +1,30 @@
+package com.nexuslogistics.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Changed fields of one vehicle in a fleet frame. Fields that did not change since
+ * the previous frame are null and left out of the JSON.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FleetDelta {
+    private long id;
+    private Double lat;
+    private Double lng;
+    private Double speed;
+    private String status;
+
+    // Folds a later delta of the same vehicle into this one
+    public void merge(FleetDelta newer) {
+        if (newer.lat != null) lat = newer.lat;
+        if (newer.lng != null) lng = newer.lng;
+        if (newer.speed != null) speed = newer.speed;
+        if (newer.status != null) status = newer.status;
+    }
+}
@@ -0,0 +1,24 @@
+package com.nexuslogistics.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One broadcast tick of fleet changes. A keyframe carries every vehicle with all
+ * fields so clients that joined late or missed frames can resynchronise.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class FleetFrame {
+    private long seq;
+    private long ts; // epoch millis
+    private boolean keyframe;
+    private List<FleetDelta> vehicles;
+    private List<Long> removed;
+}
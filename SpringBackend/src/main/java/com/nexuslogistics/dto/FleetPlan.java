@@ -0,0 +1,23 @@
+package com.nexuslogistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of dispatching all pending shipments across the available fleet.
+ * Shipments no vehicle had room for are listed instead of being dropped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetPlan {
+    private List<FleetRoute> routes; // vehicles with at least one stop
+    private List<Long> unassignedShipmentIds;
+    private int shipments;
+    private int vehicles;
+    private double totalDistanceKm;
+    private long solveMs;
+}
@@ -0,0 +1,22 @@
+package com.nexuslogistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Stop order proposed for one vehicle by the fleet-wide dispatch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetRoute {
+    private Long vehicleId;
+    private String vId;
+    private List<Long> shipmentIds; // in delivery order
+    private double loadKg;
+    private double capacityKg;
+    private double distanceKm; // from the vehicle's position to the last stop
+}
@@ -0,0 +1,32 @@
+package com.nexuslogistics.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeofenceRequest {
+    @NotBlank(message = "Fence name is required")
+    private String name;
+
+    @NotBlank(message = "Fence type is required")
+    private String type; // CIRCLE, POLYGON
+
+    private Long vehicleId; // null = applies to every vehicle
+
+    // CIRCLE
+    private Double latitude;
+    private Double longitude;
+    private Double radiusMeters;
+
+    // POLYGON, as [lat, lng] pairs
+    private List<@NotNull double[]> points;
+}
@@ -0,0 +1,18 @@
+package com.nexuslogistics.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OptimizationJobRequest {
+    @NotBlank(message = "Job type is required")
+    private String type; // ROUTE, TIMED_ROUTE, FLEET
+
+    private Long vehicleId; // required for ROUTE and TIMED_ROUTE
+}
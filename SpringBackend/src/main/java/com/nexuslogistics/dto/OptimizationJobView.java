@@ -0,0 +1,33 @@
+package com.nexuslogistics.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of an optimization job as returned by the job API and pushed to
+ * "/topic/jobs/{id}". Listings leave the result out.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OptimizationJobView {
+    private String id;
+    private String type;
+    private Long vehicleId;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    private String phase; // solver stage of the best solution so far
+    private Double bestCost; // km of the best solution so far
+    private boolean cached; // answered from an earlier job with identical inputs
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private Object result; // List<Shipment>, TimedRoute or FleetPlan by type; the best so far while running
+}
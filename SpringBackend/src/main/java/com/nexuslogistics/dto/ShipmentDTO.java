@@ -44,7 +44,8 @@ public class ShipmentDTO {
     private LocalDateTime created;
     private Long assignedVehicleId;
     
-    // e-POD fields for API responses
-    private String signatureBase64;
+    // e-POD fields for API responses; the images are served by /api/shipments/{id}/signature and /photo
+    private String signatureBlobId;
+    private String deliveryPhotoBlobId;
     private LocalDateTime deliveredAt;
 }
@@ -0,0 +1,25 @@
+package com.nexuslogistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters of the shipment listing, bound from query parameters. Unset
+ * fields do not filter.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentFilter {
+    private String status;
+    private Long vehicleId;
+    private String customer; // exact match
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from; // created at or after
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to; // created before
+}
@@ -0,0 +1,19 @@
+package com.nexuslogistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the shipment listing, newest first. e-POD images are referenced by
+ * content id, not included.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentPage {
+    private List<ShipmentDTO> items;
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,25 @@
+package com.nexuslogistics.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TelemetryBatchResult {
+    private static final int MAX_REPORTED_ERRORS = 50;
+
+    private int received;
+    private int accepted;
+    private int rejected;
+    private int batches; // number of database transactions used
+    private boolean complete = true; // false when the body was cut short by malformed JSON
+    private List<String> errors = new ArrayList<>(); // first rejections, for troubleshooting gateways
+
+    public void reject(int index, String reason) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("item " + index + ": " + reason);
+        }
+    }
+}
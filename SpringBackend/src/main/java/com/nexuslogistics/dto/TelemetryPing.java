@@ -0,0 +1,18 @@
+package com.nexuslogistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TelemetryPing {
+    private Long vehicleId;
+    private double latitude;
+    private double longitude;
+    private double speed;
+    private long receivedAt; // epoch millis, stamped on ingestion
+}
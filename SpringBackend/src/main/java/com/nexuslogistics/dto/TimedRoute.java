@@ -0,0 +1,24 @@
+package com.nexuslogistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stop order for one vehicle planned against delivery deadlines, with the expected
+ * arrival and lateness of every stop.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimedRoute {
+    private LocalDateTime departure;
+    private List<TimedStop> stops;
+    private List<Long> unassignedShipmentIds; // did not fit the vehicle's capacity
+    private double distanceKm;
+    private int lateStops;
+    private double totalLateMinutes;
+}
@@ -0,0 +1,18 @@
+package com.nexuslogistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimedStop {
+    private Long shipmentId;
+    private String sId;
+    private LocalDateTime estimatedArrival;
+    private LocalDateTime estimatedDeliveryTime; // null when the shipment has no deadline
+    private double lateMinutes;
+}
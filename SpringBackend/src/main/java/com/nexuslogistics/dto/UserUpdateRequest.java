@@ -0,0 +1,10 @@
+package com.nexuslogistics.dto;
+
+import lombok.Data;
+
+@Data
+public class UserUpdateRequest {
+    private String role; // ADMIN, DRIVER, DISPATCHER or USER; unchanged when null
+
+    private Boolean enabled; // unchanged when null
+}
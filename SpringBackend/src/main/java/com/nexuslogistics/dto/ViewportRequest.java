@@ -0,0 +1,15 @@
+package com.nexuslogistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewportRequest {
+    private String bbox; // "minLat,minLng,maxLat,maxLng"
+    private List<String> tiles; // "z/x/y" slippy-map tiles, used when bbox is absent
+}
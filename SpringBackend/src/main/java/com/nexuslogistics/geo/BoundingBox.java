@@ -0,0 +1,82 @@
+package com.nexuslogistics.geo;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lat/lng rectangle of a map viewport. Boxes crossing the antimeridian are split in
+ * two by {@link #parse(String)}, so {@code minLng <= maxLng} always holds.
+ */
+@Getter
+public class BoundingBox {
+
+    private final double minLat;
+    private final double minLng;
+    private final double maxLat;
+    private final double maxLng;
+
+    public BoundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+        if (minLat > maxLat || minLng > maxLng) {
+            throw new IllegalArgumentException("Bounding box corners are out of order");
+        }
+        this.minLat = Math.max(-90, minLat);
+        this.minLng = Math.max(-180, minLng);
+        this.maxLat = Math.min(90, maxLat);
+        this.maxLng = Math.min(180, maxLng);
+    }
+
+    public boolean contains(double lat, double lng) {
+        return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+    }
+
+    /**
+     * Parses {@code "minLat,minLng,maxLat,maxLng"}, the order Leaflet's
+     * {@code getBounds().toBBoxString()} is easily rearranged into.
+     */
+    public static List<BoundingBox> parse(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Bounding box needs minLat,minLng,maxLat,maxLng");
+        }
+        double[] v = new double[4];
+        for (int i = 0; i < 4; i++) {
+            v[i] = Double.parseDouble(parts[i].trim());
+        }
+        return of(v[0], v[1], v[2], v[3]);
+    }
+
+    public static List<BoundingBox> of(double minLat, double minLng, double maxLat, double maxLng) {
+        List<BoundingBox> boxes = new ArrayList<>(2);
+        if (minLng <= maxLng) {
+            boxes.add(new BoundingBox(minLat, minLng, maxLat, maxLng));
+        } else {
+            boxes.add(new BoundingBox(minLat, minLng, maxLat, 180));
+            boxes.add(new BoundingBox(minLat, -180, maxLat, maxLng));
+        }
+        return boxes;
+    }
+
+    /**
+     * Bounds of a slippy-map tile given as {@code "z/x/y"}.
+     */
+    public static BoundingBox ofTile(String tile) {
+        String[] parts = tile.trim().split("/");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Tile needs z/x/y");
+        }
+        int z = Integer.parseInt(parts[0]);
+        int x = Integer.parseInt(parts[1]);
+        int y = Integer.parseInt(parts[2]);
+        int n = 1 << z;
+        if (z < 0 || z > 30 || x < 0 || x >= n || y < 0 || y >= n) {
+            throw new IllegalArgumentException("Tile " + tile + " is out of range");
+        }
+        return new BoundingBox(tileLat(y + 1, n), x * 360.0 / n - 180, tileLat(y, n), (x + 1) * 360.0 / n - 180);
+    }
+
+    private static double tileLat(int y, int n) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * y / n))));
+    }
+}
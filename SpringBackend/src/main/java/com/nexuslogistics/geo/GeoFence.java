@@ -0,0 +1,128 @@
+package com.nexuslogistics.geo;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A circular or polygonal geofence. Shipment destination fences use the shipment
+ * id as fence id; ad-hoc fences use negative ids so the two never collide.
+ */
+@Getter
+public class GeoFence {
+
+    public enum Type { CIRCLE, POLYGON }
+
+    private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+
+    private final long id;
+    private final long vehicleId; // 0 = applies to every vehicle
+    private final String label;
+    private final Type type;
+
+    private final double centerLat;
+    private final double centerLng;
+    private final double radiusMeters;
+    private final double[] lats;
+    private final double[] lngs;
+
+    private final double minLat;
+    private final double maxLat;
+    private final double minLng;
+    private final double maxLng;
+
+    @JsonIgnore
+    private final double metersPerDegreeLng; // at the fence center, for the flat-earth circle test
+
+    private GeoFence(long id, long vehicleId, String label, Type type, double centerLat, double centerLng,
+                     double radiusMeters, double[] lats, double[] lngs,
+                     double minLat, double maxLat, double minLng, double maxLng) {
+        this.id = id;
+        this.vehicleId = vehicleId;
+        this.label = label;
+        this.type = type;
+        this.centerLat = centerLat;
+        this.centerLng = centerLng;
+        this.radiusMeters = radiusMeters;
+        this.lats = lats;
+        this.lngs = lngs;
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLng = minLng;
+        this.maxLng = maxLng;
+        this.metersPerDegreeLng = METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(centerLat));
+    }
+
+    public static GeoFence circle(long id, long vehicleId, String label, double lat, double lng, double radiusMeters) {
+        double dLat = radiusMeters / METERS_PER_DEGREE_LAT;
+        double dLng = radiusMeters / (METERS_PER_DEGREE_LAT * Math.max(0.01, Math.cos(Math.toRadians(lat))));
+        return new GeoFence(id, vehicleId, label, Type.CIRCLE, lat, lng, radiusMeters, null, null,
+                lat - dLat, lat + dLat, lng - dLng, lng + dLng);
+    }
+
+    public static GeoFence polygon(long id, long vehicleId, String label, double[] lats, double[] lngs) {
+        if (lats.length < 3 || lats.length != lngs.length) {
+            throw new IllegalArgumentException("A polygon fence needs at least three points");
+        }
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLng = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+        double sumLat = 0, sumLng = 0;
+        for (int i = 0; i < lats.length; i++) {
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            minLng = Math.min(minLng, lngs[i]);
+            maxLng = Math.max(maxLng, lngs[i]);
+            sumLat += lats[i];
+            sumLng += lngs[i];
+        }
+        return new GeoFence(id, vehicleId, label, Type.POLYGON, sumLat / lats.length, sumLng / lngs.length, 0,
+                lats.clone(), lngs.clone(), minLat, maxLat, minLng, maxLng);
+    }
+
+    /**
+     * True when {@code other} has the same vehicle, label and geometry, so replacing
+     * one with the other would change nothing.
+     */
+    public boolean sameAs(GeoFence other) {
+        return other != null && id == other.id && vehicleId == other.vehicleId && type == other.type
+                && Objects.equals(label, other.label)
+                && centerLat == other.centerLat && centerLng == other.centerLng
+                && radiusMeters == other.radiusMeters
+                && Arrays.equals(lats, other.lats) && Arrays.equals(lngs, other.lngs);
+    }
+
+    public boolean appliesTo(long vehicleId) {
+        return this.vehicleId == 0 || this.vehicleId == vehicleId;
+    }
+
+    public boolean contains(double lat, double lng) {
+        return contains(lat, lng, 0);
+    }
+
+    /**
+     * @param marginMeters grows a circle fence by this much; used to stop GPS jitter on the boundary
+     *                     from flapping between inside and outside
+     */
+    public boolean contains(double lat, double lng, double marginMeters) {
+        if (type == Type.CIRCLE) {
+            // Equirectangular approximation: exact enough at fence scale and free of trig per call
+            double dy = (lat - centerLat) * METERS_PER_DEGREE_LAT;
+            double dx = (lng - centerLng) * metersPerDegreeLng;
+            double r = radiusMeters + marginMeters;
+            return dx * dx + dy * dy <= r * r;
+        }
+        if (lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) return false;
+
+        // Ray casting
+        boolean inside = false;
+        for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+            if ((lats[i] > lat) != (lats[j] > lat)
+                    && lng < (lngs[j] - lngs[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lngs[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
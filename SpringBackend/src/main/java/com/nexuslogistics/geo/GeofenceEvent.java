@@ -0,0 +1,18 @@
+package com.nexuslogistics.geo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class GeofenceEvent {
+
+    public enum Type { ENTER, DWELL, EXIT }
+
+    private final Type type;
+    private final long vehicleId;
+    private final long fenceId;
+    private final String fenceLabel;
+    private final long timestamp; // epoch millis
+    private final long insideForMs; // time since ENTER, 0 for ENTER itself
+}
@@ -0,0 +1,160 @@
+package com.nexuslogistics.geo;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uniform lat/lng grid over geofences. Each fence is registered in every cell its
+ * bounding box overlaps, so a position lookup reads exactly one cell and only tests
+ * the handful of fences registered there. Cells are copy-on-write arrays: lookups
+ * never lock, and writers only contend per cell and per fence.
+ */
+public class GeofenceIndex {
+
+    // Fences spanning more cells than this are tested on every lookup instead of being gridded
+    private static final int MAX_CELLS_PER_FENCE = 4096;
+    private static final GeoFence[] EMPTY = new GeoFence[0];
+    private static final long[] NO_CELLS = new long[0];
+
+    private final double cellDegrees;
+    private final long columns;
+
+    private final ConcurrentHashMap<Long, GeoFence[]> cells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, GeoFence> fences = new ConcurrentHashMap<>();
+    private volatile GeoFence[] oversized = EMPTY;
+
+    public GeofenceIndex(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.columns = (long) Math.ceil(360.0 / cellDegrees) + 1;
+    }
+
+    /**
+     * Adds the fence, or replaces the one with the same id. A concurrent lookup sees the
+     * old or the new version throughout, never neither; re-putting an unchanged fence is
+     * a no-op.
+     */
+    public void put(GeoFence fence) {
+        // compute() serializes writers of the same fence id
+        fences.compute(fence.getId(), (id, previous) -> {
+            if (fence.sameAs(previous)) return previous;
+            replace(previous, fence);
+            return fence;
+        });
+    }
+
+    public GeoFence remove(long fenceId) {
+        GeoFence[] removed = new GeoFence[1];
+        fences.computeIfPresent(fenceId, (id, previous) -> {
+            replace(previous, null);
+            removed[0] = previous;
+            return null;
+        });
+        return removed[0];
+    }
+
+    // Adds the new cells first, swaps shared cells in one step and drops the old cells
+    // last, so a lookup may briefly see both versions but never a gap
+    private void replace(GeoFence previous, GeoFence next) {
+        long[] from = previous == null ? NO_CELLS : cellKeys(previous);
+        long[] to = next == null ? NO_CELLS : cellKeys(next);
+        long fenceId = previous != null ? previous.getId() : next.getId();
+
+        if (to != null) {
+            for (long key : to) {
+                boolean shared = from != null && Arrays.binarySearch(from, key) >= 0;
+                cells.compute(key, (k, current) -> append(
+                        shared ? without(current, fenceId) : current == null ? EMPTY : current, next));
+            }
+        }
+        if (from == null || to == null) {
+            synchronized (this) {
+                GeoFence[] current = from == null ? without(oversized, fenceId) : oversized;
+                oversized = to == null ? append(current, next) : current;
+            }
+        }
+        if (from != null) {
+            for (long key : from) {
+                if (to != null && Arrays.binarySearch(to, key) >= 0) continue;
+                cells.computeIfPresent(key, (k, current) -> {
+                    GeoFence[] remaining = without(current, fenceId);
+                    return remaining.length == 0 ? null : remaining;
+                });
+            }
+        }
+    }
+
+    // Sorted cell keys under the fence's bounding box, or null when it is too large to grid
+    private long[] cellKeys(GeoFence fence) {
+        long rowFrom = row(fence.getMinLat()), rowTo = row(fence.getMaxLat());
+        long colFrom = col(fence.getMinLng()), colTo = col(fence.getMaxLng());
+        long count = (rowTo - rowFrom + 1) * (colTo - colFrom + 1);
+        if (count > MAX_CELLS_PER_FENCE) return null;
+
+        long[] keys = new long[(int) count];
+        int i = 0;
+        for (long r = rowFrom; r <= rowTo; r++) {
+            for (long c = colFrom; c <= colTo; c++) {
+                keys[i++] = r * columns + c;
+            }
+        }
+        return keys;
+    }
+
+    public GeoFence get(long fenceId) {
+        return fences.get(fenceId);
+    }
+
+    public Collection<GeoFence> all() {
+        return fences.values();
+    }
+
+    public int size() {
+        return fences.size();
+    }
+
+    /**
+     * Collects the fences applying to {@code vehicleId} that contain the position into {@code hits}.
+     */
+    public void query(double lat, double lng, long vehicleId, List<GeoFence> hits) {
+        GeoFence[] candidates = cells.get(row(lat) * columns + col(lng));
+        if (candidates != null) {
+            for (GeoFence fence : candidates) {
+                if (fence.appliesTo(vehicleId) && fence.contains(lat, lng)) hits.add(fence);
+            }
+        }
+        for (GeoFence fence : oversized) {
+            if (fence.appliesTo(vehicleId) && fence.contains(lat, lng)) hits.add(fence);
+        }
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor((lat + 90.0) / cellDegrees);
+    }
+
+    private long col(double lng) {
+        return (long) Math.floor((lng + 180.0) / cellDegrees);
+    }
+
+    private static GeoFence[] append(GeoFence[] current, GeoFence fence) {
+        GeoFence[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = fence;
+        return next;
+    }
+
+    private static GeoFence[] without(GeoFence[] current, long fenceId) {
+        int index = -1;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].getId() == fenceId) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) return current;
+        GeoFence[] next = new GeoFence[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        return next;
+    }
+}
@@ -0,0 +1,363 @@
+package com.nexuslogistics.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+/**
+ * Per (vehicle, fence) geofence state machine producing ENTER, DWELL and EXIT events.
+ * <p>
+ * Vehicles are spread over lock stripes, each an open-addressing map keyed by the
+ * primitive vehicle id, so a position update neither boxes ids nor allocates map
+ * entries. Concurrent telemetry only contends for vehicles sharing a stripe. A vehicle
+ * is rarely inside more than a few fences, so its visits are a small array scanned by
+ * fence id. Boundary jitter is suppressed by requiring consecutive samples on the new
+ * side and, for circles, an exit margin beyond the radius. A visit only exists while a
+ * vehicle is at or inside a fence and is dropped on EXIT, when its fence goes away, or
+ * after {@code visitTtlMs} without updates.
+ */
+public class GeofenceStateTracker {
+
+    private enum State { PENDING_ENTER, INSIDE }
+
+    private static final int STRIPES = 64; // power of two
+
+    private static final class Visit {
+        final long fenceId;
+        State state = State.PENDING_ENTER;
+        int insideSamples;
+        int outsideSamples;
+        long enteredAt;
+        long lastSeen;
+        boolean dwellReported;
+
+        Visit(long fenceId) {
+            this.fenceId = fenceId;
+        }
+    }
+
+    /** Open visits of one vehicle. */
+    private static final class VehicleVisits {
+        Visit[] visits = new Visit[2];
+        int size;
+
+        Visit get(long fenceId) {
+            for (int i = 0; i < size; i++) {
+                if (visits[i].fenceId == fenceId) return visits[i];
+            }
+            return null;
+        }
+
+        void add(Visit visit) {
+            if (size == visits.length) visits = Arrays.copyOf(visits, size * 2);
+            visits[size++] = visit;
+        }
+
+        boolean remove(long fenceId) {
+            for (int i = 0; i < size; i++) {
+                if (visits[i].fenceId == fenceId) {
+                    visits[i] = visits[--size];
+                    visits[size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Vehicle id to visits with linear probing; only used under its own lock. */
+    private static final class Stripe {
+        long[] keys = new long[8];
+        VehicleVisits[] values = new VehicleVisits[8]; // null marks a free slot
+        int size;
+
+        VehicleVisits get(long vehicleId) {
+            int mask = keys.length - 1;
+            for (int i = slot(vehicleId, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == vehicleId) return values[i];
+            }
+            return null;
+        }
+
+        VehicleVisits getOrCreate(long vehicleId) {
+            VehicleVisits visits = get(vehicleId);
+            if (visits != null) return visits;
+            if ((size + 1) * 2 > keys.length) rehash(keys.length * 2);
+            int mask = keys.length - 1;
+            int i = slot(vehicleId, mask);
+            while (values[i] != null) i = (i + 1) & mask;
+            keys[i] = vehicleId;
+            values[i] = visits = new VehicleVisits();
+            size++;
+            return visits;
+        }
+
+        void remove(long vehicleId) {
+            int mask = keys.length - 1;
+            int gap = slot(vehicleId, mask);
+            while (values[gap] != null && keys[gap] != vehicleId) gap = (gap + 1) & mask;
+            if (values[gap] == null) return;
+            size--;
+            // Shift later entries of the probe run back so lookups never stop at the hole
+            for (int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+                int home = slot(keys[j], mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            values[gap] = null;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            VehicleVisits[] oldValues = values;
+            keys = new long[capacity];
+            values = new VehicleVisits[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] == null) continue;
+                int i = slot(oldKeys[j], mask);
+                while (values[i] != null) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int slot(long vehicleId, int mask) {
+            return (int) ((vehicleId * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        }
+    }
+
+    private final int enterConfirmations;
+    private final int exitConfirmations;
+    private final double exitMarginMeters;
+    private final long dwellMs;
+    private final int maxVisits;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger visitCount = new AtomicInteger();
+    private final AtomicInteger vehicleCount = new AtomicInteger();
+
+    public GeofenceStateTracker(int enterConfirmations, int exitConfirmations, double exitMarginMeters,
+                                long dwellMs, int maxVisits) {
+        this.enterConfirmations = Math.max(1, enterConfirmations);
+        this.exitConfirmations = Math.max(1, exitConfirmations);
+        this.exitMarginMeters = exitMarginMeters;
+        this.dwellMs = dwellMs;
+        this.maxVisits = maxVisits;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Applies a position update.
+     *
+     * @param hits        fences containing the position, as returned by the index
+     * @param fenceLookup resolves fences of open visits that are not among the hits
+     */
+    public List<GeofenceEvent> update(long vehicleId, double lat, double lng, List<GeoFence> hits,
+                                      LongFunction<GeoFence> fenceLookup, long now) {
+        List<GeofenceEvent> events = new ArrayList<>(0);
+        Stripe stripe = stripeOf(vehicleId);
+        synchronized (stripe) {
+            VehicleVisits visits = hits.isEmpty() ? stripe.get(vehicleId) : visitsOf(stripe, vehicleId);
+            if (visits == null) return events; // outside everything and nothing open
+
+            for (GeoFence fence : hits) {
+                observe(visits, vehicleId, fence, true, now, events);
+            }
+            // Open visits not among the hits: still inside the exit margin, or leaving
+            Visit[] open = Arrays.copyOf(visits.visits, visits.size);
+            for (Visit visit : open) {
+                if (containsFence(hits, visit.fenceId)) continue;
+                GeoFence fence = fenceLookup.apply(visit.fenceId);
+                if (fence == null) {
+                    drop(visits, visit.fenceId);
+                    continue;
+                }
+                boolean stillInside = visit.state == State.INSIDE && fence.contains(lat, lng, exitMarginMeters);
+                observe(visits, vehicleId, fence, stillInside, now, events);
+            }
+            removeIfEmpty(stripe, vehicleId, visits);
+        }
+        return events;
+    }
+
+    /**
+     * Applies a single vehicle/fence observation, for callers that test one pair at a time.
+     */
+    public List<GeofenceEvent> observe(long vehicleId, GeoFence fence, double lat, double lng, long now) {
+        List<GeofenceEvent> events = new ArrayList<>(0);
+        boolean inside = fence.contains(lat, lng);
+        Stripe stripe = stripeOf(vehicleId);
+        synchronized (stripe) {
+            VehicleVisits visits = inside ? visitsOf(stripe, vehicleId) : stripe.get(vehicleId);
+            if (visits == null) return events;
+
+            Visit open = visits.get(fence.getId());
+            if (inside || open != null) {
+                boolean stillInside = inside
+                        || (open.state == State.INSIDE && fence.contains(lat, lng, exitMarginMeters));
+                observe(visits, vehicleId, fence, stillInside, now, events);
+            }
+            removeIfEmpty(stripe, vehicleId, visits);
+        }
+        return events;
+    }
+
+    private void observe(VehicleVisits visits, long vehicleId, GeoFence fence, boolean inside,
+                         long now, List<GeofenceEvent> events) {
+        Visit visit = visits.get(fence.getId());
+        if (visit == null) {
+            if (!inside) return;
+            if (visitCount.get() >= maxVisits) return; // bounded: shed new visits rather than grow
+            visit = new Visit(fence.getId());
+            visits.add(visit);
+            visitCount.incrementAndGet();
+        }
+        visit.lastSeen = now;
+
+        if (inside) {
+            visit.outsideSamples = 0;
+            if (visit.state == State.PENDING_ENTER) {
+                if (++visit.insideSamples >= enterConfirmations) {
+                    visit.state = State.INSIDE;
+                    visit.enteredAt = now;
+                    events.add(new GeofenceEvent(GeofenceEvent.Type.ENTER, vehicleId, fence.getId(),
+                            fence.getLabel(), now, 0));
+                }
+            } else if (!visit.dwellReported && now - visit.enteredAt >= dwellMs) {
+                visit.dwellReported = true;
+                events.add(new GeofenceEvent(GeofenceEvent.Type.DWELL, vehicleId, fence.getId(),
+                        fence.getLabel(), now, now - visit.enteredAt));
+            }
+            return;
+        }
+
+        if (visit.state == State.PENDING_ENTER) {
+            // Touched the boundary without confirming the entry: no event either way
+            drop(visits, fence.getId());
+        } else if (++visit.outsideSamples >= exitConfirmations) {
+            drop(visits, fence.getId());
+            events.add(new GeofenceEvent(GeofenceEvent.Type.EXIT, vehicleId, fence.getId(),
+                    fence.getLabel(), now, now - visit.enteredAt));
+        }
+    }
+
+    /**
+     * Forgets every visit of a fence, e.g. when its shipment has been delivered.
+     *
+     * @param vehicleId the only vehicle the fence applies to, or 0 to scan all vehicles
+     */
+    public void evictFence(long fenceId, long vehicleId) {
+        if (vehicleId != 0) {
+            Stripe stripe = stripeOf(vehicleId);
+            synchronized (stripe) {
+                VehicleVisits visits = stripe.get(vehicleId);
+                if (visits != null) {
+                    drop(visits, fenceId);
+                    removeIfEmpty(stripe, vehicleId, visits);
+                }
+            }
+            return;
+        }
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.values.length; i++) {
+                    VehicleVisits visits = stripe.values[i];
+                    if (visits != null) drop(visits, fenceId);
+                }
+                removeEmpty(stripe);
+            }
+        }
+    }
+
+    /**
+     * Drops visits of vehicles that have stopped reporting.
+     */
+    public int evictIdle(long lastSeenBefore) {
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.values.length; i++) {
+                    VehicleVisits visits = stripe.values[i];
+                    if (visits == null) continue;
+                    for (int v = visits.size - 1; v >= 0; v--) {
+                        if (visits.visits[v].lastSeen < lastSeenBefore) {
+                            drop(visits, visits.visits[v].fenceId);
+                            evicted++;
+                        }
+                    }
+                }
+                removeEmpty(stripe);
+            }
+        }
+        return evicted;
+    }
+
+    public boolean isInside(long vehicleId, long fenceId) {
+        Stripe stripe = stripeOf(vehicleId);
+        synchronized (stripe) {
+            VehicleVisits visits = stripe.get(vehicleId);
+            Visit visit = visits == null ? null : visits.get(fenceId);
+            return visit != null && visit.state == State.INSIDE;
+        }
+    }
+
+    public int getVisitCount() {
+        return visitCount.get();
+    }
+
+    public int getTrackedVehicles() {
+        return vehicleCount.get();
+    }
+
+    private Stripe stripeOf(long vehicleId) {
+        return stripes[Long.hashCode(vehicleId) & (STRIPES - 1)];
+    }
+
+    private VehicleVisits visitsOf(Stripe stripe, long vehicleId) {
+        int before = stripe.size;
+        VehicleVisits visits = stripe.getOrCreate(vehicleId);
+        if (stripe.size != before) vehicleCount.incrementAndGet();
+        return visits;
+    }
+
+    private void drop(VehicleVisits visits, long fenceId) {
+        if (visits.remove(fenceId)) {
+            visitCount.decrementAndGet();
+        }
+    }
+
+    private void removeIfEmpty(Stripe stripe, long vehicleId, VehicleVisits visits) {
+        if (visits.size == 0) {
+            stripe.remove(vehicleId);
+            vehicleCount.decrementAndGet();
+        }
+    }
+
+    private void removeEmpty(Stripe stripe) {
+        // Removal shifts entries back, so collect the ids first
+        long[] empty = new long[stripe.size];
+        int count = 0;
+        for (int i = 0; i < stripe.values.length; i++) {
+            if (stripe.values[i] != null && stripe.values[i].size == 0) empty[count++] = stripe.keys[i];
+        }
+        for (int i = 0; i < count; i++) {
+            stripe.remove(empty[i]);
+            vehicleCount.decrementAndGet();
+        }
+    }
+
+    private static boolean containsFence(List<GeoFence> hits, long fenceId) {
+        for (GeoFence fence : hits) {
+            if (fence.getId() == fenceId) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,146 @@
+package com.nexuslogistics.geo;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Uniform lat/lng grid from cells to the viewers whose viewport overlaps them, so a
+ * vehicle update only has to be checked against the viewers of its own cell.
+ * Viewports covering too many cells (zoomed out to a continent) are kept in a
+ * separate list that every lookup checks, like oversized fences in {@link GeofenceIndex}.
+ * Changes to one viewer run inside {@code viewports.compute}, so concurrent updates
+ * of the same viewer cannot leave it in cells of a viewport it no longer has.
+ */
+public class ViewportIndex<T> {
+
+    private static final int MAX_CELLS_PER_VIEWPORT = 4096;
+
+    private final double cellDegrees;
+    private final long columns;
+
+    private final ConcurrentHashMap<Long, Object[]> cells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<T, List<BoundingBox>> viewports = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<T, Boolean> oversized = new ConcurrentHashMap<>();
+
+    public ViewportIndex(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.columns = (long) Math.ceil(360.0 / cellDegrees) + 1;
+    }
+
+    public void put(T viewer, List<BoundingBox> boxes) {
+        viewports.compute(viewer, (v, previous) -> {
+            if (previous != null) unindex(v, previous);
+            index(v, boxes);
+            return boxes;
+        });
+    }
+
+    public void remove(T viewer) {
+        viewports.computeIfPresent(viewer, (v, previous) -> {
+            unindex(v, previous);
+            return null;
+        });
+    }
+
+    public List<BoundingBox> get(T viewer) {
+        return viewports.get(viewer);
+    }
+
+    public boolean covers(T viewer, double lat, double lng) {
+        List<BoundingBox> boxes = viewports.get(viewer);
+        if (boxes == null) return false;
+        for (BoundingBox box : boxes) {
+            if (box.contains(lat, lng)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the viewers whose viewport contains the position to {@code out}.
+     */
+    @SuppressWarnings("unchecked")
+    public void query(double lat, double lng, Collection<T> out) {
+        Object[] candidates = cells.get(row(lat) * columns + col(lng));
+        if (candidates != null) {
+            for (Object candidate : candidates) {
+                if (covers((T) candidate, lat, lng)) out.add((T) candidate);
+            }
+        }
+        for (T viewer : oversized.keySet()) {
+            if (covers(viewer, lat, lng)) out.add(viewer);
+        }
+    }
+
+    public int size() {
+        return viewports.size();
+    }
+
+    private void index(T viewer, List<BoundingBox> boxes) {
+        if (cellCount(boxes) > MAX_CELLS_PER_VIEWPORT) {
+            oversized.put(viewer, Boolean.TRUE);
+            return;
+        }
+        for (BoundingBox box : boxes) {
+            forEachCell(box, key -> cells.compute(key, (k, current) -> append(current, viewer)));
+        }
+    }
+
+    private void unindex(T viewer, List<BoundingBox> boxes) {
+        if (oversized.remove(viewer) != null) return;
+        for (BoundingBox box : boxes) {
+            forEachCell(box, key -> cells.computeIfPresent(key, (k, current) -> {
+                Object[] next = without(current, viewer);
+                return next.length == 0 ? null : next;
+            }));
+        }
+    }
+
+    private long cellCount(List<BoundingBox> boxes) {
+        long count = 0;
+        for (BoundingBox box : boxes) {
+            count += (row(box.getMaxLat()) - row(box.getMinLat()) + 1) * (col(box.getMaxLng()) - col(box.getMinLng()) + 1);
+        }
+        return count;
+    }
+
+    private void forEachCell(BoundingBox box, LongConsumer action) {
+        for (long r = row(box.getMinLat()); r <= row(box.getMaxLat()); r++) {
+            for (long c = col(box.getMinLng()); c <= col(box.getMaxLng()); c++) {
+                action.accept(r * columns + c);
+            }
+        }
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor((lat + 90.0) / cellDegrees);
+    }
+
+    private long col(double lng) {
+        return (long) Math.floor((lng + 180.0) / cellDegrees);
+    }
+
+    private static Object[] append(Object[] current, Object viewer) {
+        if (current == null) return new Object[] { viewer };
+        for (Object existing : current) {
+            if (existing == viewer) return current; // two boxes of one viewer sharing a cell
+        }
+        Object[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = viewer;
+        return next;
+    }
+
+    private static Object[] without(Object[] current, Object viewer) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == viewer) {
+                Object[] next = new Object[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                return next;
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,21 @@
+package com.nexuslogistics.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+    @Id
+    @Column(length = 64)
+    private String tokenHash; // hex SHA-256 of the signed-out token
+
+    private long expiresAt; // epoch millis; the row can go once the token has expired
+    private long revokedAt; // epoch millis
+}
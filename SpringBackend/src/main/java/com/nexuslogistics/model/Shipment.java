@@ -2,6 +2,7 @@ package com.nexuslogistics.model;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
@@ -26,13 +27,21 @@ public class Shipment {
     private double latitude;
     private double longitude;
     private LocalDateTime estimatedDeliveryTime;
-    private LocalDateTime created = LocalDateTime.now();
+    @Builder.Default
+    @Column(nullable = false)
+    private LocalDateTime created = LocalDateTime.now(); // the listing pages by it
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "vehicle_id")
     private Vehicle assignedVehicle;
 
-    // e-POD Fields
+    // e-POD Fields; the images themselves are in the ContentStore
+    private String signatureBlobId;
+    private String signatureContentType;
+    private String deliveryPhotoBlobId;
+    private String deliveryPhotoContentType;
+
+    // Signatures captured before the content store; moved out when first downloaded
     @Column(columnDefinition = "TEXT")
     private String signatureBase64;
     
@@ -35,4 +35,7 @@ public class User {
 
     @Builder.Default
     private boolean enabled = true;
+
+    // Epoch millis; tokens issued up to then are rejected on every instance
+    private Long tokensValidAfter;
 }
@@ -18,7 +18,7 @@ public class Vehicle {
     private String vId; // Display ID (e.g. VN-101)
     private String plate;
     private String name; // Model name
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "driver_id")
     private DriverProfile driver;
     private double latitude;
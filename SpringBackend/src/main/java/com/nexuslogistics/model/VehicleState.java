@@ -0,0 +1,54 @@
+package com.nexuslogistics.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Immutable in-memory snapshot of a vehicle held by the live fleet registry.
+ * Position updates produce a new snapshot instead of mutating a JPA entity.
+ */
+@Getter
+@AllArgsConstructor
+public class VehicleState {
+    private final long id;
+    private final String vId;
+    private final String plate;
+    private final String name;
+    private final String driver; // driver username, null when unassigned
+    private final double latitude;
+    private final double longitude;
+    private final double speed;
+    private final double fuel;
+    private final double mileage;
+    private final String lastService;
+    private final Double temp;
+    private final String status;
+    private final double maxCapacity;
+    private final long version; // registry-wide sequence of the last change
+    private final long updatedAt; // epoch millis
+
+    public static VehicleState of(Vehicle vehicle, long version) {
+        return new VehicleState(
+                vehicle.getId(),
+                vehicle.getVId(),
+                vehicle.getPlate(),
+                vehicle.getName(),
+                vehicle.getDriver() != null ? vehicle.getDriver().getUser().getUsername() : null,
+                vehicle.getLatitude(),
+                vehicle.getLongitude(),
+                vehicle.getSpeed(),
+                vehicle.getFuel(),
+                vehicle.getMileage(),
+                vehicle.getLastService(),
+                vehicle.getTemp(),
+                vehicle.getStatus(),
+                vehicle.getMaxCapacity(),
+                version,
+                System.currentTimeMillis());
+    }
+
+    public VehicleState withPosition(double latitude, double longitude, double speed, long version, long updatedAt) {
+        return new VehicleState(id, vId, plate, name, driver, latitude, longitude, speed, fuel, mileage,
+                lastService, temp, status, maxCapacity, version, updatedAt);
+    }
+}
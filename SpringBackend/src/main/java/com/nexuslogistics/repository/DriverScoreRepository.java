@@ -1,6 +1,7 @@
 package com.nexuslogistics.repository;
 
 import com.nexuslogistics.model.DriverScore;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,5 +9,8 @@ import java.util.List;
 
 @Repository
 public interface DriverScoreRepository extends JpaRepository<DriverScore, Long> {
-    List<DriverScore> findAllByOrderByEcoScoreDesc();
+    // Bounded so idx_driver_score_eco_score can serve it without sorting the table. The
+    // leaderboard serializes each score with its driver, so those are joined in.
+    @EntityGraph(attributePaths = {"driver", "driver.user"})
+    List<DriverScore> findTop100ByOrderByEcoScoreDesc();
 }
@@ -0,0 +1,16 @@
+package com.nexuslogistics.repository;
+
+import com.nexuslogistics.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    List<RevokedToken> findByRevokedAtGreaterThanEqual(long since);
+
+    @Transactional
+    long deleteByExpiresAtLessThanEqual(long now);
+}
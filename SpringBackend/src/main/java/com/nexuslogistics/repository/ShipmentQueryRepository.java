@@ -0,0 +1,124 @@
+package com.nexuslogistics.repository;
+
+import com.nexuslogistics.dto.ShipmentDTO;
+import com.nexuslogistics.dto.ShipmentFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read side of the shipment listing. Pages are found by keyset on (created, id) rather
+ * than by offset, so each page is a short range scan of idx_shipment_created_id (or of
+ * the index of the filtered column) however deep it is, and only the listed columns are
+ * read; legacy inline signatures, which can be hundreds of kilobytes, never leave the database.
+ * Exports stream through a forward-only cursor instead of being collected.
+ */
+@Repository
+public class ShipmentQueryRepository {
+
+    private static final String SELECT_SQL = "SELECT id, s_id, customer, recipient_name, origin, destination, "
+            + "destination_address, weight_kg, status, latitude, longitude, estimated_delivery_time, created, "
+            + "vehicle_id, delivered_at, signature_blob_id, delivery_photo_blob_id FROM shipment WHERE 1 = 1";
+
+    // Labels are the ShipmentDTO field names, which exports use as headers and keys
+    private static final String EXPORT_SQL = "SELECT id, s_id AS \"sId\", customer, recipient_name AS \"recipientName\", "
+            + "origin, destination, destination_address AS \"destinationAddress\", weight_kg AS \"weightKg\", status, "
+            + "latitude, longitude, estimated_delivery_time AS \"estimatedDeliveryTime\", created, "
+            + "vehicle_id AS \"assignedVehicleId\", delivered_at AS \"deliveredAt\", delivery_lat AS \"deliveryLat\", "
+            + "delivery_lng AS \"deliveryLng\", delivery_photo_url AS \"deliveryPhotoUrl\", "
+            + "signature_blob_id AS \"signatureBlobId\", delivery_photo_blob_id AS \"deliveryPhotoBlobId\" "
+            + "FROM shipment WHERE 1 = 1";
+
+    private static final RowMapper<ShipmentDTO> ROW_MAPPER = (rs, rowNum) -> ShipmentDTO.builder()
+            .id(rs.getLong("id"))
+            .sId(rs.getString("s_id"))
+            .customer(rs.getString("customer"))
+            .recipientName(rs.getString("recipient_name"))
+            .origin(rs.getString("origin"))
+            .destination(rs.getString("destination"))
+            .destinationAddress(rs.getString("destination_address"))
+            .weightKg(rs.getDouble("weight_kg"))
+            .status(rs.getString("status"))
+            .latitude(rs.getDouble("latitude"))
+            .longitude(rs.getDouble("longitude"))
+            .estimatedDeliveryTime(rs.getObject("estimated_delivery_time", LocalDateTime.class))
+            .created(rs.getObject("created", LocalDateTime.class))
+            .assignedVehicleId(rs.getObject("vehicle_id", Long.class))
+            .deliveredAt(rs.getObject("delivered_at", LocalDateTime.class))
+            .signatureBlobId(rs.getString("signature_blob_id"))
+            .deliveryPhotoBlobId(rs.getString("delivery_photo_blob_id"))
+            .build();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param afterCreated created of the last shipment of the previous page, null for the first page
+     * @param afterId      id of the last shipment of the previous page
+     */
+    public List<ShipmentDTO> findPage(ShipmentFilter filter, LocalDateTime afterCreated, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        appendFilter(filter, sql, args);
+        if (afterCreated != null) {
+            sql.append(" AND (created, id) < (?, ?)");
+            args.add(afterCreated);
+            args.add(afterId);
+        }
+        sql.append(" ORDER BY created DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Hands the matching shipments, in id order, to the extractor as an open cursor.
+     * The PostgreSQL driver only honours the fetch size inside a transaction; without
+     * one it would buffer the whole result.
+     */
+    @Transactional(readOnly = true)
+    public <T> T streamExport(ShipmentFilter filter, int fetchSize, ResultSetExtractor<T> extractor) {
+        StringBuilder sql = new StringBuilder(EXPORT_SQL);
+        List<Object> args = new ArrayList<>();
+        appendFilter(filter, sql, args);
+        sql.append(" ORDER BY id");
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) statement.setObject(i + 1, args.get(i));
+            return statement;
+        }, extractor);
+    }
+
+    private static void appendFilter(ShipmentFilter filter, StringBuilder sql, List<Object> args) {
+        if (filter.getStatus() != null) {
+            sql.append(" AND status = ?");
+            args.add(filter.getStatus());
+        }
+        if (filter.getVehicleId() != null) {
+            sql.append(" AND vehicle_id = ?");
+            args.add(filter.getVehicleId());
+        }
+        if (filter.getCustomer() != null) {
+            sql.append(" AND customer = ?");
+            args.add(filter.getCustomer());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND created >= ?");
+            args.add(filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND created < ?");
+            args.add(filter.getTo());
+        }
+    }
+}
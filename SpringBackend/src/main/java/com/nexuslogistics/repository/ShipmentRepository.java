@@ -1,6 +1,7 @@
 package com.nexuslogistics.repository;
 
 import com.nexuslogistics.model.Shipment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,6 +9,11 @@ import java.util.List;
 
 @Repository
 public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
+
+    // Dispatch and route planning hand these shipments out whole, assigned vehicle included
+    @EntityGraph(attributePaths = {"assignedVehicle", "assignedVehicle.driver", "assignedVehicle.driver.user"})
     List<Shipment> findByStatus(String status);
+
+    @EntityGraph(attributePaths = {"assignedVehicle", "assignedVehicle.driver", "assignedVehicle.driver.user"})
     List<Shipment> findByAssignedVehicleId(Long vehicleId);
 }
@@ -1,9 +1,22 @@
 package com.nexuslogistics.repository;
 
 import com.nexuslogistics.model.Vehicle;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
+
+    // Vehicles are mapped with their driver's username, so the driver and user are joined in
+    @Override
+    @EntityGraph(attributePaths = {"driver", "driver.user"})
+    List<Vehicle> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"driver", "driver.user"})
+    Optional<Vehicle> findById(Long id);
 }
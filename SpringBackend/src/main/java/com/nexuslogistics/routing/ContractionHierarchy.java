@@ -0,0 +1,706 @@
+package com.nexuslogistics.routing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Contraction hierarchy over a {@link RoadGraph}, minimising travel time.
+ * <p>
+ * Preprocessing contracts nodes from least to most important (edge difference,
+ * contracted neighbours and hierarchy depth) and adds a shortcut wherever a witness search
+ * finds no path at least as short as the one through the contracted node. Queries then
+ * only ever move "up" the hierarchy: a point-to-point query is a bidirectional Dijkstra
+ * that settles a few hundred nodes, and many-to-many matrices use the bucket method, one
+ * upward search per source and per target instead of one search per pair.
+ * <p>
+ * The query graph and node coordinates live in direct buffers outside the Java heap,
+ * in compressed-row form: the edges of node v are entries {@code first[v]} to
+ * {@code first[v + 1] - 1}. Query scratch space is per thread, so queries may run
+ * concurrently.
+ */
+public final class ContractionHierarchy {
+
+    // Witness searches give up after this many nodes; estimating priorities uses the smaller bound
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int ESTIMATE_SETTLE_LIMIT = 50;
+    private static final double SNAP_CELL_DEGREES = 0.01;
+    private static final int SNAP_MAX_RINGS = 50;
+    private static final long SNAP_LNG_CELLS = 36_001;
+
+    /** Travel time and length of a shortest path. */
+    public record PathCost(double seconds, double meters) {
+    }
+
+    private final int nodeCount;
+    private final FloatBuffer lats;
+    private final FloatBuffer lngs;
+    private final Csr up;    // edges v -> w with w above v, stored at v
+    private final Csr down;  // edges w -> v with w above v, stored at v
+    private final int shortcuts;
+
+    // Snapping grid: (cell << 32 | node), sorted
+    private final long[] cells;
+
+    private final ThreadLocal<Search> searches;
+
+    private ContractionHierarchy(int nodeCount, FloatBuffer lats, FloatBuffer lngs, Csr up, Csr down,
+                                 int shortcuts, long[] cells) {
+        this.nodeCount = nodeCount;
+        this.lats = lats;
+        this.lngs = lngs;
+        this.up = up;
+        this.down = down;
+        this.shortcuts = shortcuts;
+        this.cells = cells;
+        this.searches = ThreadLocal.withInitial(() -> new Search(nodeCount));
+    }
+
+    public static ContractionHierarchy build(RoadGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getShortcutCount() {
+        return shortcuts;
+    }
+
+    public double lat(int node) {
+        return lats.get(node);
+    }
+
+    public double lng(int node) {
+        return lngs.get(node);
+    }
+
+    /**
+     * Fastest path between two nodes, or null when {@code target} cannot be reached.
+     */
+    public PathCost route(int source, int target) {
+        Search search = searches.get();
+        Space forward = search.forward;
+        Space backward = search.backward;
+        forward.reset();
+        backward.reset();
+        forward.reach(source, 0, 0);
+        backward.reach(target, 0, 0);
+
+        double best = Double.POSITIVE_INFINITY;
+        double bestMeters = 0;
+        while (!forward.heap.isEmpty() || !backward.heap.isEmpty()) {
+            for (int side = 0; side < 2; side++) {
+                Space space = side == 0 ? forward : backward;
+                Space other = side == 0 ? backward : forward;
+                if (space.heap.isEmpty()) continue;
+                if (space.heap.peekKey() >= best) {
+                    space.heap.clear();
+                    continue;
+                }
+                int u = space.settleNext();
+                if (u < 0) continue;
+                if (other.reached(u)) {
+                    double total = space.dist[u] + other.dist[u];
+                    if (total < best) {
+                        best = total;
+                        bestMeters = space.meters[u] + other.meters[u];
+                    }
+                }
+                if (!space.stalled(u, side == 0 ? down : up)) {
+                    space.relax(u, side == 0 ? up : down);
+                }
+            }
+        }
+        return best == Double.POSITIVE_INFINITY ? null : new PathCost(best, bestMeters);
+    }
+
+    /**
+     * Fastest paths from one node to many, into {@code seconds} and {@code meters}
+     * (infinite where unreachable).
+     */
+    public void oneToMany(int source, int[] targets, double[] seconds, double[] meters) {
+        manyToMany(new int[] { source }, targets, seconds, meters);
+    }
+
+    /**
+     * Fastest paths between every source and every target, row-major by source into
+     * {@code seconds} and {@code meters} (infinite where unreachable). Searches run in
+     * parallel on the common pool.
+     */
+    public void manyToMany(int[] sources, int[] targets, double[] seconds, double[] meters) {
+        int t = targets.length;
+        Arrays.fill(seconds, 0, sources.length * t, Double.POSITIVE_INFINITY);
+        Arrays.fill(meters, 0, sources.length * t, Double.POSITIVE_INFINITY);
+
+        // Backward upward search from every target; what it settles goes into buckets by node
+        int[][] spaceNodes = new int[t][];
+        double[][] spaceSeconds = new double[t][];
+        double[][] spaceMeters = new double[t][];
+        IntStream.range(0, t).parallel().forEach(j -> {
+            Space space = searches.get().backward;
+            int settled = space.exhaust(targets[j], down, up);
+            spaceNodes[j] = Arrays.copyOf(space.settled, settled);
+            spaceSeconds[j] = new double[settled];
+            spaceMeters[j] = new double[settled];
+            for (int k = 0; k < settled; k++) {
+                spaceSeconds[j][k] = space.dist[space.settled[k]];
+                spaceMeters[j][k] = space.meters[space.settled[k]];
+            }
+        });
+
+        int[] bucketFirst = new int[nodeCount + 1];
+        for (int[] nodes : spaceNodes) {
+            for (int node : nodes) bucketFirst[node + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) bucketFirst[v + 1] += bucketFirst[v];
+        int total = bucketFirst[nodeCount];
+        int[] bucketTarget = new int[total];
+        double[] bucketSeconds = new double[total];
+        double[] bucketMeters = new double[total];
+        int[] fill = Arrays.copyOf(bucketFirst, nodeCount);
+        for (int j = 0; j < t; j++) {
+            for (int k = 0; k < spaceNodes[j].length; k++) {
+                int slot = fill[spaceNodes[j][k]]++;
+                bucketTarget[slot] = j;
+                bucketSeconds[slot] = spaceSeconds[j][k];
+                bucketMeters[slot] = spaceMeters[j][k];
+            }
+        }
+
+        // Forward upward search from every source, meeting the targets in the buckets
+        IntStream.range(0, sources.length).parallel().forEach(i -> {
+            Space space = searches.get().forward;
+            int settled = space.exhaust(sources[i], up, down);
+            int row = i * t;
+            for (int k = 0; k < settled; k++) {
+                int u = space.settled[k];
+                double d = space.dist[u];
+                for (int b = bucketFirst[u]; b < bucketFirst[u + 1]; b++) {
+                    int cell = row + bucketTarget[b];
+                    double candidate = d + bucketSeconds[b];
+                    if (candidate < seconds[cell]) {
+                        seconds[cell] = candidate;
+                        meters[cell] = space.meters[u] + bucketMeters[b];
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Closest node to a position, or -1 when none lies within about half a degree.
+     */
+    public int nearestNode(double lat, double lng) {
+        long cy = (long) Math.floor(lat / SNAP_CELL_DEGREES);
+        long cx = (long) Math.floor(lng / SNAP_CELL_DEGREES);
+        double cos = Math.cos(Math.toRadians(lat));
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        int stopAfter = SNAP_MAX_RINGS;
+        for (int ring = 0; ring <= stopAfter; ring++) {
+            for (long dy = -ring; dy <= ring; dy++) {
+                for (long dx = -ring; dx <= ring; dx++) {
+                    if (Math.abs(dy) != ring && Math.abs(dx) != ring) continue;
+                    long key = cellKey(cy + dy, cx + dx);
+                    if (key < 0) continue;
+                    int k = lowerBound(cells, key << 32);
+                    for (; k < cells.length && cells[k] >>> 32 == key; k++) {
+                        int node = (int) cells[k];
+                        double y = lats.get(node) - lat;
+                        double x = (lngs.get(node) - lng) * cos;
+                        double distance = x * x + y * y;
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = node;
+                        }
+                    }
+                }
+            }
+            // A closer node can still sit one ring further out, near the cell edge
+            if (best >= 0 && stopAfter == SNAP_MAX_RINGS) stopAfter = ring + 1;
+        }
+        return best;
+    }
+
+    private static long cellKey(long latCell, long lngCell) {
+        long y = latCell + 9_000;
+        long x = lngCell + 18_000;
+        if (y < 0 || x < 0 || x >= SNAP_LNG_CELLS) return -1;
+        return y * SNAP_LNG_CELLS + x;
+    }
+
+    private static int lowerBound(long[] sorted, long value) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // ---- query graph ----
+
+    private static final class Csr {
+        final IntBuffer first;
+        final IntBuffer head;
+        final FloatBuffer seconds;
+        final FloatBuffer meters;
+
+        Csr(int nodeCount, int count, int[] tails, int[] heads, float[] edgeSeconds, float[] edgeMeters) {
+            first = ints(nodeCount + 1);
+            head = ints(count);
+            seconds = floats(count);
+            meters = floats(count);
+            int[] offsets = new int[nodeCount + 1];
+            for (int e = 0; e < count; e++) offsets[tails[e] + 1]++;
+            for (int v = 0; v < nodeCount; v++) offsets[v + 1] += offsets[v];
+            for (int v = 0; v <= nodeCount; v++) first.put(v, offsets[v]);
+            for (int e = 0; e < count; e++) {
+                int slot = offsets[tails[e]]++;
+                head.put(slot, heads[e]);
+                seconds.put(slot, edgeSeconds[e]);
+                meters.put(slot, edgeMeters[e]);
+            }
+        }
+    }
+
+    private static IntBuffer ints(int count) {
+        return ByteBuffer.allocateDirect(Math.max(1, count) * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static FloatBuffer floats(int count) {
+        return ByteBuffer.allocateDirect(Math.max(1, count) * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    // ---- search state ----
+
+    private static final class Search {
+        final Space forward;
+        final Space backward;
+
+        Search(int nodeCount) {
+            forward = new Space(nodeCount);
+            backward = new Space(nodeCount);
+        }
+    }
+
+    /** Dijkstra state reset in O(1) by bumping a round number instead of clearing arrays. */
+    private static final class Space {
+        final double[] dist;
+        final double[] meters;
+        final int[] stamp;
+        int[] settled = new int[256];
+        final Heap heap = new Heap();
+        int round;
+
+        Space(int nodeCount) {
+            dist = new double[nodeCount];
+            meters = new double[nodeCount];
+            stamp = new int[nodeCount];
+        }
+
+        void reset() {
+            round++;
+            heap.clear();
+        }
+
+        boolean reached(int v) {
+            return stamp[v] == round;
+        }
+
+        void reach(int v, double d, double m) {
+            if (stamp[v] != round || d < dist[v]) {
+                stamp[v] = round;
+                dist[v] = d;
+                meters[v] = m;
+                heap.push(d, v);
+            }
+        }
+
+        // Pops the next node, skipping entries superseded by a shorter distance
+        int settleNext() {
+            double key = heap.peekKey();
+            int v = heap.pop();
+            return key > dist[v] ? -1 : v;
+        }
+
+        void relax(int u, Csr graph) {
+            double d = dist[u];
+            double m = meters[u];
+            for (int e = graph.first.get(u), end = graph.first.get(u + 1); e < end; e++) {
+                reach(graph.head.get(e), d + graph.seconds.get(e), m + graph.meters.get(e));
+            }
+        }
+
+        /*
+         * Stall-on-demand: u is not worth expanding when a higher node already reached
+         * offers a shorter way into it, since then u's distance is not a shortest one.
+         * {@code reverse} holds the edges between u and higher nodes in the other direction.
+         */
+        boolean stalled(int u, Csr reverse) {
+            double d = dist[u];
+            for (int e = reverse.first.get(u), end = reverse.first.get(u + 1); e < end; e++) {
+                int w = reverse.head.get(e);
+                if (stamp[w] == round && dist[w] + reverse.seconds.get(e) < d) return true;
+            }
+            return false;
+        }
+
+        // Full upward search; returns how many unstalled nodes were settled into {@link #settled}
+        int exhaust(int source, Csr graph, Csr reverse) {
+            reset();
+            reach(source, 0, 0);
+            int count = 0;
+            while (!heap.isEmpty()) {
+                int u = settleNext();
+                if (u < 0 || stalled(u, reverse)) continue;
+                if (count == settled.length) settled = Arrays.copyOf(settled, count * 2);
+                settled[count++] = u;
+                relax(u, graph);
+            }
+            return count;
+        }
+    }
+
+    /** Binary min-heap of (key, node) that allows duplicate nodes. */
+    private static final class Heap {
+        double[] keys = new double[64];
+        int[] nodes = new int[64];
+        int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        double peekKey() {
+            return keys[0];
+        }
+
+        void push(double key, int node) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                keys[i] = keys[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            if (size > 0) {
+                double key = keys[size];
+                int node = nodes[size];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) break;
+                    if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                    if (keys[child] >= key) break;
+                    keys[i] = keys[child];
+                    nodes[i] = nodes[child];
+                    i = child;
+                }
+                keys[i] = key;
+                nodes[i] = node;
+            }
+            return top;
+        }
+    }
+
+    // ---- preprocessing ----
+
+    /** Adjacency lists of the graph still being contracted, on the heap. */
+    private static final class Adjacency {
+        final int[][] node;
+        final float[][] seconds;
+        final float[][] meters;
+        final int[] size;
+
+        Adjacency(int nodeCount) {
+            node = new int[nodeCount][];
+            seconds = new float[nodeCount][];
+            meters = new float[nodeCount][];
+            size = new int[nodeCount];
+            for (int v = 0; v < nodeCount; v++) {
+                node[v] = new int[4];
+                seconds[v] = new float[4];
+                meters[v] = new float[4];
+            }
+        }
+
+        // Adds v -> w, or shortens it if already present; parallel edges are collapsed
+        void put(int v, int w, float s, float m) {
+            for (int i = 0; i < size[v]; i++) {
+                if (node[v][i] == w) {
+                    if (s < seconds[v][i]) {
+                        seconds[v][i] = s;
+                        meters[v][i] = m;
+                    }
+                    return;
+                }
+            }
+            if (size[v] == node[v].length) {
+                node[v] = Arrays.copyOf(node[v], size[v] * 2);
+                seconds[v] = Arrays.copyOf(seconds[v], size[v] * 2);
+                meters[v] = Arrays.copyOf(meters[v], size[v] * 2);
+            }
+            node[v][size[v]] = w;
+            seconds[v][size[v]] = s;
+            meters[v][size[v]] = m;
+            size[v]++;
+        }
+
+        void remove(int v, int w) {
+            for (int i = 0; i < size[v]; i++) {
+                if (node[v][i] == w) {
+                    int last = --size[v];
+                    node[v][i] = node[v][last];
+                    seconds[v][i] = seconds[v][last];
+                    meters[v][i] = meters[v][last];
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Builder {
+        final RoadGraph graph;
+        final int n;
+        final Adjacency out;
+        final Adjacency in;
+        final boolean[] contracted;
+        final int[] contractedNeighbours;
+        final int[] depth;
+        final double[] priorities;
+
+        // Witness search scratch
+        final float[] witnessDist;
+        final int[] witnessStamp;
+        final Heap witnessHeap = new Heap();
+        int witnessRound;
+
+        // Query graph edges collected as nodes are contracted
+        int upCount;
+        int[] upTail = new int[1024];
+        int[] upHead = new int[1024];
+        float[] upSeconds = new float[1024];
+        float[] upMeters = new float[1024];
+        int downCount;
+        int[] downTail = new int[1024];
+        int[] downHead = new int[1024];
+        float[] downSeconds = new float[1024];
+        float[] downMeters = new float[1024];
+        int shortcuts;
+
+        Builder(RoadGraph graph) {
+            this.graph = graph;
+            n = graph.getNodeCount();
+            out = new Adjacency(n);
+            in = new Adjacency(n);
+            contracted = new boolean[n];
+            contractedNeighbours = new int[n];
+            depth = new int[n];
+            priorities = new double[n];
+            witnessDist = new float[n];
+            witnessStamp = new int[n];
+            for (int e = 0; e < graph.getEdgeCount(); e++) {
+                out.put(graph.from(e), graph.to(e), graph.seconds(e), graph.meters(e));
+                in.put(graph.to(e), graph.from(e), graph.seconds(e), graph.meters(e));
+            }
+        }
+
+        ContractionHierarchy build() {
+            Heap queue = new Heap();
+            for (int v = 0; v < n; v++) {
+                priorities[v] = priority(v);
+                queue.push(priorities[v], v);
+            }
+            int[] neighbours = new int[16];
+            while (!queue.isEmpty()) {
+                double key = queue.peekKey();
+                int v = queue.pop();
+                if (contracted[v] || key != priorities[v]) continue; // superseded entry
+                // Lazy update: still the least important node once its priority is recomputed?
+                double priority = priority(v);
+                if (!queue.isEmpty() && priority > queue.peekKey()) {
+                    priorities[v] = priority;
+                    queue.push(priority, v);
+                    continue;
+                }
+
+                int count = 0;
+                for (int i = 0; i < out.size[v] + in.size[v]; i++) {
+                    if (count == neighbours.length) neighbours = Arrays.copyOf(neighbours, count * 2);
+                    neighbours[count++] = i < out.size[v] ? out.node[v][i] : in.node[v][i - out.size[v]];
+                }
+                contract(v);
+                // Neighbours gained shortcuts and a contracted neighbour, refresh them now
+                for (int i = 0; i < count; i++) {
+                    int w = neighbours[i];
+                    depth[w] = Math.max(depth[w], depth[v] + 1);
+                    double updated = priority(w);
+                    if (updated != priorities[w]) {
+                        priorities[w] = updated;
+                        queue.push(updated, w);
+                    }
+                }
+            }
+
+            FloatBuffer lats = floats(n);
+            FloatBuffer lngs = floats(n);
+            long[] cells = new long[n];
+            for (int v = 0; v < n; v++) {
+                lats.put(v, (float) graph.lat(v));
+                lngs.put(v, (float) graph.lng(v));
+                long key = cellKey((long) Math.floor(graph.lat(v) / SNAP_CELL_DEGREES),
+                        (long) Math.floor(graph.lng(v) / SNAP_CELL_DEGREES));
+                cells[v] = Math.max(0, key) << 32 | v;
+            }
+            Arrays.sort(cells);
+
+            return new ContractionHierarchy(n, lats, lngs,
+                    new Csr(n, upCount, upTail, upHead, upSeconds, upMeters),
+                    new Csr(n, downCount, downTail, downHead, downSeconds, downMeters),
+                    shortcuts, cells);
+        }
+
+        double priority(int v) {
+            int added = shortcutsFor(v, false);
+            // Edge difference keeps the graph sparse; neighbours and depth spread contraction evenly
+            return 2.0 * (added - (out.size[v] + in.size[v])) + contractedNeighbours[v] + depth[v];
+        }
+
+        void contract(int v) {
+            // Every remaining neighbour ranks above v
+            for (int i = 0; i < out.size[v]; i++) {
+                addUp(v, out.node[v][i], out.seconds[v][i], out.meters[v][i]);
+            }
+            for (int i = 0; i < in.size[v]; i++) {
+                addDown(v, in.node[v][i], in.seconds[v][i], in.meters[v][i]);
+            }
+            shortcuts += shortcutsFor(v, true);
+
+            contracted[v] = true;
+            for (int i = 0; i < out.size[v]; i++) {
+                int w = out.node[v][i];
+                in.remove(w, v);
+                contractedNeighbours[w]++;
+            }
+            for (int i = 0; i < in.size[v]; i++) {
+                int u = in.node[v][i];
+                out.remove(u, v);
+                contractedNeighbours[u]++;
+            }
+            out.size[v] = 0;
+            in.size[v] = 0;
+        }
+
+        // Counts, and unless simulating adds, the shortcuts u -> w needed to bypass v
+        int shortcutsFor(int v, boolean add) {
+            int count = 0;
+            for (int a = 0; a < in.size[v]; a++) {
+                int u = in.node[v][a];
+                float toV = in.seconds[v][a];
+                float limit = 0;
+                boolean bypassed = false;
+                for (int b = 0; b < out.size[v]; b++) {
+                    if (out.node[v][b] == u) continue;
+                    limit = Math.max(limit, toV + out.seconds[v][b]);
+                    bypassed = true;
+                }
+                // Not limit == 0: a path of zero-second edges still needs its shortcut
+                if (!bypassed) continue;
+
+                witnessSearch(u, v, limit, add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+                for (int b = 0; b < out.size[v]; b++) {
+                    int w = out.node[v][b];
+                    if (w == u) continue;
+                    float via = toV + out.seconds[v][b];
+                    if (witnessStamp[w] == witnessRound && witnessDist[w] <= via) continue;
+                    count++;
+                    if (add) {
+                        float length = in.meters[v][a] + out.meters[v][b];
+                        out.put(u, w, via, length);
+                        in.put(w, u, via, length);
+                    }
+                }
+            }
+            return count;
+        }
+
+        // Bounded Dijkstra from u over the remaining graph, not passing through v
+        void witnessSearch(int u, int v, float limit, int settleLimit) {
+            witnessRound++;
+            witnessHeap.clear();
+            witnessStamp[u] = witnessRound;
+            witnessDist[u] = 0;
+            witnessHeap.push(0, u);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && settled < settleLimit) {
+                double key = witnessHeap.peekKey();
+                int x = witnessHeap.pop();
+                if (key > witnessDist[x]) continue;
+                if (key > limit) return;
+                settled++;
+                for (int i = 0; i < out.size[x]; i++) {
+                    int y = out.node[x][i];
+                    if (y == v) continue;
+                    float d = (float) key + out.seconds[x][i];
+                    if (d > limit) continue; // could not witness anything
+                    if (witnessStamp[y] != witnessRound || d < witnessDist[y]) {
+                        witnessStamp[y] = witnessRound;
+                        witnessDist[y] = d;
+                        witnessHeap.push(d, y);
+                    }
+                }
+            }
+        }
+
+        void addUp(int tail, int head, float s, float m) {
+            if (upCount == upTail.length) {
+                int size = upCount * 2;
+                upTail = Arrays.copyOf(upTail, size);
+                upHead = Arrays.copyOf(upHead, size);
+                upSeconds = Arrays.copyOf(upSeconds, size);
+                upMeters = Arrays.copyOf(upMeters, size);
+            }
+            upTail[upCount] = tail;
+            upHead[upCount] = head;
+            upSeconds[upCount] = s;
+            upMeters[upCount++] = m;
+        }
+
+        void addDown(int tail, int head, float s, float m) {
+            if (downCount == downTail.length) {
+                int size = downCount * 2;
+                downTail = Arrays.copyOf(downTail, size);
+                downHead = Arrays.copyOf(downHead, size);
+                downSeconds = Arrays.copyOf(downSeconds, size);
+                downMeters = Arrays.copyOf(downMeters, size);
+            }
+            downTail[downCount] = tail;
+            downHead[downCount] = head;
+            downSeconds[downCount] = s;
+            downMeters[downCount++] = m;
+        }
+    }
+}
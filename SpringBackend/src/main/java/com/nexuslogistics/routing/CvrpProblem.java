@@ -0,0 +1,42 @@
+package com.nexuslogistics.routing;
+
+import lombok.Getter;
+
+/**
+ * Open capacitated vehicle routing problem: every vehicle starts from its own
+ * position, serves at most one route and does not return. Coordinates in degrees.
+ */
+@Getter
+public class CvrpProblem {
+
+    private final double[] stopLats;
+    private final double[] stopLngs;
+    private final double[] demands;
+    private final double[] vehicleLats;
+    private final double[] vehicleLngs;
+    private final double[] capacities;
+
+    public CvrpProblem(double[] stopLats, double[] stopLngs, double[] demands,
+                       double[] vehicleLats, double[] vehicleLngs, double[] capacities) {
+        if (stopLats.length != stopLngs.length || stopLats.length != demands.length) {
+            throw new IllegalArgumentException("Stop arrays must have the same length");
+        }
+        if (vehicleLats.length != vehicleLngs.length || vehicleLats.length != capacities.length) {
+            throw new IllegalArgumentException("Vehicle arrays must have the same length");
+        }
+        this.stopLats = stopLats;
+        this.stopLngs = stopLngs;
+        this.demands = demands;
+        this.vehicleLats = vehicleLats;
+        this.vehicleLngs = vehicleLngs;
+        this.capacities = capacities;
+    }
+
+    public int stopCount() {
+        return stopLats.length;
+    }
+
+    public int vehicleCount() {
+        return vehicleLats.length;
+    }
+}
@@ -0,0 +1,13 @@
+package com.nexuslogistics.routing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CvrpSolution {
+    private final int[][] routes; // stop indices in visiting order, per vehicle index; empty when unused
+    private final double[] routeKm;
+    private final int[] unassigned; // stops no vehicle could take
+    private final double totalKm;
+}
@@ -0,0 +1,611 @@
+package com.nexuslogistics.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Fleet-wide open CVRP heuristic.
+ * <ol>
+ *   <li>Clarke-Wright savings over each stop's nearest neighbours builds capacity-bounded
+ *       chains, using the distance to the closest vehicle as the depot leg.</li>
+ *   <li>Chains are matched to vehicles, largest load first, each to the free vehicle that
+ *       fits and is closest to either end. Chains no remaining vehicle can carry are split.</li>
+ *   <li>Local search within the time budget: 2-opt / Or-opt inside every route in parallel,
+ *       then relocating stops into neighbouring routes with spare capacity, then another
+ *       parallel intra-route pass.</li>
+ * </ol>
+ * Stops that fit no vehicle are reported as unassigned rather than dropped.
+ * Construction and relocation rank neighbour pairs by great-circle km, so memory and
+ * time grow with {@code stops * neighbours} instead of {@code stops²}. The intra-route
+ * passes and the reported km use the {@link TravelTimeProvider}'s matrix of each route.
+ */
+public class CvrpSolver {
+
+    private static final double EARTH_RADIUS_KM = 6371;
+    private static final double EPSILON = 1e-9;
+
+    private final int neighbours;
+    private final ForkJoinPool pool;
+    private final TravelTimeProvider provider;
+
+    public CvrpSolver(int neighbours, ForkJoinPool pool) {
+        this(neighbours, pool, new HaversineTravelTimeProvider());
+    }
+
+    public CvrpSolver(int neighbours, ForkJoinPool pool, TravelTimeProvider provider) {
+        this.neighbours = neighbours;
+        this.pool = pool;
+        this.provider = provider;
+    }
+
+    public CvrpSolution solve(CvrpProblem problem, long budgetMs) {
+        return solve(problem, budgetMs, SolverListener.none());
+    }
+
+    /**
+     * Reports the total km after construction and after each improvement phase; the
+     * listener can stop the search at those points.
+     */
+    public CvrpSolution solve(CvrpProblem problem, long budgetMs, SolverListener<CvrpSolution> listener) {
+        long start = System.nanoTime();
+        long deadline = start + budgetMs * 1_000_000;
+        Instance in = new Instance(problem);
+        int n = in.n;
+        if (n == 0 || in.m == 0) {
+            return new CvrpSolution(new int[in.m][0], new double[in.m], IntStream.range(0, n).toArray(), 0);
+        }
+
+        int[][] knn = nearestNeighbours(in);
+        List<int[]> chains = savings(in, knn);
+        Plan plan = assign(in, chains);
+        plan.insertOrphans(knn);
+        if (!listener.onSolution("construction", plan.totalKm(), plan::toSolution)) return plan.toSolution();
+
+        long now = System.nanoTime();
+        improveRoutes(in, plan, now + (deadline - now) / 3);
+        if (!listener.onSolution("intra-route", plan.totalKm(), plan::toSolution)) return plan.toSolution();
+        now = System.nanoTime();
+        plan.relocate(knn, now + (deadline - now) / 2);
+        if (!listener.onSolution("relocate", plan.totalKm(), plan::toSolution)) return plan.toSolution();
+        improveRoutes(in, plan, deadline);
+
+        CvrpSolution solution = plan.toSolution();
+        listener.onSolution("final", solution.getTotalKm(), () -> solution);
+        return solution;
+    }
+
+    // ---- construction ----
+
+    private int[][] nearestNeighbours(Instance in) {
+        int n = in.n;
+        int k = Math.min(neighbours, n - 1);
+        int[][] knn = new int[n][];
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+            // Bounded max-heap on the cheap flat-earth distance; exact distances only matter for costs
+            int[] heapIdx = new int[k];
+            double[] heapDist = new double[k];
+            int size = 0;
+            for (int j = 0; j < n; j++) {
+                if (j == i) continue;
+                double d = in.flatDistanceSq(i, j);
+                if (size < k) {
+                    heapIdx[size] = j;
+                    heapDist[size] = d;
+                    siftUp(heapIdx, heapDist, size++);
+                } else if (d < heapDist[0]) {
+                    heapIdx[0] = j;
+                    heapDist[0] = d;
+                    siftDown(heapIdx, heapDist, size);
+                }
+            }
+            knn[i] = Arrays.copyOf(heapIdx, size);
+        })).join();
+        return knn;
+    }
+
+    private List<int[]> savings(Instance in, int[][] knn) {
+        int n = in.n;
+
+        // Depot leg of every stop: the distance to its closest vehicle
+        double[] depotLeg = new double[n];
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+            double best = Double.MAX_VALUE;
+            for (int v = 0; v < in.m; v++) {
+                best = Math.min(best, in.distance(i, in.vehicleNode(v)));
+            }
+            depotLeg[i] = best;
+        })).join();
+
+        int pairs = 0;
+        for (int[] list : knn) pairs += list.length;
+        int[] from = new int[pairs];
+        int[] to = new int[pairs];
+        double[] saving = new double[pairs];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j : knn[i]) {
+                // Joining i and j drops the longer of the two depot legs
+                double s = Math.max(depotLeg[i], depotLeg[j]) - in.distance(i, j);
+                if (s > 0) {
+                    from[count] = i;
+                    to[count] = j;
+                    saving[count++] = s;
+                }
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(saving[b], saving[a]));
+
+        double capLimit = 0;
+        for (double capacity : in.capacities) capLimit = Math.max(capLimit, capacity);
+
+        Chains chains = new Chains(n, in.demands);
+        for (Integer index : order) {
+            chains.tryJoin(from[index], to[index], capLimit);
+        }
+        return chains.collect();
+    }
+
+    private Plan assign(Instance in, List<int[]> chains) {
+        Plan plan = new Plan(in);
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Double.compare(in.load(b), in.load(a)));
+        queue.addAll(chains);
+        boolean[] used = new boolean[in.m];
+        int free = in.m;
+
+        while (!queue.isEmpty()) {
+            int[] chain = queue.poll();
+            double load = in.load(chain);
+            if (free == 0) {
+                plan.orphans(chain);
+                continue;
+            }
+
+            int best = -1;
+            boolean reversed = false;
+            double bestDistance = Double.MAX_VALUE;
+            double largestFree = 0;
+            for (int v = 0; v < in.m; v++) {
+                if (used[v]) continue;
+                largestFree = Math.max(largestFree, in.capacities[v]);
+                if (in.capacities[v] < load) continue;
+                double toHead = in.distance(in.vehicleNode(v), chain[0]);
+                double toTail = in.distance(in.vehicleNode(v), chain[chain.length - 1]);
+                if (Math.min(toHead, toTail) < bestDistance) {
+                    bestDistance = Math.min(toHead, toTail);
+                    best = v;
+                    reversed = toTail < toHead;
+                }
+            }
+
+            if (best >= 0) {
+                used[best] = true;
+                free--;
+                if (reversed) reverse(chain);
+                plan.setRoute(best, chain);
+            } else if (chain.length > 1) {
+                // Too heavy for every free vehicle: cut into pieces the largest one can carry
+                split(in, chain, largestFree, queue, plan);
+            } else {
+                plan.orphans(chain);
+            }
+        }
+        return plan;
+    }
+
+    private static void split(Instance in, int[] chain, double capacity, PriorityQueue<int[]> queue, Plan plan) {
+        int from = 0;
+        double load = 0;
+        for (int i = 0; i < chain.length; i++) {
+            double demand = in.demands[chain[i]];
+            if (demand > capacity) {
+                if (i > from) queue.add(Arrays.copyOfRange(chain, from, i));
+                plan.orphans(new int[] { chain[i] });
+                from = i + 1;
+                load = 0;
+                continue;
+            }
+            if (load + demand > capacity) {
+                queue.add(Arrays.copyOfRange(chain, from, i));
+                from = i;
+                load = 0;
+            }
+            load += demand;
+        }
+        if (from < chain.length) queue.add(Arrays.copyOfRange(chain, from, chain.length));
+    }
+
+    // ---- improvement ----
+
+    private void improveRoutes(Instance in, Plan plan, long deadline) {
+        pool.submit(() -> IntStream.range(0, in.m).parallel().forEach(v -> {
+            int size = plan.sizes[v];
+            if (size < 3 || System.nanoTime() >= deadline) return;
+            int[] stops = plan.routes[v];
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) order[i] = i + 1;
+            int[] improved = LocalSearch.improve(routeMatrix(in, v, stops, size), order, deadline);
+
+            int[] reordered = new int[size];
+            for (int i = 0; i < size; i++) reordered[i] = stops[improved[i] - 1];
+            plan.setRoute(v, reordered);
+        })).join();
+    }
+
+    // Provider matrix over vehicle v (node 0) and the first size stops of its route (nodes 1..size)
+    private DistanceMatrix routeMatrix(Instance in, int v, int[] stops, int size) {
+        double[] lats = new double[size + 1];
+        double[] lngs = new double[size + 1];
+        lats[0] = in.degLat[in.vehicleNode(v)];
+        lngs[0] = in.degLng[in.vehicleNode(v)];
+        for (int i = 0; i < size; i++) {
+            lats[i + 1] = in.degLat[stops[i]];
+            lngs[i + 1] = in.degLng[stops[i]];
+        }
+        return provider.matrix(lats, lngs);
+    }
+
+    // ---- data ----
+
+    /** Stops are nodes 0..n-1, vehicles n..n+m-1; coordinates kept in radians with cached cosines. */
+    private static final class Instance {
+        final int n;
+        final int m;
+        final double[] degLat;
+        final double[] degLng;
+        final double[] lat;
+        final double[] lng;
+        final double[] cos;
+        final double[] demands;
+        final double[] capacities;
+
+        Instance(CvrpProblem p) {
+            n = p.stopCount();
+            m = p.vehicleCount();
+            degLat = new double[n + m];
+            degLng = new double[n + m];
+            System.arraycopy(p.getStopLats(), 0, degLat, 0, n);
+            System.arraycopy(p.getStopLngs(), 0, degLng, 0, n);
+            System.arraycopy(p.getVehicleLats(), 0, degLat, n, m);
+            System.arraycopy(p.getVehicleLngs(), 0, degLng, n, m);
+            lat = new double[n + m];
+            lng = new double[n + m];
+            cos = new double[n + m];
+            for (int i = 0; i < n + m; i++) {
+                lat[i] = Math.toRadians(degLat[i]);
+                lng[i] = Math.toRadians(degLng[i]);
+                cos[i] = Math.cos(lat[i]);
+            }
+            demands = p.getDemands();
+            capacities = p.getCapacities();
+        }
+
+        int vehicleNode(int v) {
+            return n + v;
+        }
+
+        double distance(int a, int b) {
+            double sinLat = Math.sin((lat[b] - lat[a]) / 2);
+            double sinLng = Math.sin((lng[b] - lng[a]) / 2);
+            double h = sinLat * sinLat + cos[a] * cos[b] * sinLng * sinLng;
+            return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1, h)));
+        }
+
+        double flatDistanceSq(int a, int b) {
+            double dy = lat[b] - lat[a];
+            double dx = (lng[b] - lng[a]) * cos[a];
+            return dx * dx + dy * dy;
+        }
+
+        double load(int[] stops) {
+            double load = 0;
+            for (int stop : stops) load += demands[stop];
+            return load;
+        }
+    }
+
+    /** Doubly linked chains of stops merged by the savings pass. */
+    private static final class Chains {
+        final int[] next;
+        final int[] prev;
+        final int[] chainOf;
+        final int[] head;
+        final int[] tail;
+        final int[] size;
+        final double[] load;
+
+        Chains(int n, double[] demands) {
+            next = new int[n];
+            prev = new int[n];
+            chainOf = new int[n];
+            head = new int[n];
+            tail = new int[n];
+            size = new int[n];
+            load = new double[n];
+            Arrays.fill(next, -1);
+            Arrays.fill(prev, -1);
+            for (int i = 0; i < n; i++) {
+                chainOf[i] = i;
+                head[i] = i;
+                tail[i] = i;
+                size[i] = 1;
+                load[i] = demands[i];
+            }
+        }
+
+        void tryJoin(int i, int j, double capLimit) {
+            int a = chainOf[i];
+            int b = chainOf[j];
+            if (a == b) return;
+            if (prev[i] != -1 && next[i] != -1) return; // interior stop
+            if (prev[j] != -1 && next[j] != -1) return;
+            if (load[a] + load[b] > capLimit) return;
+
+            // Orient so that i ends chain a and j starts chain b, reversing the shorter chain if needed
+            if (!(tail[a] == i && head[b] == j) && !(tail[b] == j && head[a] == i)) {
+                // Both heads or both tails
+                if (size[a] <= size[b]) reverse(a); else reverse(b);
+            }
+            if (tail[a] != i || head[b] != j) {
+                // j ends b and i starts a: link b -> a instead
+                int t = a; a = b; b = t;
+                t = i; i = j; j = t;
+            }
+
+            next[i] = j;
+            prev[j] = i;
+            int keep = size[a] >= size[b] ? a : b;
+            int drop = keep == a ? b : a;
+            for (int node = head[drop]; node != -1; node = next[node]) {
+                if (chainOf[node] != drop) break;
+                chainOf[node] = keep;
+            }
+            int newHead = head[a];
+            int newTail = tail[b];
+            head[keep] = newHead;
+            tail[keep] = newTail;
+            size[keep] = size[a] + size[b];
+            load[keep] = load[a] + load[b];
+        }
+
+        private void reverse(int chain) {
+            int node = head[chain];
+            while (node != -1) {
+                int following = next[node];
+                next[node] = prev[node];
+                prev[node] = following;
+                node = following;
+            }
+            int t = head[chain];
+            head[chain] = tail[chain];
+            tail[chain] = t;
+        }
+
+        List<int[]> collect() {
+            List<int[]> chains = new ArrayList<>();
+            // A chain keeps the id of one of its own stops, so live chains are exactly those
+            for (int c = 0; c < chainOf.length; c++) {
+                if (chainOf[c] != c) continue;
+                int[] stops = new int[size[c]];
+                int k = 0;
+                for (int node = head[c]; node != -1; node = next[node]) stops[k++] = node;
+                chains.add(stops);
+            }
+            return chains;
+        }
+    }
+
+    /** Routes per vehicle with the position of every stop, for the relocate moves. */
+    private final class Plan {
+        final Instance in;
+        final int[][] routes;
+        final int[] sizes;
+        final double[] loads;
+        final int[] routeOf;
+        final int[] positionOf;
+        final List<Integer> orphans = new ArrayList<>();
+
+        Plan(Instance in) {
+            this.in = in;
+            routes = new int[in.m][];
+            sizes = new int[in.m];
+            loads = new double[in.m];
+            routeOf = new int[in.n];
+            positionOf = new int[in.n];
+            Arrays.fill(routeOf, -1);
+            for (int v = 0; v < in.m; v++) routes[v] = new int[4];
+        }
+
+        void orphans(int[] stops) {
+            for (int stop : stops) orphans.add(stop);
+        }
+
+        void setRoute(int v, int[] stops) {
+            routes[v] = Arrays.copyOf(stops, Math.max(4, stops.length + 4));
+            sizes[v] = stops.length;
+            loads[v] = in.load(stops);
+            for (int i = 0; i < stops.length; i++) {
+                routeOf[stops[i]] = v;
+                positionOf[stops[i]] = i;
+            }
+        }
+
+        int nodeBefore(int v, int position) {
+            return position == 0 ? in.vehicleNode(v) : routes[v][position - 1];
+        }
+
+        // Extra distance of putting stop s at position p of route v
+        double insertionCost(int v, int p, int s) {
+            int before = nodeBefore(v, p);
+            if (p >= sizes[v]) return in.distance(before, s);
+            int after = routes[v][p];
+            return in.distance(before, s) + in.distance(s, after) - in.distance(before, after);
+        }
+
+        double removalGain(int s) {
+            int v = routeOf[s];
+            int p = positionOf[s];
+            int before = nodeBefore(v, p);
+            if (p == sizes[v] - 1) return in.distance(before, s);
+            int after = routes[v][p + 1];
+            return in.distance(before, s) + in.distance(s, after) - in.distance(before, after);
+        }
+
+        void insert(int v, int p, int s) {
+            if (sizes[v] == routes[v].length) routes[v] = Arrays.copyOf(routes[v], sizes[v] * 2);
+            int[] route = routes[v];
+            System.arraycopy(route, p, route, p + 1, sizes[v] - p);
+            route[p] = s;
+            sizes[v]++;
+            loads[v] += in.demands[s];
+            for (int i = p; i < sizes[v]; i++) {
+                routeOf[route[i]] = v;
+                positionOf[route[i]] = i;
+            }
+        }
+
+        void remove(int s) {
+            int v = routeOf[s];
+            int p = positionOf[s];
+            int[] route = routes[v];
+            System.arraycopy(route, p + 1, route, p, sizes[v] - p - 1);
+            sizes[v]--;
+            loads[v] -= in.demands[s];
+            for (int i = p; i < sizes[v]; i++) positionOf[route[i]] = i;
+            routeOf[s] = -1;
+        }
+
+        // Cheapest insertion of leftover stops next to a neighbour in a route with spare capacity
+        void insertOrphans(int[][] knn) {
+            List<Integer> remaining = new ArrayList<>();
+            for (int s : orphans) {
+                int bestRoute = -1;
+                int bestPosition = -1;
+                double bestCost = Double.MAX_VALUE;
+                for (int t : knn[s]) {
+                    int v = routeOf[t];
+                    if (v < 0 || loads[v] + in.demands[s] > in.capacities[v]) continue;
+                    for (int p = positionOf[t]; p <= positionOf[t] + 1; p++) {
+                        double cost = insertionCost(v, p, s);
+                        if (cost < bestCost) {
+                            bestCost = cost;
+                            bestRoute = v;
+                            bestPosition = p;
+                        }
+                    }
+                }
+                if (bestRoute >= 0) insert(bestRoute, bestPosition, s);
+                else remaining.add(s);
+            }
+            orphans.clear();
+            orphans.addAll(remaining);
+        }
+
+        // Moves single stops next to one of their neighbours in another route while that shortens the plan
+        void relocate(int[][] knn, long deadline) {
+            boolean improved = true;
+            while (improved && System.nanoTime() < deadline) {
+                improved = false;
+                for (int s = 0; s < in.n; s++) {
+                    if ((s & 63) == 0 && System.nanoTime() >= deadline) return;
+                    int from = routeOf[s];
+                    if (from < 0) continue;
+                    double gain = removalGain(s);
+
+                    int bestRoute = -1;
+                    int bestPosition = -1;
+                    double bestDelta = -EPSILON;
+                    for (int t : knn[s]) {
+                        int v = routeOf[t];
+                        if (v < 0 || v == from || loads[v] + in.demands[s] > in.capacities[v]) continue;
+                        for (int p = positionOf[t]; p <= positionOf[t] + 1; p++) {
+                            double delta = insertionCost(v, p, s) - gain;
+                            if (delta < bestDelta) {
+                                bestDelta = delta;
+                                bestRoute = v;
+                                bestPosition = p;
+                            }
+                        }
+                    }
+                    if (bestRoute >= 0) {
+                        remove(s);
+                        insert(bestRoute, bestPosition, s);
+                        improved = true;
+                    }
+                }
+            }
+        }
+
+        double routeKm(int v) {
+            int size = sizes[v];
+            if (size == 0) return 0;
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) order[i] = i + 1;
+            return routeMatrix(in, v, routes[v], size).pathLength(order);
+        }
+
+        double totalKm() {
+            double total = 0;
+            for (int v = 0; v < in.m; v++) total += routeKm(v);
+            return total;
+        }
+
+        CvrpSolution toSolution() {
+            int[][] result = new int[in.m][];
+            double[] km = new double[in.m];
+            double total = 0;
+            for (int v = 0; v < in.m; v++) {
+                result[v] = Arrays.copyOf(routes[v], sizes[v]);
+                km[v] = routeKm(v);
+                total += km[v];
+            }
+            int[] unassigned = orphans.stream().mapToInt(Integer::intValue).sorted().toArray();
+            return new CvrpSolution(result, km, unassigned, total);
+        }
+    }
+
+    private static void reverse(int[] stops) {
+        for (int i = 0, j = stops.length - 1; i < j; i++, j--) {
+            int t = stops[i];
+            stops[i] = stops[j];
+            stops[j] = t;
+        }
+    }
+
+    private static void siftUp(int[] idx, double[] dist, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (dist[parent] >= dist[i]) return;
+            swap(idx, dist, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] idx, double[] dist, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            int right = left + 1;
+            int largest = i;
+            if (left < size && dist[left] > dist[largest]) largest = left;
+            if (right < size && dist[right] > dist[largest]) largest = right;
+            if (largest == i) return;
+            swap(idx, dist, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(int[] idx, double[] dist, int a, int b) {
+        int ti = idx[a];
+        idx[a] = idx[b];
+        idx[b] = ti;
+        double td = dist[a];
+        dist[a] = dist[b];
+        dist[b] = td;
+    }
+}
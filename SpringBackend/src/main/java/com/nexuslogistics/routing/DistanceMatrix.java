@@ -0,0 +1,136 @@
+package com.nexuslogistics.routing;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Dense distance matrix in one row-major {@code double[]}, so solver inner loops do
+ * an array read instead of trigonometry per lookup. Travel times in minutes are
+ * optional; without them callers derive times from an average speed.
+ */
+public class DistanceMatrix {
+
+    private static final double EARTH_RADIUS_KM = 6371;
+    // Below this many points a parallel build costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final int size;
+    private final double[] distances;
+    private final double[] minutes;
+
+    public DistanceMatrix(int size, double[] distances) {
+        this(size, distances, null);
+    }
+
+    public DistanceMatrix(int size, double[] distances, double[] minutes) {
+        if (distances.length != size * size || minutes != null && minutes.length != size * size) {
+            throw new IllegalArgumentException("Expected " + size * size + " distances");
+        }
+        this.size = size;
+        this.distances = distances;
+        this.minutes = minutes;
+    }
+
+    /**
+     * Great-circle distances in km between all pairs of points.
+     */
+    public static DistanceMatrix haversine(double[] lats, double[] lngs) {
+        return haversine(lats, lngs, false);
+    }
+
+    /**
+     * Great-circle distances in km between all pairs of points. Coordinates are converted
+     * to radians and their cosines taken once per point rather than once per pair; with
+     * {@code parallel} large matrices are filled row by row on the common pool.
+     */
+    public static DistanceMatrix haversine(double[] lats, double[] lngs, boolean parallel) {
+        int n = lats.length;
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        double[] cos = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = Math.toRadians(lats[i]);
+            lng[i] = Math.toRadians(lngs[i]);
+            cos[i] = Math.cos(lat[i]);
+        }
+
+        double[] d = new double[n * n];
+        IntConsumer row = i -> {
+            // Upper triangle only, mirrored below the diagonal
+            for (int j = i + 1; j < n; j++) {
+                double sinLat = Math.sin((lat[j] - lat[i]) / 2);
+                double sinLng = Math.sin((lng[j] - lng[i]) / 2);
+                double h = sinLat * sinLat + cos[i] * cos[j] * sinLng * sinLng;
+                double km = 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1, h)));
+                d[i * n + j] = km;
+                d[j * n + i] = km;
+            }
+        };
+        if (parallel && n >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, n).parallel().forEach(row);
+        } else {
+            for (int i = 0; i < n; i++) row.accept(i);
+        }
+        return new DistanceMatrix(n, d);
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * This matrix with a node added in front, node i becoming node i + 1. The arrays hold
+     * the legs from the new node to node i and back; the minutes are ignored when this
+     * matrix has none.
+     */
+    public DistanceMatrix withOrigin(double[] fromKm, double[] toKm, double[] fromMinutes, double[] toMinutes) {
+        int n = size + 1;
+        double[] d = new double[n * n];
+        double[] m = minutes != null ? new double[n * n] : null;
+        for (int i = 0; i < size; i++) {
+            d[i + 1] = fromKm[i];
+            d[(i + 1) * n] = toKm[i];
+            System.arraycopy(distances, i * size, d, (i + 1) * n + 1, size);
+            if (m != null) {
+                m[i + 1] = fromMinutes[i];
+                m[(i + 1) * n] = toMinutes[i];
+                System.arraycopy(minutes, i * size, m, (i + 1) * n + 1, size);
+            }
+        }
+        return new DistanceMatrix(n, d, m);
+    }
+
+    public double get(int from, int to) {
+        return distances[from * size + to];
+    }
+
+    public boolean hasMinutes() {
+        return minutes != null;
+    }
+
+    public double minutes(int from, int to) {
+        return minutes[from * size + to];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Length of the open path starting at node 0 and visiting {@code stops} in order.
+     */
+    public double pathLength(int[] stops) {
+        double length = 0;
+        int previous = 0;
+        for (int stop : stops) {
+            length += distances[previous * size + stop];
+            previous = stop;
+        }
+        return length;
+    }
+}
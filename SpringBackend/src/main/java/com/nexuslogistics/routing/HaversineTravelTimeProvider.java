@@ -0,0 +1,29 @@
+package com.nexuslogistics.routing;
+
+/**
+ * Straight-line distances; the default when no road data is configured.
+ */
+public class HaversineTravelTimeProvider implements TravelTimeProvider {
+
+    public static final String NAME = "haversine";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public DistanceMatrix matrix(double[] lats, double[] lngs) {
+        return DistanceMatrix.haversine(lats, lngs, true);
+    }
+
+    @Override
+    public DistanceMatrix withOrigin(double originLat, double originLng, double[] lats, double[] lngs,
+                                     DistanceMatrix stops) {
+        double[] km = new double[lats.length];
+        for (int i = 0; i < lats.length; i++) {
+            km[i] = DistanceMatrix.haversineKm(originLat, originLng, lats[i], lngs[i]);
+        }
+        return stops.withOrigin(km, km, null, null);
+    }
+}
@@ -0,0 +1,363 @@
+package com.nexuslogistics.routing;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A fleet plan that is kept up to date by small repairs instead of being solved
+ * again. New stops go to the cheapest feasible position over all routes, removed
+ * stops are spliced out, and only the route that changed is polished with
+ * {@link LocalSearch}. Stops no vehicle has room for are parked and offered again
+ * whenever a route frees capacity.
+ * <p>
+ * Insertion scans every route, so its legs are great-circle km to stay in the
+ * millisecond range; the local search orders the repaired route by the
+ * {@link TravelTimeProvider}'s matrix of that route alone.
+ * <p>
+ * Routes are open, starting from the vehicle's position. Not thread-safe.
+ */
+public class IncrementalPlan {
+
+    private static final double EPSILON = 1e-9;
+
+    private final long repairBudgetNanos;
+    private final TravelTimeProvider provider;
+
+    private final Map<Long, Route> routes = new LinkedHashMap<>();
+    private final Route[] noRoutes = new Route[0];
+    private Route[] routeArray = noRoutes; // iteration order of the insertion scan
+
+    // Stops are addressed by slot; freed slots are reused
+    private final Map<Long, Integer> slotOf = new HashMap<>();
+    private final Set<Integer> unassigned = new LinkedHashSet<>();
+    private long[] ids = new long[64];
+    private double[] lat = new double[64]; // degrees
+    private double[] lng = new double[64];
+    private double[] demand = new double[64];
+    private Route[] routeOf = new Route[64];
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int slotCount;
+
+    /**
+     * @param repairBudgetNanos time allowed for the local search after each repair
+     */
+    public IncrementalPlan(long repairBudgetNanos) {
+        this(repairBudgetNanos, new HaversineTravelTimeProvider());
+    }
+
+    public IncrementalPlan(long repairBudgetNanos, TravelTimeProvider provider) {
+        this.repairBudgetNanos = repairBudgetNanos;
+        this.provider = provider;
+    }
+
+    public void addVehicle(long vehicleId, double latitude, double longitude, double capacity) {
+        Route route = new Route(vehicleId, capacity);
+        route.moveTo(latitude, longitude);
+        routes.put(vehicleId, route);
+        routeArray = routes.values().toArray(noRoutes);
+    }
+
+    /**
+     * Appends a stop to the end of a vehicle's route as is, e.g. when loading a plan
+     * solved elsewhere. Capacity is not checked.
+     */
+    public void append(long vehicleId, long stopId, double latitude, double longitude, double stopDemand) {
+        Route route = routes.get(vehicleId);
+        if (route == null) throw new IllegalArgumentException("Unknown vehicle " + vehicleId);
+        route.insertAt(route.size, newSlot(stopId, latitude, longitude, stopDemand));
+    }
+
+    /** Parks a stop without trying to place it. */
+    public void park(long stopId, double latitude, double longitude, double stopDemand) {
+        unassigned.add(newSlot(stopId, latitude, longitude, stopDemand));
+    }
+
+    /**
+     * Places a new stop at the cheapest position of any route with room for it.
+     *
+     * @return the vehicle it was given to, or null when it was parked as unassigned
+     */
+    public Long insert(long stopId, double latitude, double longitude, double stopDemand) {
+        if (slotOf.containsKey(stopId)) remove(stopId);
+        int slot = newSlot(stopId, latitude, longitude, stopDemand);
+
+        Route best = null;
+        int bestPosition = 0;
+        double bestDelta = Double.POSITIVE_INFINITY;
+        for (Route route : routeArray) {
+            if (route.load + stopDemand > route.capacity + EPSILON) continue;
+            int position = route.cheapestPosition(slot);
+            double delta = route.insertionDelta(slot, position);
+            if (delta < bestDelta) {
+                best = route;
+                bestPosition = position;
+                bestDelta = delta;
+            }
+        }
+        if (best == null) {
+            unassigned.add(slot);
+            return null;
+        }
+        best.insertAt(bestPosition, slot);
+        best.improve();
+        return best.vehicleId;
+    }
+
+    /**
+     * Drops a stop from the plan. The route it was on is tightened and may take
+     * parked stops into the capacity this frees.
+     */
+    public boolean remove(long stopId) {
+        Integer slot = slotOf.remove(stopId);
+        if (slot == null) return false;
+        Route route = routeOf[slot];
+        if (route != null) {
+            route.removeSlot(slot);
+            route.improve();
+            refill(route);
+        } else {
+            unassigned.remove(slot);
+        }
+        release(slot);
+        return true;
+    }
+
+    /**
+     * Marks a stop as served: it leaves the plan and its vehicle continues from
+     * the given position, usually where the delivery was made.
+     */
+    public boolean complete(long stopId, double latitude, double longitude) {
+        Integer slot = slotOf.get(stopId);
+        Route route = slot != null ? routeOf[slot] : null;
+        if (route != null) route.moveTo(latitude, longitude);
+        return remove(stopId);
+    }
+
+    /**
+     * Restarts a vehicle's route from a new position and reorders its remaining
+     * stops accordingly, e.g. after the driver left the planned path.
+     */
+    public boolean moveVehicle(long vehicleId, double latitude, double longitude) {
+        Route route = routes.get(vehicleId);
+        if (route == null) return false;
+        route.moveTo(latitude, longitude);
+        route.improve();
+        return true;
+    }
+
+    public boolean contains(long stopId) {
+        return slotOf.containsKey(stopId);
+    }
+
+    /** True when the stop is planned with exactly these coordinates and demand. */
+    public boolean isUnchanged(long stopId, double latitude, double longitude, double stopDemand) {
+        Integer slot = slotOf.get(stopId);
+        return slot != null && lat[slot] == latitude && lng[slot] == longitude
+                && demand[slot] == stopDemand;
+    }
+
+    public Collection<Route> getRoutes() {
+        return Collections.unmodifiableCollection(routes.values());
+    }
+
+    public Route getRoute(long vehicleId) {
+        return routes.get(vehicleId);
+    }
+
+    public long[] getUnassignedIds() {
+        long[] result = new long[unassigned.size()];
+        int i = 0;
+        for (int slot : unassigned) result[i++] = ids[slot];
+        return result;
+    }
+
+    public int stopCount() {
+        return slotOf.size();
+    }
+
+    public double totalKm() {
+        double total = 0;
+        for (Route route : routeArray) total += route.getDistanceKm();
+        return total;
+    }
+
+    // Offers parked stops to a route that just freed capacity
+    private void refill(Route route) {
+        boolean changed = false;
+        for (Iterator<Integer> it = unassigned.iterator(); it.hasNext(); ) {
+            int slot = it.next();
+            if (route.load + demand[slot] > route.capacity + EPSILON) continue;
+            it.remove();
+            route.insertAt(route.cheapestPosition(slot), slot);
+            changed = true;
+        }
+        if (changed) route.improve();
+    }
+
+    private int newSlot(long stopId, double latitude, double longitude, double stopDemand) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == ids.length) grow();
+            slot = slotCount++;
+        }
+        ids[slot] = stopId;
+        lat[slot] = latitude;
+        lng[slot] = longitude;
+        demand[slot] = stopDemand;
+        routeOf[slot] = null;
+        slotOf.put(stopId, slot);
+        return slot;
+    }
+
+    private void release(int slot) {
+        routeOf[slot] = null;
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void grow() {
+        int size = ids.length * 2;
+        ids = Arrays.copyOf(ids, size);
+        lat = Arrays.copyOf(lat, size);
+        lng = Arrays.copyOf(lng, size);
+        demand = Arrays.copyOf(demand, size);
+        routeOf = Arrays.copyOf(routeOf, size);
+    }
+
+    /** One vehicle's stops in visiting order, with the length of every leg cached. */
+    public final class Route {
+        @Getter
+        private final long vehicleId;
+        @Getter
+        private final double capacity;
+        @Getter
+        private double load;
+        @Getter
+        private double startLat; // degrees
+        @Getter
+        private double startLng;
+
+        private int[] stops = new int[8];
+        private double[] legKm = new double[8]; // legKm[p] leads into stops[p]
+        private int size;
+
+        private Route(long vehicleId, double capacity) {
+            this.vehicleId = vehicleId;
+            this.capacity = capacity;
+        }
+
+        public long[] getStopIds() {
+            long[] result = new long[size];
+            for (int p = 0; p < size; p++) result[p] = ids[stops[p]];
+            return result;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double getDistanceKm() {
+            double total = 0;
+            for (int p = 0; p < size; p++) total += legKm[p];
+            return total;
+        }
+
+        private void moveTo(double latitude, double longitude) {
+            startLat = latitude;
+            startLng = longitude;
+            if (size > 0) legKm[0] = fromStart(stops[0]);
+        }
+
+        private double fromStart(int slot) {
+            return DistanceMatrix.haversineKm(startLat, startLng, lat[slot], lng[slot]);
+        }
+
+        private double between(int a, int b) {
+            return DistanceMatrix.haversineKm(lat[a], lng[a], lat[b], lng[b]);
+        }
+
+        private double toSlot(int position, int slot) {
+            return position == 0 ? fromStart(slot) : between(stops[position - 1], slot);
+        }
+
+        // Extra distance of putting the slot before stops[position] (or at the end)
+        private double insertionDelta(int slot, int position) {
+            double in = toSlot(position, slot);
+            if (position == size) return in;
+            return in + between(slot, stops[position]) - legKm[position];
+        }
+
+        private int cheapestPosition(int slot) {
+            int best = size;
+            double bestDelta = toSlot(size, slot);
+            for (int p = 0; p < size; p++) {
+                double delta = insertionDelta(slot, p);
+                if (delta < bestDelta) {
+                    best = p;
+                    bestDelta = delta;
+                }
+            }
+            return best;
+        }
+
+        private void insertAt(int position, int slot) {
+            if (size == stops.length) {
+                stops = Arrays.copyOf(stops, size * 2);
+                legKm = Arrays.copyOf(legKm, size * 2);
+            }
+            System.arraycopy(stops, position, stops, position + 1, size - position);
+            System.arraycopy(legKm, position, legKm, position + 1, size - position);
+            stops[position] = slot;
+            size++;
+            legKm[position] = toSlot(position, slot);
+            if (position + 1 < size) legKm[position + 1] = between(slot, stops[position + 1]);
+            routeOf[slot] = this;
+            load += demand[slot];
+        }
+
+        private void removeSlot(int slot) {
+            int position = 0;
+            while (stops[position] != slot) position++;
+            System.arraycopy(stops, position + 1, stops, position, size - position - 1);
+            System.arraycopy(legKm, position + 1, legKm, position, size - position - 1);
+            size--;
+            if (position < size) legKm[position] = toSlot(position, stops[position]);
+            load -= demand[slot];
+        }
+
+        // 2-opt / Or-opt on this route only; node 0 of the matrix is the vehicle
+        private void improve() {
+            if (size < 3) return;
+            double[] lats = new double[size + 1];
+            double[] lngs = new double[size + 1];
+            lats[0] = startLat;
+            lngs[0] = startLng;
+            int[] order = new int[size];
+            for (int p = 0; p < size; p++) {
+                lats[p + 1] = lat[stops[p]];
+                lngs[p + 1] = lng[stops[p]];
+                order[p] = p + 1;
+            }
+            int[] improved = LocalSearch.improve(provider.matrix(lats, lngs), order,
+                    System.nanoTime() + repairBudgetNanos);
+            int[] previous = Arrays.copyOf(stops, size);
+            for (int p = 0; p < size; p++) {
+                stops[p] = previous[improved[p] - 1];
+                legKm[p] = toSlot(p, stops[p]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.nexuslogistics.routing;
+
+/**
+ * Time-boxed 2-opt and Or-opt improvement of an open route that starts at node 0
+ * (the vehicle) and ends at its last stop. Only improving moves are applied, so the
+ * route returned is never longer than the one passed in, and whatever was reached
+ * when the budget runs out is returned.
+ * <p>
+ * Road-graph matrices are asymmetric, so a reversed segment is priced along its
+ * inner edges too, read in O(1) from forward and backward prefix sums of the path.
+ */
+public final class LocalSearch {
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_OR_OPT_SEGMENT = 3;
+
+    private LocalSearch() {
+    }
+
+    /**
+     * @param stops          node indices of the route, without the start node 0; not modified
+     * @param deadlineNanos  {@link System#nanoTime()} value at which to stop searching
+     */
+    public static int[] improve(DistanceMatrix matrix, int[] stops, long deadlineNanos) {
+        int m = stops.length;
+        if (m < 3) return stops.clone();
+
+        // path[0] is the start node, path[1..m] the stops
+        int[] path = new int[m + 1];
+        System.arraycopy(stops, 0, path, 1, m);
+        double[] forward = new double[m + 1];
+        double[] backward = new double[m + 1];
+        prefixSums(matrix, path, forward, backward);
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadlineNanos) {
+            improved = twoOpt(matrix, path, forward, backward, deadlineNanos);
+            improved |= orOpt(matrix, path, forward, backward, deadlineNanos);
+        }
+
+        int[] result = new int[m];
+        System.arraycopy(path, 1, result, 0, m);
+        return result;
+    }
+
+    private static boolean twoOpt(DistanceMatrix d, int[] path, double[] forward, double[] backward,
+                                  long deadlineNanos) {
+        int last = path.length - 1;
+        boolean improved = false;
+        for (int i = 1; i < last; i++) {
+            if (System.nanoTime() >= deadlineNanos) return improved;
+            int a = path[i - 1];
+            int b = path[i];
+            double ab = d.get(a, b);
+            for (int j = i + 1; j <= last; j++) {
+                int c = path[j];
+                // Reverse path[i..j]: edges (a,b) and (c,next) become (a,c) and (b,next)
+                double delta = d.get(a, c) - ab + reversalCost(forward, backward, i, j);
+                if (j < last) {
+                    int next = path[j + 1];
+                    delta += d.get(b, next) - d.get(c, next);
+                }
+                if (delta < -EPSILON) {
+                    reverse(path, i, j);
+                    prefixSums(d, path, forward, backward);
+                    b = path[i];
+                    ab = d.get(a, b);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static boolean orOpt(DistanceMatrix d, int[] path, double[] forward, double[] backward,
+                                 long deadlineNanos) {
+        int last = path.length - 1;
+        boolean improved = false;
+        for (int length = 1; length <= MAX_OR_OPT_SEGMENT; length++) {
+            for (int i = 1; i + length - 1 <= last; i++) {
+                if (System.nanoTime() >= deadlineNanos) return improved;
+                int j = i + length - 1; // segment is path[i..j]
+                int prev = path[i - 1];
+                int first = path[i];
+                int end = path[j];
+                boolean hasNext = j < last;
+                int next = hasNext ? path[j + 1] : -1;
+
+                double removeGain = d.get(prev, first) + (hasNext ? d.get(end, next) - d.get(prev, next) : 0);
+                double flip = reversalCost(forward, backward, i, j);
+
+                // Try every edge (path[k], path[k+1]) outside the segment, plus the open end
+                for (int k = 0; k <= last; k++) {
+                    if (k >= i - 1 && k <= j) continue;
+                    int from = path[k];
+                    boolean toEnd = k == last;
+                    int to = toEnd ? -1 : path[k + 1];
+                    double base = toEnd ? 0 : d.get(from, to);
+
+                    double kept = d.get(from, first) + (toEnd ? 0 : d.get(end, to)) - base;
+                    double reversed = d.get(from, end) + (toEnd ? 0 : d.get(first, to)) - base + flip;
+                    boolean reverse = length > 1 && reversed < kept;
+                    if ((reverse ? reversed : kept) - removeGain < -EPSILON) {
+                        moveSegment(path, i, j, k, reverse);
+                        prefixSums(d, path, forward, backward);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    // forward[k] sums path[0..k] as driven, backward[k] the same edges driven the other way
+    private static void prefixSums(DistanceMatrix d, int[] path, double[] forward, double[] backward) {
+        for (int k = 1; k < path.length; k++) {
+            forward[k] = forward[k - 1] + d.get(path[k - 1], path[k]);
+            backward[k] = backward[k - 1] + d.get(path[k], path[k - 1]);
+        }
+    }
+
+    // Change in the inner edges of path[i..j] when it is driven in reverse; zero for symmetric matrices
+    private static double reversalCost(double[] forward, double[] backward, int i, int j) {
+        return (backward[j] - backward[i]) - (forward[j] - forward[i]);
+    }
+
+    private static void reverse(int[] path, int from, int to) {
+        while (from < to) {
+            int tmp = path[from];
+            path[from++] = path[to];
+            path[to--] = tmp;
+        }
+    }
+
+    // Moves path[i..j] to just after position k (k outside the segment)
+    private static void moveSegment(int[] path, int i, int j, int k, boolean reverse) {
+        int length = j - i + 1;
+        int[] segment = new int[length];
+        for (int s = 0; s < length; s++) {
+            segment[s] = path[reverse ? j - s : i + s];
+        }
+        if (k > j) {
+            System.arraycopy(path, j + 1, path, i, k - j);
+            System.arraycopy(segment, 0, path, k - length + 1, length);
+        } else {
+            System.arraycopy(path, k + 1, path, k + 1 + length, i - k - 1);
+            System.arraycopy(segment, 0, path, k + 1, length);
+        }
+    }
+}
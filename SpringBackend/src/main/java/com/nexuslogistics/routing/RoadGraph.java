@@ -0,0 +1,129 @@
+package com.nexuslogistics.routing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Directed road network read from an edge-list file, the input to
+ * {@link ContractionHierarchy}. Whitespace separated lines:
+ * <pre>
+ * # comment
+ * v &lt;id&gt; &lt;lat&gt; &lt;lng&gt;
+ * e &lt;fromId&gt; &lt;toId&gt; &lt;meters&gt; &lt;seconds&gt; [oneway: 1]
+ * </pre>
+ * Node ids may be any longs (e.g. OSM node ids) and are renumbered densely in file
+ * order. Edges are two-way unless flagged one-way. OSM extracts are converted to
+ * this format offline.
+ */
+public class RoadGraph {
+
+    private int nodeCount;
+    private double[] lats = new double[1024];
+    private double[] lngs = new double[1024];
+
+    private int edgeCount;
+    private int[] from = new int[1024];
+    private int[] to = new int[1024];
+    private float[] meters = new float[1024];
+    private float[] seconds = new float[1024];
+
+    public static RoadGraph load(Path file) throws IOException {
+        RoadGraph graph = new RoadGraph();
+        Map<Long, Integer> ids = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] f = line.split("\\s+");
+                try {
+                    if ("v".equals(f[0])) {
+                        ids.put(Long.parseLong(f[1]), graph.addNode(Double.parseDouble(f[2]), Double.parseDouble(f[3])));
+                    } else if ("e".equals(f[0])) {
+                        Integer a = ids.get(Long.parseLong(f[1]));
+                        Integer b = ids.get(Long.parseLong(f[2]));
+                        if (a == null || b == null) {
+                            throw new IOException("Line " + lineNumber + ": edge references an undeclared node");
+                        }
+                        float m = Float.parseFloat(f[3]);
+                        float s = Float.parseFloat(f[4]);
+                        graph.addEdge(a, b, m, s);
+                        if (f.length < 6 || !"1".equals(f[5])) {
+                            graph.addEdge(b, a, m, s);
+                        }
+                    } else {
+                        throw new IOException("Line " + lineNumber + ": unknown record '" + f[0] + "'");
+                    }
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new IOException("Line " + lineNumber + ": malformed record", e);
+                }
+            }
+        }
+        return graph;
+    }
+
+    public int addNode(double lat, double lng) {
+        if (nodeCount == lats.length) {
+            lats = Arrays.copyOf(lats, nodeCount * 2);
+            lngs = Arrays.copyOf(lngs, nodeCount * 2);
+        }
+        lats[nodeCount] = lat;
+        lngs[nodeCount] = lng;
+        return nodeCount++;
+    }
+
+    public void addEdge(int a, int b, float edgeMeters, float edgeSeconds) {
+        if (a == b) return;
+        if (edgeCount == from.length) {
+            from = Arrays.copyOf(from, edgeCount * 2);
+            to = Arrays.copyOf(to, edgeCount * 2);
+            meters = Arrays.copyOf(meters, edgeCount * 2);
+            seconds = Arrays.copyOf(seconds, edgeCount * 2);
+        }
+        from[edgeCount] = a;
+        to[edgeCount] = b;
+        meters[edgeCount] = edgeMeters;
+        seconds[edgeCount] = edgeSeconds;
+        edgeCount++;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public double lat(int node) {
+        return lats[node];
+    }
+
+    public double lng(int node) {
+        return lngs[node];
+    }
+
+    int from(int edge) {
+        return from[edge];
+    }
+
+    int to(int edge) {
+        return to[edge];
+    }
+
+    float meters(int edge) {
+        return meters[edge];
+    }
+
+    float seconds(int edge) {
+        return seconds[edge];
+    }
+}
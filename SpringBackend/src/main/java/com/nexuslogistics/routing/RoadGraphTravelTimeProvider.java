@@ -0,0 +1,144 @@
+package com.nexuslogistics.routing;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Road distances and travel times from an offline road graph, enabled by pointing
+ * {@code nexus.routing.roadGraphFile} at an edge-list file (see {@link RoadGraph}).
+ * The contraction hierarchy is built once at startup. Points are snapped to their
+ * nearest road node; the snap legs are added as straight lines driven at
+ * {@code nexus.routing.snapSpeedKmh}, which also covers pairs with no road
+ * connection between them.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty("nexus.routing.roadGraphFile")
+public class RoadGraphTravelTimeProvider implements TravelTimeProvider {
+
+    public static final String NAME = "road-graph";
+
+    @Value("${nexus.routing.roadGraphFile}")
+    private String roadGraphFile;
+
+    @Value("${nexus.routing.snapSpeedKmh:20}")
+    private double snapSpeedKmh;
+
+    private ContractionHierarchy hierarchy;
+
+    @PostConstruct
+    public void init() throws IOException {
+        long start = System.currentTimeMillis();
+        RoadGraph graph = RoadGraph.load(Path.of(roadGraphFile));
+        long loaded = System.currentTimeMillis();
+        hierarchy = ContractionHierarchy.build(graph);
+        log.info("Road graph {}: {} nodes, {} edges loaded in {} ms, {} shortcuts contracted in {} ms",
+                roadGraphFile, graph.getNodeCount(), graph.getEdgeCount(), loaded - start,
+                hierarchy.getShortcutCount(), System.currentTimeMillis() - loaded);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public DistanceMatrix matrix(double[] lats, double[] lngs) {
+        int n = lats.length;
+        int[] nodes = new int[n];
+        double[] snapKm = new double[n];
+        snap(lats, lngs, nodes, snapKm);
+
+        double[] seconds = new double[n * n];
+        double[] meters = new double[n * n];
+        int[] search = searchable(nodes);
+        hierarchy.manyToMany(search, search, seconds, meters);
+
+        double[] km = new double[n * n];
+        double[] minutes = new double[n * n];
+        int offRoad = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int cell = i * n + j;
+                if (i == j) continue;
+                offRoad += leg(seconds[cell], meters[cell], nodes[i], nodes[j], snapKm[i] + snapKm[j],
+                        lats[i], lngs[i], lats[j], lngs[j], km, minutes, cell);
+            }
+        }
+        if (offRoad > 0) {
+            log.debug("{} of {} pairs have no road path, using straight lines", offRoad, n * (n - 1));
+        }
+        return new DistanceMatrix(n, km, minutes);
+    }
+
+    @Override
+    public DistanceMatrix withOrigin(double originLat, double originLng, double[] lats, double[] lngs,
+                                     DistanceMatrix stops) {
+        int n = lats.length;
+        int[] nodes = new int[n];
+        double[] snapKm = new double[n];
+        snap(lats, lngs, nodes, snapKm);
+        int[] origin = new int[1];
+        double[] originSnapKm = new double[1];
+        snap(new double[] { originLat }, new double[] { originLng }, origin, originSnapKm);
+
+        double[] outSeconds = new double[n];
+        double[] outMeters = new double[n];
+        double[] inSeconds = new double[n];
+        double[] inMeters = new double[n];
+        int[] search = searchable(nodes);
+        hierarchy.manyToMany(searchable(origin), search, outSeconds, outMeters);
+        hierarchy.manyToMany(search, searchable(origin), inSeconds, inMeters);
+
+        double[] fromKm = new double[n];
+        double[] fromMinutes = new double[n];
+        double[] toKm = new double[n];
+        double[] toMinutes = new double[n];
+        for (int i = 0; i < n; i++) {
+            double snap = originSnapKm[0] + snapKm[i];
+            leg(outSeconds[i], outMeters[i], origin[0], nodes[i], snap, originLat, originLng, lats[i], lngs[i],
+                    fromKm, fromMinutes, i);
+            leg(inSeconds[i], inMeters[i], nodes[i], origin[0], snap, lats[i], lngs[i], originLat, originLng,
+                    toKm, toMinutes, i);
+        }
+        return stops.withOrigin(fromKm, toKm, fromMinutes, toMinutes);
+    }
+
+    private void snap(double[] lats, double[] lngs, int[] nodes, double[] snapKm) {
+        for (int i = 0; i < lats.length; i++) {
+            nodes[i] = hierarchy.nearestNode(lats[i], lngs[i]);
+            snapKm[i] = nodes[i] < 0 ? 0
+                    : DistanceMatrix.haversineKm(lats[i], lngs[i], hierarchy.lat(nodes[i]), hierarchy.lng(nodes[i]));
+        }
+    }
+
+    // Points off the graph search from node 0 instead; leg() replaces their results anyway
+    private static int[] searchable(int[] nodes) {
+        int[] result = nodes.clone();
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] < 0) result[i] = 0;
+        }
+        return result;
+    }
+
+    // Fills one leg from the road path plus its snap legs; pairs off the graph or without a
+    // road between them get a straight line driven at the snap speed. Returns 1 for those.
+    private int leg(double seconds, double meters, int from, int to, double snapKm,
+                    double fromLat, double fromLng, double toLat, double toLng, double[] km, double[] minutes, int cell) {
+        double minutesPerKm = 60 / snapSpeedKmh;
+        if (from < 0 || to < 0 || from == to || seconds == Double.POSITIVE_INFINITY) {
+            km[cell] = DistanceMatrix.haversineKm(fromLat, fromLng, toLat, toLng);
+            minutes[cell] = km[cell] * minutesPerKm;
+            return from != to || from < 0 ? 1 : 0;
+        }
+        km[cell] = meters / 1000 + snapKm;
+        minutes[cell] = seconds / 60 + snapKm * minutesPerKm;
+        return 0;
+    }
+}
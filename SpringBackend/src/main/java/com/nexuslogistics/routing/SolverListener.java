@@ -0,0 +1,24 @@
+package com.nexuslogistics.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Told about each improved solution while a solver runs, and able to stop it early.
+ *
+ * @param <S> type of the solutions reported
+ */
+@FunctionalInterface
+public interface SolverListener<S> {
+
+    static <S> SolverListener<S> none() {
+        return (phase, cost, solution) -> true;
+    }
+
+    /**
+     * @param phase    stage that produced the solution
+     * @param cost     total cost of the solution, lower is better
+     * @param solution copies the solution out of the solver; only call it when the solution is needed
+     * @return false to stop searching and return the solution as it stands
+     */
+    boolean onSolution(String phase, double cost, Supplier<S> solution);
+}
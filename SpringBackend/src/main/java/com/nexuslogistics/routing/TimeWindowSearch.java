@@ -0,0 +1,192 @@
+package com.nexuslogistics.routing;
+
+import com.nexuslogistics.routing.TimeWindows.Segment;
+
+/**
+ * Time-boxed 2-opt and Or-opt improvement of an open route with time windows, in the
+ * manner of {@link LocalSearch}. A route costs its length plus {@code warpPenalty} km
+ * per minute of lateness, so with a large penalty being on time comes first and
+ * distance second.
+ * <p>
+ * Prefix and suffix segments are kept for the current route, and the part a move
+ * changes is built up incrementally while scanning, so every candidate move is
+ * evaluated in constant time whatever the route length.
+ */
+public final class TimeWindowSearch {
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_OR_OPT_SEGMENT = 3;
+
+    private TimeWindowSearch() {
+    }
+
+    /**
+     * @param stops          node indices of the route, without the start node 0; not modified
+     * @param deadlineNanos  {@link System#nanoTime()} value at which to stop searching
+     */
+    public static int[] improve(TimeWindows windows, int[] stops, double warpPenalty, long deadlineNanos) {
+        int m = stops.length;
+        if (m < 2) return stops.clone();
+
+        State state = new State(windows, stops, warpPenalty);
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadlineNanos) {
+            improved = twoOpt(state, deadlineNanos);
+            improved |= orOpt(state, deadlineNanos);
+        }
+
+        int[] result = new int[m];
+        System.arraycopy(state.path, 1, result, 0, m);
+        return result;
+    }
+
+    public static double cost(TimeWindows windows, int[] stops, double warpPenalty) {
+        return new State(windows, stops, warpPenalty).cost();
+    }
+
+    private static boolean twoOpt(State s, long deadlineNanos) {
+        int last = s.path.length - 1;
+        boolean improved = false;
+        for (int i = 1; i < last; i++) {
+            if (System.nanoTime() >= deadlineNanos) return improved;
+            double current = s.cost();
+            // path[i..j] reversed, extended by one node per j
+            Segment reversed = s.windows.node(s.path[i]);
+            for (int j = i + 1; j <= last; j++) {
+                reversed = s.windows.concat(s.windows.node(s.path[j]), reversed);
+                Segment candidate = s.windows.concat(s.prefix[i - 1], reversed);
+                if (j < last) candidate = s.windows.concat(candidate, s.suffix[j + 1]);
+                if (s.cost(candidate) < current - EPSILON) {
+                    reverse(s.path, i, j);
+                    s.rebuild();
+                    improved = true;
+                    break;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static boolean orOpt(State s, long deadlineNanos) {
+        int last = s.path.length - 1;
+        boolean improved = false;
+        for (int length = 1; length <= MAX_OR_OPT_SEGMENT; length++) {
+            for (int i = 1; i + length - 1 <= last; i++) {
+                if (System.nanoTime() >= deadlineNanos) return improved;
+                int j = i + length - 1; // segment is path[i..j]
+                double current = s.cost();
+
+                Segment forward = s.windows.node(s.path[i]);
+                Segment backward = forward;
+                for (int p = i + 1; p <= j; p++) {
+                    forward = s.windows.concat(forward, s.windows.node(s.path[p]));
+                    backward = s.windows.concat(s.windows.node(s.path[p]), backward);
+                }
+
+                int target = -1;
+                boolean reverse = false;
+
+                // Later positions: prefix + path[j+1..k] + segment + suffix[k+1]
+                Segment between = null;
+                for (int k = j + 1; k <= last && target < 0; k++) {
+                    Segment node = s.windows.node(s.path[k]);
+                    between = between == null ? node : s.windows.concat(between, node);
+                    Segment head = s.windows.concat(s.prefix[i - 1], between);
+                    for (int r = 0; r < (length > 1 ? 2 : 1) && target < 0; r++) {
+                        Segment candidate = s.windows.concat(head, r == 0 ? forward : backward);
+                        if (k < last) candidate = s.windows.concat(candidate, s.suffix[k + 1]);
+                        if (s.cost(candidate) < current - EPSILON) {
+                            target = k;
+                            reverse = r == 1;
+                        }
+                    }
+                }
+
+                // Earlier positions: prefix[k] + segment + path[k+1..i-1] + suffix[j+1]
+                between = null;
+                for (int k = i - 2; k >= 0 && target < 0; k--) {
+                    Segment node = s.windows.node(s.path[k + 1]);
+                    between = between == null ? node : s.windows.concat(node, between);
+                    for (int r = 0; r < (length > 1 ? 2 : 1) && target < 0; r++) {
+                        Segment candidate = s.windows.concat(s.windows.concat(s.prefix[k], r == 0 ? forward : backward), between);
+                        if (j < last) candidate = s.windows.concat(candidate, s.suffix[j + 1]);
+                        if (s.cost(candidate) < current - EPSILON) {
+                            target = k;
+                            reverse = r == 1;
+                        }
+                    }
+                }
+
+                if (target >= 0) {
+                    moveSegment(s.path, i, j, target, reverse);
+                    s.rebuild();
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /** Route with the segment summaries of every prefix and suffix. */
+    private static final class State {
+        final TimeWindows windows;
+        final double warpPenalty;
+        final int[] path; // path[0] is the start node, path[1..m] the stops
+        final Segment[] prefix;
+        final Segment[] suffix;
+
+        State(TimeWindows windows, int[] stops, double warpPenalty) {
+            this.windows = windows;
+            this.warpPenalty = warpPenalty;
+            path = new int[stops.length + 1];
+            System.arraycopy(stops, 0, path, 1, stops.length);
+            prefix = new Segment[path.length];
+            suffix = new Segment[path.length];
+            rebuild();
+        }
+
+        void rebuild() {
+            int last = path.length - 1;
+            prefix[0] = windows.node(path[0]);
+            for (int k = 1; k <= last; k++) {
+                prefix[k] = windows.concat(prefix[k - 1], windows.node(path[k]));
+            }
+            suffix[last] = windows.node(path[last]);
+            for (int k = last - 1; k >= 1; k--) {
+                suffix[k] = windows.concat(windows.node(path[k]), suffix[k + 1]);
+            }
+        }
+
+        double cost(Segment route) {
+            return route.distance + warpPenalty * route.timeWarp;
+        }
+
+        double cost() {
+            return cost(prefix[path.length - 1]);
+        }
+    }
+
+    private static void reverse(int[] path, int from, int to) {
+        while (from < to) {
+            int tmp = path[from];
+            path[from++] = path[to];
+            path[to--] = tmp;
+        }
+    }
+
+    // Moves path[i..j] to just after position k (k outside the segment)
+    private static void moveSegment(int[] path, int i, int j, int k, boolean reverse) {
+        int length = j - i + 1;
+        int[] segment = new int[length];
+        for (int s = 0; s < length; s++) {
+            segment[s] = path[reverse ? j - s : i + s];
+        }
+        if (k > j) {
+            System.arraycopy(path, j + 1, path, i, k - j);
+            System.arraycopy(segment, 0, path, k - length + 1, length);
+        } else {
+            System.arraycopy(path, k + 1, path, k + 1 + length, i - k - 1);
+            System.arraycopy(segment, 0, path, k + 1, length);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.nexuslogistics.routing;
+
+/**
+ * Time windows, service durations and travel times of the nodes of a {@link DistanceMatrix}.
+ * Travel times come from the matrix when it has them, otherwise from an average speed.
+ * Times are minutes after the vehicle leaves node 0; a stop may be served from
+ * {@code earliest} (arriving earlier means waiting) and should be reached by {@code latest}.
+ * <p>
+ * Routes are summarised as {@link Segment}s that concatenate in constant time, so a
+ * local search move is evaluated from the prefix before it, the part it changes and
+ * the suffix after it without walking the route. Arriving late is modelled as "time
+ * warp": travelling back to {@code latest} and paying for every minute of it.
+ */
+public class TimeWindows {
+
+    private final DistanceMatrix matrix;
+    private final double minutesPerKm;
+    private final double[] earliest;
+    private final double[] latest;
+    private final double[] service;
+    private final Segment[] nodes;
+
+    public TimeWindows(DistanceMatrix matrix, double speedKmh, double[] earliest, double[] latest, double[] service) {
+        int n = matrix.size();
+        if (earliest.length != n || latest.length != n || service.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " windows");
+        }
+        this.matrix = matrix;
+        this.minutesPerKm = 60 / speedKmh;
+        this.earliest = earliest;
+        this.latest = latest;
+        this.service = service;
+        this.nodes = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new Segment(i, i, 0, service[i], 0, earliest[i], latest[i]);
+        }
+    }
+
+    public DistanceMatrix getMatrix() {
+        return matrix;
+    }
+
+    public double travelMinutes(int from, int to) {
+        return matrix.hasMinutes() ? matrix.minutes(from, to) : matrix.get(from, to) * minutesPerKm;
+    }
+
+    public Segment node(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Summary of {@code a} followed directly by {@code b}.
+     */
+    public Segment concat(Segment a, Segment b) {
+        double km = matrix.get(a.last, b.first);
+        double travel = travelMinutes(a.last, b.first);
+        double delta = a.duration - a.timeWarp + travel;
+        double wait = Math.max(b.earliest - delta - a.latest, 0);
+        double warp = Math.max(a.earliest + delta - b.latest, 0);
+        return new Segment(a.first, b.last,
+                a.distance + b.distance + km,
+                a.duration + b.duration + travel + wait,
+                a.timeWarp + b.timeWarp + warp,
+                Math.max(b.earliest - delta, a.earliest) - wait,
+                Math.min(b.latest - delta, a.latest) + warp);
+    }
+
+    /**
+     * Arrival minute at every stop of the open route from node 0, waiting when early.
+     */
+    public double[] arrivals(int[] stops) {
+        double[] arrivals = new double[stops.length];
+        int previous = 0;
+        double ready = Math.max(0, earliest[0]) + service[0];
+        for (int i = 0; i < stops.length; i++) {
+            int stop = stops[i];
+            arrivals[i] = ready + travelMinutes(previous, stop);
+            ready = Math.max(arrivals[i], earliest[stop]) + service[stop];
+            previous = stop;
+        }
+        return arrivals;
+    }
+
+    public double lateness(int stop, double arrival) {
+        return Math.max(0, arrival - latest[stop]);
+    }
+
+    /**
+     * A route fragment from {@code first} to {@code last}: its length in km, the minimum
+     * time to serve it including waits, the lateness it cannot avoid, and the window of
+     * start times at {@code first} that achieve that.
+     */
+    public static final class Segment {
+        final int first;
+        final int last;
+        final double distance;
+        final double duration;
+        final double timeWarp;
+        final double earliest;
+        final double latest;
+
+        Segment(int first, int last, double distance, double duration, double timeWarp,
+                double earliest, double latest) {
+            this.first = first;
+            this.last = last;
+            this.distance = distance;
+            this.duration = duration;
+            this.timeWarp = timeWarp;
+            this.earliest = earliest;
+            this.latest = latest;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+
+        public double getTimeWarp() {
+            return timeWarp;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.nexuslogistics.routing;
+
+/**
+ * Source of pairwise travel distances and times, e.g. great-circle estimates or an
+ * offline road graph. Selected by name through {@code nexus.routing.travelTimeProvider}.
+ */
+public interface TravelTimeProvider {
+
+    String getName();
+
+    /**
+     * Matrix over the given points, in order. Implementations that know real travel
+     * times include them; otherwise callers fall back to an average speed.
+     */
+    DistanceMatrix matrix(double[] lats, double[] lngs);
+
+    /**
+     * {@code stops}, this provider's matrix over the points, with the origin added in
+     * front as node 0. The default builds the whole matrix again; implementations only
+     * need to compute the origin's legs.
+     */
+    default DistanceMatrix withOrigin(double originLat, double originLng, double[] lats, double[] lngs,
+                                      DistanceMatrix stops) {
+        double[] allLats = new double[lats.length + 1];
+        double[] allLngs = new double[lngs.length + 1];
+        allLats[0] = originLat;
+        allLngs[0] = originLng;
+        System.arraycopy(lats, 0, allLats, 1, lats.length);
+        System.arraycopy(lngs, 0, allLngs, 1, lngs.length);
+        return matrix(allLats, allLngs);
+    }
+}
@@ -0,0 +1,31 @@
+package com.nexuslogistics.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts rejected sign-ins by cause, e.g. reason=bad_credentials. Rejected tokens
+ * are counted by {@link JwtUtils} under the same meter with type=token.
+ */
+@Component
+public class AuthFailureMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @EventListener
+    public void onFailure(AbstractAuthenticationFailureEvent event) {
+        meterRegistry.counter("nexus.auth.failures", "type", "login", "reason", reason(event)).increment();
+    }
+
+    // AuthenticationFailureBadCredentialsEvent -> bad_credentials
+    static String reason(AbstractAuthenticationFailureEvent event) {
+        String name = event.getClass().getSimpleName()
+                .replaceFirst("^AuthenticationFailure", "")
+                .replaceFirst("Event$", "");
+        return name.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+    }
+}
@@ -0,0 +1,225 @@
+package com.nexuslogistics.security;
+
+import com.nexuslogistics.model.RevokedToken;
+import com.nexuslogistics.repository.RevokedTokenRepository;
+import com.nexuslogistics.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves bearer tokens to users without touching the database.
+ * <p>
+ * The user name and roles come from the token itself, so a token is verified once and
+ * then served from a bounded concurrent cache until it expires; request threads never
+ * wait on each other for a hit. Once full, the cache drops arbitrary entries, which
+ * costs those tokens one more signature check. Tokens issued before the roles
+ * claim existed fall back to a single user lookup. Because a cached (or simply still
+ * valid) token would otherwise keep working, logout and account changes go through
+ * {@link #revokeToken} and {@link #revokeUser}. Both are stored in the database: a token
+ * is checked against it once, on its cache miss, and the periodic sweep picks up
+ * revocations made on other instances for tokens already cached here.
+ */
+@Component
+@Slf4j
+public class JwtAuthenticationCache {
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nexus.app.tokenCacheSize:10000}")
+    private int maxEntries;
+
+    // Revocations stamped by another instance's clock are looked for this far back
+    private static final long CLOCK_SKEW_MS = 60_000;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>(); // token hash -> exp millis
+    private final Map<String, Long> revokedUsers = new ConcurrentHashMap<>(); // username -> revoked at millis
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile long syncedAt = System.currentTimeMillis();
+
+    private record Entry(UserDetails user, String hash, long issuedAtMillis, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("nexus.auth.token.cache.size", this, JwtAuthenticationCache::size).register(meterRegistry);
+        FunctionCounter.builder("nexus.auth.token.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("nexus.auth.token.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * @return the user the token was issued to, or null when it is invalid, expired or revoked
+     */
+    public UserDetails authenticate(String token) {
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(token);
+        if (entry != null) {
+            if (entry.expiresAtMillis() <= now || isRevoked(entry)) {
+                cache.remove(token, entry);
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.user();
+        }
+
+        misses.incrementAndGet();
+        String hash = hash(token);
+        if (revokedTokens.containsKey(hash)) return null;
+        Claims claims = jwtUtils.parseClaims(token);
+        if (claims == null || claims.getExpiration() == null) return null;
+
+        entry = new Entry(toUser(claims), hash, toMillis(claims.getIssuedAt()), claims.getExpiration().getTime());
+        if (isRevokedInDatabase(entry)) return null;
+        if (cache.size() >= maxEntries) evict(now);
+        cache.put(token, entry);
+        // Checked after the put: a revocation either shows up here or sees the entry and removes it
+        if (revokedTokens.containsKey(hash) || isRevoked(entry)) {
+            cache.remove(token, entry);
+            return null;
+        }
+        return entry.user();
+    }
+
+    /** Rejects one token from now on, e.g. on logout. */
+    public void revokeToken(String token) {
+        Claims claims = jwtUtils.parseClaims(token);
+        if (claims == null) return; // already unusable
+        String hash = hash(token);
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        revokedTokens.put(hash, expiresAt);
+        cache.remove(token);
+        revokedTokenRepository.save(new RevokedToken(hash, expiresAt, System.currentTimeMillis()));
+    }
+
+    /**
+     * Rejects every token issued to the user up to now, e.g. after a role change or when
+     * the account is disabled. Tokens issued afterwards are accepted again.
+     */
+    public void revokeUser(String username) {
+        long now = System.currentTimeMillis();
+        revokedUsers.put(username, now);
+        cache.values().removeIf(entry -> entry.user().getUsername().equals(username));
+        userRepository.findByUsername(username).ifPresent(user -> {
+            user.setTokensValidAfter(now);
+            userRepository.save(user);
+        });
+        log.info("Revoked all tokens of user {}", username);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    // Revocations only need to outlive the tokens they cover
+    @Scheduled(fixedDelayString = "${nexus.app.tokenCacheSweepMs:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        long since = syncedAt - CLOCK_SKEW_MS;
+        syncedAt = now;
+        for (com.nexuslogistics.model.User user : userRepository.findByTokensValidAfterGreaterThanEqual(since)) {
+            revokedUsers.merge(user.getUsername(), user.getTokensValidAfter(), Math::max);
+        }
+        for (RevokedToken revoked : revokedTokenRepository.findByRevokedAtGreaterThanEqual(since)) {
+            revokedTokens.put(revoked.getTokenHash(), revoked.getExpiresAt());
+        }
+        revokedTokenRepository.deleteByExpiresAtLessThanEqual(now);
+
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + jwtUtils.getJwtExpirationMs() <= now);
+        cache.values().removeIf(entry -> entry.expiresAtMillis() <= now
+                || revokedTokens.containsKey(entry.hash()) || isRevoked(entry));
+    }
+
+    // Frees a tenth of the cache so the scan is not repeated on every miss: expired
+    // entries go first, then whichever the iterator yields
+    private void evict(long now) {
+        cache.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        int target = maxEntries - maxEntries / 10;
+        Iterator<String> tokens = cache.keySet().iterator();
+        while (cache.size() >= target && tokens.hasNext()) {
+            tokens.next();
+            tokens.remove();
+        }
+    }
+
+    // iat has second precision, so a token from the same second as the revocation is rejected too
+    private boolean isRevoked(Entry entry) {
+        Long revokedAt = revokedUsers.get(entry.user().getUsername());
+        return revokedAt != null && entry.issuedAtMillis() <= revokedAt;
+    }
+
+    // Revocations from other instances or from before a restart; two lookups per cache miss
+    private boolean isRevokedInDatabase(Entry entry) {
+        if (revokedTokenRepository.existsById(entry.hash())) return true;
+        String username = entry.user().getUsername();
+        Long validAfter = userRepository.findByUsername(username)
+                .map(com.nexuslogistics.model.User::getTokensValidAfter)
+                .orElse(null);
+        if (validAfter == null) return false;
+        revokedUsers.merge(username, validAfter, Math::max);
+        return entry.issuedAtMillis() <= validAfter;
+    }
+
+    private UserDetails toUser(Claims claims) {
+        Object roles = claims.get(JwtUtils.ROLES_CLAIM);
+        if (!(roles instanceof List<?> names)) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(names.size());
+        for (Object name : names) authorities.add(new SimpleGrantedAuthority(String.valueOf(name)));
+        return new User(claims.getSubject(), "", authorities);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM ships SHA-256
+        }
+    }
+
+    private static long toMillis(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+}
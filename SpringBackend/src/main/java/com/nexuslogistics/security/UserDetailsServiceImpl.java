@@ -27,6 +27,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
                 user.getPassword(),
+                user.isEnabled(), true, true, true, // a disabled account cannot sign in
                 Collections.singletonList(new SimpleGrantedAuthority(user.getRole().name()))
         );
     }
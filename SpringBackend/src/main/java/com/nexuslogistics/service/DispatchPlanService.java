@@ -0,0 +1,198 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.dto.FleetPlan;
+import com.nexuslogistics.dto.FleetRoute;
+import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.model.VehicleState;
+import com.nexuslogistics.routing.DistanceMatrix;
+import com.nexuslogistics.routing.IncrementalPlan;
+import com.nexuslogistics.routing.SolverListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the fleet dispatch plan current between full solves.
+ * <p>
+ * A plan is adopted from one fleet-wide solve. After that, new and changed shipments,
+ * deliveries and vehicles drifting away from their planned start are repaired into it
+ * with cheapest insertion and a local search over the affected route only, which
+ * takes milliseconds rather than the seconds of a new solve. Like the fleet plan
+ * itself this is a proposal; nothing is assigned in the database.
+ */
+@Service
+@Slf4j
+public class DispatchPlanService {
+
+    @Autowired
+    private FleetDispatchService fleetDispatchService;
+
+    @Autowired
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nexus.routing.repairBudgetMs:5}")
+    private long repairBudgetMs;
+
+    // A vehicle this far from the start of its planned route has its stops reordered
+    @Value("${nexus.routing.deviationKm:1}")
+    private double deviationKm;
+
+    private IncrementalPlan plan; // null until a plan has been adopted
+    private final Map<Long, String> vehicleCodes = new HashMap<>();
+    private long adoptedSolveMs;
+
+    private long repairs;
+    private long repairNanos;
+    private long maxRepairNanos;
+    private Timer repairTimer;
+
+    @PostConstruct
+    public void init() {
+        repairTimer = Timer.builder("nexus.dispatch.plan.repair").register(meterRegistry);
+    }
+
+    /**
+     * Solves the fleet from scratch and makes the result the plan that later changes
+     * are repaired into.
+     */
+    public FleetPlan replan() {
+        List<Shipment> shipments = fleetDispatchService.pendingShipments();
+        List<VehicleState> vehicles = fleetDispatchService.dispatchableVehicles();
+        // Solved outside the lock so repairs of the current plan are not held up
+        FleetPlan solved = fleetDispatchService.plan(shipments, vehicles, SolverListener.none());
+
+        Map<Long, Shipment> byId = new HashMap<>();
+        for (Shipment shipment : shipments) byId.put(shipment.getId(), shipment);
+
+        IncrementalPlan adopted = new IncrementalPlan(repairBudgetMs * 1_000_000, distanceMatrixService.getProvider());
+        Map<Long, String> codes = new HashMap<>();
+        for (VehicleState vehicle : vehicles) {
+            adopted.addVehicle(vehicle.getId(), vehicle.getLatitude(), vehicle.getLongitude(), vehicle.getMaxCapacity());
+            codes.put(vehicle.getId(), vehicle.getVId());
+        }
+        for (FleetRoute route : solved.getRoutes()) {
+            for (Long id : route.getShipmentIds()) {
+                Shipment shipment = byId.get(id);
+                adopted.append(route.getVehicleId(), id, shipment.getLatitude(), shipment.getLongitude(),
+                        shipment.getWeightKg());
+            }
+        }
+        for (Long id : solved.getUnassignedShipmentIds()) {
+            Shipment shipment = byId.get(id);
+            adopted.park(id, shipment.getLatitude(), shipment.getLongitude(), shipment.getWeightKg());
+        }
+
+        synchronized (this) {
+            plan = adopted;
+            vehicleCodes.clear();
+            vehicleCodes.putAll(codes);
+            adoptedSolveMs = solved.getSolveMs();
+        }
+        return solved;
+    }
+
+    public synchronized Optional<FleetPlan> getPlan() {
+        if (plan == null) return Optional.empty();
+        List<FleetRoute> routes = new ArrayList<>();
+        for (IncrementalPlan.Route route : plan.getRoutes()) {
+            if (route.size() == 0) continue;
+            List<Long> ids = new ArrayList<>(route.size());
+            for (long id : route.getStopIds()) ids.add(id);
+            routes.add(new FleetRoute(route.getVehicleId(), vehicleCodes.get(route.getVehicleId()), ids,
+                    route.getLoad(), route.getCapacity(), route.getDistanceKm()));
+        }
+        List<Long> unassigned = new ArrayList<>();
+        for (long id : plan.getUnassignedIds()) unassigned.add(id);
+        return Optional.of(new FleetPlan(routes, unassigned, plan.stopCount(), plan.getRoutes().size(),
+                plan.totalKm(), adoptedSolveMs));
+    }
+
+    /**
+     * Brings a shipment's stop in line with its current state: undelivered shipments
+     * are (re)inserted when new or moved, delivered and cancelled ones leave the plan.
+     */
+    public synchronized void onShipmentChanged(Shipment shipment) {
+        if (plan == null || shipment.getId() == null) return;
+        long start = System.nanoTime();
+        if ("DELIVERED".equals(shipment.getStatus()) || "CANCELLED".equals(shipment.getStatus())) {
+            if (!plan.remove(shipment.getId())) return;
+        } else if (plan.isUnchanged(shipment.getId(), shipment.getLatitude(), shipment.getLongitude(),
+                shipment.getWeightKg())) {
+            return;
+        } else {
+            Long vehicleId = plan.insert(shipment.getId(), shipment.getLatitude(), shipment.getLongitude(),
+                    shipment.getWeightKg());
+            log.debug("Planned shipment {} on vehicle {}", shipment.getId(), vehicleId);
+        }
+        recordRepair(start);
+    }
+
+    // The vehicle is where it just delivered, so its remaining stops are ordered from there
+    public synchronized void onDelivered(Shipment shipment, double lat, double lng) {
+        if (plan == null || shipment.getId() == null) return;
+        long start = System.nanoTime();
+        if (plan.complete(shipment.getId(), lat, lng)) recordRepair(start);
+    }
+
+    public synchronized void onShipmentDeleted(Long shipmentId) {
+        if (plan == null) return;
+        long start = System.nanoTime();
+        if (plan.remove(shipmentId)) recordRepair(start);
+    }
+
+    // Positions change far more often than is worth repairing for, so they are sampled
+    @Scheduled(fixedDelayString = "${nexus.routing.deviationCheckMs:10000}")
+    public synchronized void checkDeviations() {
+        if (plan == null) return;
+        for (IncrementalPlan.Route route : plan.getRoutes()) {
+            if (route.size() == 0) continue;
+            VehicleState vehicle = fleetStateRegistry.get(route.getVehicleId());
+            if (vehicle == null) continue;
+            double offKm = DistanceMatrix.haversineKm(route.getStartLat(), route.getStartLng(),
+                    vehicle.getLatitude(), vehicle.getLongitude());
+            if (offKm > deviationKm) {
+                long start = System.nanoTime();
+                plan.moveVehicle(route.getVehicleId(), vehicle.getLatitude(), vehicle.getLongitude());
+                recordRepair(start);
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("adopted", plan != null);
+        stats.put("stops", plan != null ? plan.stopCount() : 0);
+        stats.put("unassigned", plan != null ? plan.getUnassignedIds().length : 0);
+        stats.put("repairs", repairs);
+        stats.put("avgRepairMicros", repairs > 0 ? repairNanos / repairs / 1000 : 0);
+        stats.put("maxRepairMicros", maxRepairNanos / 1000);
+        return stats;
+    }
+
+    private void recordRepair(long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        repairs++;
+        repairNanos += nanos;
+        maxRepairNanos = Math.max(maxRepairNanos, nanos);
+        repairTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
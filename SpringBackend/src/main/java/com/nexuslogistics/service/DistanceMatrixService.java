@@ -0,0 +1,147 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.routing.DistanceMatrix;
+import com.nexuslogistics.routing.HaversineTravelTimeProvider;
+import com.nexuslogistics.routing.TravelTimeProvider;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared source of distance matrices for the routing services. Matrices come from the
+ * configured {@link TravelTimeProvider} and are cached by their exact, ordered point
+ * set. A route starts from the vehicle's live position, which is rarely the same twice,
+ * so route matrices cache only the stops and add the start per call: re-optimising the
+ * same stops from wherever the vehicle now is costs one row and column, not a rebuild.
+ * The cache is least-recently-used and bounded by the total number of matrix cells it holds.
+ */
+@Service
+@Slf4j
+public class DistanceMatrixService {
+
+    @Autowired(required = false)
+    private List<TravelTimeProvider> providers = List.of();
+
+    @Value("${nexus.routing.travelTimeProvider:haversine}")
+    private String providerName;
+
+    // 4M cells are 32 MB of distances, twice that with travel times
+    @Value("${nexus.routing.matrixCacheMaxCells:4000000}")
+    private long maxCachedCells;
+
+    private TravelTimeProvider provider;
+    private final LinkedHashMap<Key, DistanceMatrix> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedCells;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        provider = providers.stream()
+                .filter(p -> p.getName().equalsIgnoreCase(providerName))
+                .findFirst()
+                .orElse(null);
+        if (provider == null) {
+            if (!HaversineTravelTimeProvider.NAME.equalsIgnoreCase(providerName)) {
+                log.warn("Travel time provider '{}' not available, using straight-line distances", providerName);
+            }
+            provider = new HaversineTravelTimeProvider();
+        }
+        log.info("Routing distances from the '{}' provider", provider.getName());
+    }
+
+    /**
+     * Matrix over the given points, node i being point i. The arrays must not be
+     * modified afterwards, they become part of the cache key.
+     */
+    public DistanceMatrix matrix(double[] lats, double[] lngs) {
+        Key key = new Key(lats, lngs);
+        synchronized (cache) {
+            DistanceMatrix cached = cache.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+
+        // Built outside the lock; two callers racing on the same key both build it once
+        DistanceMatrix matrix = provider.matrix(lats, lngs);
+        long cells = (long) lats.length * lats.length;
+        if (cells <= maxCachedCells) {
+            synchronized (cache) {
+                if (cache.put(key, matrix) == null) {
+                    cachedCells += cells;
+                }
+                Iterator<Map.Entry<Key, DistanceMatrix>> eldest = cache.entrySet().iterator();
+                while (cachedCells > maxCachedCells && eldest.hasNext()) {
+                    int size = eldest.next().getValue().size();
+                    eldest.remove();
+                    cachedCells -= (long) size * size;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Matrix over the origin (node 0) followed by the stops, node i + 1 being stop i. Only
+     * the stop matrix is cached, so the arrays must not be modified afterwards.
+     */
+    public DistanceMatrix matrixFrom(double originLat, double originLng, double[] lats, double[] lngs) {
+        return provider.withOrigin(originLat, originLng, lats, lngs, matrix(lats, lngs));
+    }
+
+    /** The configured provider, for callers that build many small uncached matrices. */
+    public TravelTimeProvider getProvider() {
+        return provider;
+    }
+
+    public String getProviderName() {
+        return provider.getName();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("provider", provider.getName());
+        synchronized (cache) {
+            stats.put("cachedMatrices", cache.size());
+            stats.put("cachedCells", cachedCells);
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    private static final class Key {
+        final double[] lats;
+        final double[] lngs;
+        final int hash;
+
+        Key(double[] lats, double[] lngs) {
+            this.lats = lats;
+            this.lngs = lngs;
+            this.hash = 31 * Arrays.hashCode(lats) + Arrays.hashCode(lngs);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && hash == other.hash
+                    && Arrays.equals(lats, other.lats) && Arrays.equals(lngs, other.lngs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.dto.FleetDelta;
+import com.nexuslogistics.dto.FleetFrame;
+import com.nexuslogistics.geo.BoundingBox;
+import com.nexuslogistics.geo.ViewportIndex;
+import com.nexuslogistics.model.VehicleState;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces live fleet changes into one compact frame per tick instead of one STOMP
+ * message per vehicle update.
+ * <p>
+ * Every tick the registry is diffed against what was last broadcast and only changed
+ * fields are sent to {@code /topic/fleet}; a full keyframe goes out periodically.
+ * Clients can instead subscribe to {@code /user/queue/fleet} for a stream of their own:
+ * an {@code x-max-rate} header (frames per second) merges the changes of skipped
+ * ticks, and an {@code x-bbox} or {@code x-tiles} header limits the stream to the
+ * vehicles inside the map viewport. Vehicles leaving the viewport are reported as
+ * removed.
+ */
+@Service
+@Slf4j
+public class FleetBroadcastService {
+
+    public static final String FLEET_TOPIC = "/topic/fleet";
+    public static final String SESSION_DESTINATION = "/queue/fleet";
+    public static final String MAX_RATE_HEADER = "x-max-rate";
+    public static final String BBOX_HEADER = "x-bbox";
+    public static final String TILES_HEADER = "x-tiles";
+    // A full-screen map shows a few dozen tiles; more only inflate the viewport index
+    public static final int MAX_VIEWPORT_TILES = 256;
+
+    private static final String SESSION_SUBSCRIPTION = "/user" + SESSION_DESTINATION;
+
+    @Autowired
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nexus.fleet.keyframeIntervalMs:30000}")
+    private long keyframeIntervalMs;
+
+    @Value("${nexus.fleet.viewportCellDegrees:0.25}")
+    private double viewportCellDegrees;
+
+    private static final class Subscriber {
+        final String sessionId;
+        final String subscriptionId;
+        final long minIntervalMs;
+        volatile boolean viewportScoped;
+        volatile boolean needsKeyframe = true;
+        long lastSentAt;
+        long seq; // per session so clients can detect gaps in their own stream
+        // Changes of skipped ticks, bounded by the fleet size
+        final Map<Long, FleetDelta> pending = new LinkedHashMap<>();
+        final Set<Long> removed = new LinkedHashSet<>();
+
+        Subscriber(String sessionId, String subscriptionId, long minIntervalMs) {
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+            this.minIntervalMs = minIntervalMs;
+        }
+
+        void changed(FleetDelta delta) {
+            removed.remove(delta.getId());
+            FleetDelta merged = pending.get(delta.getId());
+            if (merged == null) {
+                pending.put(delta.getId(), copy(delta));
+            } else {
+                merged.merge(delta);
+            }
+        }
+
+        void removed(long id) {
+            pending.remove(id);
+            removed.add(id);
+        }
+    }
+
+    // A vehicle change of one tick; current is null when the vehicle was removed
+    private record Change(VehicleState previous, VehicleState current, FleetDelta delta) { }
+
+    // Only touched by the broadcast tick
+    private final Map<Long, VehicleState> lastSent = new HashMap<>();
+    private long lastKeyframeAt;
+
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private ViewportIndex<Subscriber> viewports;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+    private Timer broadcastTimer;
+
+    @PostConstruct
+    public void init() {
+        viewports = new ViewportIndex<>(viewportCellDegrees);
+
+        broadcastTimer = Timer.builder("nexus.fleet.broadcast").register(meterRegistry);
+        FunctionCounter.builder("nexus.fleet.frames", framesSent, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("nexus.fleet.subscribers", subscribers, Map::size).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${nexus.fleet.broadcastIntervalMs:1000}")
+    public void broadcast() {
+        broadcastTimer.record(this::broadcastTick);
+    }
+
+    private void broadcastTick() {
+        long now = System.currentTimeMillis();
+        boolean keyframe = now - lastKeyframeAt >= keyframeIntervalMs;
+
+        boolean needAll = keyframe || subscribers.values().stream().anyMatch(s -> s.needsKeyframe);
+
+        List<Change> changes = new ArrayList<>();
+        List<VehicleState> all = needAll ? new ArrayList<>() : null;
+        Set<Long> seen = new HashSet<>();
+        for (VehicleState state : fleetStateRegistry.snapshot()) {
+            seen.add(state.getId());
+            VehicleState previous = lastSent.put(state.getId(), state);
+            if (all != null) all.add(state);
+            if (previous == null) {
+                changes.add(new Change(null, state, full(state)));
+            } else if (previous.getVersion() != state.getVersion()) {
+                FleetDelta delta = diff(previous, state);
+                if (delta != null) changes.add(new Change(previous, state, delta));
+            }
+        }
+        List<Long> removed = new ArrayList<>();
+        for (Iterator<VehicleState> it = lastSent.values().iterator(); it.hasNext(); ) {
+            VehicleState previous = it.next();
+            if (!seen.contains(previous.getId())) {
+                it.remove();
+                removed.add(previous.getId());
+                changes.add(new Change(previous, null, null));
+            }
+        }
+
+        if (keyframe) {
+            lastKeyframeAt = now;
+            send(new FleetFrame(sequence.incrementAndGet(), now, true, fullFrame(all, null), removed));
+        } else if (!changes.isEmpty()) {
+            List<FleetDelta> deltas = new ArrayList<>(changes.size());
+            for (Change change : changes) {
+                if (change.current() != null) deltas.add(change.delta());
+            }
+            send(new FleetFrame(sequence.incrementAndGet(), now, false, deltas, removed));
+        }
+
+        if (subscribers.isEmpty()) return;
+        route(changes);
+        for (Subscriber subscriber : subscribers.values()) {
+            flushSubscriber(subscriber, now, keyframe, all);
+        }
+    }
+
+    /**
+     * Queues each change for the subscribers that can see it: every unscoped subscriber,
+     * and the viewport subscribers whose viewport held the vehicle before or after the
+     * change, found through the viewport grid rather than by testing every session.
+     */
+    private void route(List<Change> changes) {
+        List<Subscriber> unscoped = new ArrayList<>();
+        for (Subscriber subscriber : subscribers.values()) {
+            if (!subscriber.viewportScoped && !subscriber.needsKeyframe) unscoped.add(subscriber);
+        }
+
+        Set<Subscriber> viewers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Change change : changes) {
+            VehicleState previous = change.previous();
+            VehicleState current = change.current();
+            for (Subscriber subscriber : unscoped) {
+                if (current != null) subscriber.changed(change.delta());
+                else subscriber.removed(previous.getId());
+            }
+
+            viewers.clear();
+            if (previous != null) viewports.query(previous.getLatitude(), previous.getLongitude(), viewers);
+            if (current != null) viewports.query(current.getLatitude(), current.getLongitude(), viewers);
+            for (Subscriber viewer : viewers) {
+                if (viewer.needsKeyframe) continue;
+                boolean wasVisible = previous != null
+                        && viewports.covers(viewer, previous.getLatitude(), previous.getLongitude());
+                boolean visible = current != null
+                        && viewports.covers(viewer, current.getLatitude(), current.getLongitude());
+                if (visible) {
+                    // Vehicles entering the viewport are new to the client, so send every field
+                    viewer.changed(wasVisible ? change.delta() : full(current));
+                } else if (wasVisible) {
+                    viewer.removed(previous.getId());
+                }
+            }
+        }
+    }
+
+    private void flushSubscriber(Subscriber subscriber, long now, boolean keyframe, List<VehicleState> all) {
+        if ((keyframe || subscriber.needsKeyframe) && all != null) {
+            subscriber.pending.clear();
+            subscriber.removed.clear();
+            subscriber.needsKeyframe = false;
+            subscriber.lastSentAt = now;
+            // A keyframe replaces everything the client shows, so it needs no removals
+            sendToSession(subscriber, new FleetFrame(++subscriber.seq, now, true,
+                    fullFrame(all, subscriber.viewportScoped ? subscriber : null), null));
+            return;
+        }
+        if (subscriber.needsKeyframe) return; // subscribed mid-tick, gets its keyframe next tick
+
+        if (now - subscriber.lastSentAt < subscriber.minIntervalMs) return;
+        if (subscriber.pending.isEmpty() && subscriber.removed.isEmpty()) return;
+
+        FleetFrame frame = new FleetFrame(++subscriber.seq, now, false,
+                new ArrayList<>(subscriber.pending.values()), new ArrayList<>(subscriber.removed));
+        subscriber.pending.clear();
+        subscriber.removed.clear();
+        subscriber.lastSentAt = now;
+        sendToSession(subscriber, frame);
+    }
+
+    private List<FleetDelta> fullFrame(List<VehicleState> states, Subscriber viewer) {
+        List<FleetDelta> vehicles = new ArrayList<>(viewer == null ? states.size() : 16);
+        for (VehicleState state : states) {
+            if (viewer == null || viewports.covers(viewer, state.getLatitude(), state.getLongitude())) {
+                vehicles.add(full(state));
+            }
+        }
+        return vehicles;
+    }
+
+    private void send(FleetFrame frame) {
+        messagingTemplate.convertAndSend(FLEET_TOPIC, frame);
+        framesSent.incrementAndGet();
+    }
+
+    private void sendToSession(Subscriber subscriber, FleetFrame frame) {
+        // Addressed by session id so anonymous dashboard sessions can be throttled too
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(subscriber.sessionId);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(subscriber.sessionId, SESSION_DESTINATION, frame,
+                headers.getMessageHeaders());
+        framesSent.incrementAndGet();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (!SESSION_SUBSCRIPTION.equals(accessor.getDestination())) return;
+
+        long minIntervalMs = 0;
+        String maxRate = accessor.getFirstNativeHeader(MAX_RATE_HEADER);
+        if (maxRate != null) {
+            try {
+                double framesPerSecond = Double.parseDouble(maxRate);
+                if (framesPerSecond > 0) minIntervalMs = (long) (1000 / framesPerSecond);
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed {} header: {}", MAX_RATE_HEADER, maxRate);
+            }
+        }
+        Subscriber subscriber = new Subscriber(accessor.getSessionId(), accessor.getSubscriptionId(), minIntervalMs);
+
+        List<BoundingBox> viewport = null;
+        try {
+            viewport = parseViewport(accessor.getFirstNativeHeader(BBOX_HEADER), accessor.getFirstNativeHeader(TILES_HEADER));
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed viewport on subscription {}: {}", accessor.getSubscriptionId(), e.getMessage());
+        }
+        if (viewport != null) {
+            subscriber.viewportScoped = true;
+            viewports.put(subscriber, viewport);
+        }
+
+        Subscriber replaced = subscribers.put(accessor.getSessionId(), subscriber);
+        if (replaced != null) viewports.remove(replaced);
+    }
+
+    /**
+     * Moves the viewport of a session's fleet subscription, e.g. after the map was
+     * panned. The session receives a keyframe of the new viewport on the next tick.
+     *
+     * @return false when the session has no subscription on {@code /user/queue/fleet}
+     */
+    public boolean updateViewport(String sessionId, List<BoundingBox> viewport) {
+        Subscriber subscriber = subscribers.get(sessionId);
+        if (subscriber == null) return false;
+        if (viewport == null) {
+            subscriber.viewportScoped = false;
+            viewports.remove(subscriber);
+        } else {
+            viewports.put(subscriber, viewport);
+            subscriber.viewportScoped = true;
+        }
+        subscriber.needsKeyframe = true;
+        return true;
+    }
+
+    /**
+     * @param bbox  {@code "minLat,minLng,maxLat,maxLng"}
+     * @param tiles comma-separated {@code "z/x/y"} slippy-map tiles, at most {@link #MAX_VIEWPORT_TILES}
+     * @return null when neither is given, meaning the whole fleet
+     */
+    public static List<BoundingBox> parseViewport(String bbox, String tiles) {
+        if (bbox != null && !bbox.isBlank()) {
+            return BoundingBox.parse(bbox);
+        }
+        if (tiles != null && !tiles.isBlank()) {
+            String[] names = tiles.split(",");
+            if (names.length > MAX_VIEWPORT_TILES) {
+                throw new IllegalArgumentException(names.length + " tiles, at most " + MAX_VIEWPORT_TILES + " allowed");
+            }
+            List<BoundingBox> boxes = new ArrayList<>();
+            for (String tile : names) {
+                boxes.add(BoundingBox.ofTile(tile));
+            }
+            return boxes;
+        }
+        return null;
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Subscriber subscriber = subscribers.get(accessor.getSessionId());
+        if (subscriber != null && subscriber.subscriptionId.equals(accessor.getSubscriptionId())
+                && subscribers.remove(accessor.getSessionId(), subscriber)) {
+            viewports.remove(subscriber);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Subscriber subscriber = subscribers.remove(event.getSessionId());
+        if (subscriber != null) viewports.remove(subscriber);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sequence", sequence.get());
+        stats.put("framesSent", framesSent.get());
+        stats.put("sessionSubscribers", subscribers.size());
+        stats.put("viewportSubscribers", viewports.size());
+        return stats;
+    }
+
+    private static FleetDelta full(VehicleState state) {
+        return new FleetDelta(state.getId(), state.getLatitude(), state.getLongitude(), state.getSpeed(),
+                state.getStatus());
+    }
+
+    /**
+     * @return the changed fields, or null when nothing the frame carries has changed
+     */
+    static FleetDelta diff(VehicleState previous, VehicleState current) {
+        FleetDelta delta = new FleetDelta();
+        delta.setId(current.getId());
+        boolean changed = false;
+        if (previous.getLatitude() != current.getLatitude()) {
+            delta.setLat(current.getLatitude());
+            changed = true;
+        }
+        if (previous.getLongitude() != current.getLongitude()) {
+            delta.setLng(current.getLongitude());
+            changed = true;
+        }
+        if (previous.getSpeed() != current.getSpeed()) {
+            delta.setSpeed(current.getSpeed());
+            changed = true;
+        }
+        if (current.getStatus() != null && !current.getStatus().equals(previous.getStatus())) {
+            delta.setStatus(current.getStatus());
+            changed = true;
+        }
+        return changed ? delta : null;
+    }
+
+    private static FleetDelta copy(FleetDelta delta) {
+        return new FleetDelta(delta.getId(), delta.getLat(), delta.getLng(), delta.getSpeed(), delta.getStatus());
+    }
+}
@@ -0,0 +1,156 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.dto.FleetPlan;
+import com.nexuslogistics.dto.FleetRoute;
+import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.model.VehicleState;
+import com.nexuslogistics.repository.ShipmentRepository;
+import com.nexuslogistics.routing.CvrpProblem;
+import com.nexuslogistics.routing.CvrpSolution;
+import com.nexuslogistics.routing.CvrpSolver;
+import com.nexuslogistics.routing.SolverListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assigns every pending shipment to the available fleet in one capacitated VRP
+ * solve and proposes a stop order per vehicle. Vehicles start from their live
+ * positions, and route km come from the configured travel time provider. The plan is only returned; nothing is assigned in the database.
+ */
+@Service
+@Slf4j
+public class FleetDispatchService {
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nexus.routing.fleetBudgetMs:5000}")
+    private long fleetBudgetMs;
+
+    // Candidate neighbours per stop for the savings and relocate moves
+    @Value("${nexus.routing.neighbours:30}")
+    private int neighbours;
+
+    @Value("${nexus.routing.parallelism:0}")
+    private int parallelism; // 0 = one per available processor
+
+    @Value("${nexus.routing.dispatchableStatuses:ACTIVE,IDLE}")
+    private Set<String> dispatchableStatuses;
+
+    private ForkJoinPool pool;
+    private CvrpSolver solver;
+    private Timer planTimer;
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        solver = new CvrpSolver(neighbours, pool, distanceMatrixService.getProvider());
+        planTimer = Timer.builder("nexus.routing.optimize").tag("type", "fleet").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public FleetPlan planFleet() {
+        return plan(pendingShipments(), dispatchableVehicles(), SolverListener.none());
+    }
+
+    public List<Shipment> pendingShipments() {
+        return shipmentRepository.findByStatus("PENDING");
+    }
+
+    public List<VehicleState> dispatchableVehicles() {
+        List<VehicleState> vehicles = new ArrayList<>();
+        for (VehicleState vehicle : fleetStateRegistry.snapshot()) {
+            if (vehicle.getMaxCapacity() > 0 && dispatchableStatuses.contains(vehicle.getStatus())) {
+                vehicles.add(vehicle);
+            }
+        }
+        return vehicles;
+    }
+
+    /**
+     * @param listener gets each improved plan; its solve time is the time taken so far
+     */
+    public FleetPlan plan(List<Shipment> shipments, List<VehicleState> vehicles, SolverListener<FleetPlan> listener) {
+        long start = System.currentTimeMillis();
+        int n = shipments.size();
+        int m = vehicles.size();
+        double[] stopLats = new double[n];
+        double[] stopLngs = new double[n];
+        double[] demands = new double[n];
+        for (int i = 0; i < n; i++) {
+            stopLats[i] = shipments.get(i).getLatitude();
+            stopLngs[i] = shipments.get(i).getLongitude();
+            demands[i] = shipments.get(i).getWeightKg();
+        }
+        double[] vehicleLats = new double[m];
+        double[] vehicleLngs = new double[m];
+        double[] capacities = new double[m];
+        for (int v = 0; v < m; v++) {
+            vehicleLats[v] = vehicles.get(v).getLatitude();
+            vehicleLngs[v] = vehicles.get(v).getLongitude();
+            capacities[v] = vehicles.get(v).getMaxCapacity();
+        }
+
+        CvrpSolution solution = solver.solve(
+                new CvrpProblem(stopLats, stopLngs, demands, vehicleLats, vehicleLngs, capacities), fleetBudgetMs,
+                (phase, cost, partial) -> listener.onSolution(phase, cost,
+                        () -> toPlan(shipments, vehicles, partial.get(), System.currentTimeMillis() - start)));
+
+        long solveMs = System.currentTimeMillis() - start;
+        planTimer.record(solveMs, TimeUnit.MILLISECONDS);
+        FleetPlan plan = toPlan(shipments, vehicles, solution, solveMs);
+        log.info("Dispatched {} shipments to {} of {} vehicles in {} ms, {} unassigned",
+                n - plan.getUnassignedShipmentIds().size(), plan.getRoutes().size(), m, solveMs,
+                plan.getUnassignedShipmentIds().size());
+        return plan;
+    }
+
+    private static FleetPlan toPlan(List<Shipment> shipments, List<VehicleState> vehicles, CvrpSolution solution,
+                                    long solveMs) {
+        int m = vehicles.size();
+        List<FleetRoute> routes = new ArrayList<>();
+        for (int v = 0; v < m; v++) {
+            int[] stops = solution.getRoutes()[v];
+            if (stops.length == 0) continue;
+            List<Long> ids = new ArrayList<>(stops.length);
+            double load = 0;
+            for (int stop : stops) {
+                ids.add(shipments.get(stop).getId());
+                load += shipments.get(stop).getWeightKg();
+            }
+            VehicleState vehicle = vehicles.get(v);
+            routes.add(new FleetRoute(vehicle.getId(), vehicle.getVId(), ids, load,
+                    vehicle.getMaxCapacity(), solution.getRouteKm()[v]));
+        }
+        List<Long> unassigned = new ArrayList<>();
+        for (int stop : solution.getUnassigned()) {
+            unassigned.add(shipments.get(stop).getId());
+        }
+        return new FleetPlan(routes, unassigned, shipments.size(), m, solution.getTotalKm(), solveMs);
+    }
+}
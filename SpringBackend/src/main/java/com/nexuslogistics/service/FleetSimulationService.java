@@ -1,63 +1,244 @@
 package com.nexuslogistics.service;
 
-import com.nexuslogistics.model.Vehicle;
-import com.nexuslogistics.repository.VehicleRepository;
+import com.nexuslogistics.dto.TelemetryPing;
+import com.nexuslogistics.model.VehicleState;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Moves every "IN_TRANSIT" vehicle once per tick. Vehicles are partitioned by id
+ * across a worker pool; each worker advances its vehicles in memory through the
+ * telemetry pipeline, which updates the live registry, evaluates geofences and
+ * checkpoints positions to the database in batches. {@link FleetBroadcastService}
+ * pushes the changes to WebSocket clients.
+ * <p>
+ * {@code nexus.simulation.syntheticVehicles} adds that many in-memory vehicles with
+ * negative ids so the rest of the stack can be load-tested at realistic fleet sizes.
+ * They have no rows, so they move in the registry directly and never take a slot in
+ * the telemetry checkpoint buffer that real trackers depend on.
+ */
 @Service
+@Slf4j
 public class FleetSimulationService {
 
     @Autowired
-    private VehicleRepository vehicleRepository;
+    private FleetStateRegistry fleetStateRegistry;
 
     @Autowired
-    private com.nexuslogistics.repository.ShipmentRepository shipmentRepository;
+    private TelemetryIngestionService telemetryIngestionService;
 
     @Autowired
     private GeofencingService geofencingService;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private MeterRegistry meterRegistry;
 
-    private final Random random = new Random();
+    @Value("${nexus.simulation.enabled:true}")
+    private boolean enabled;
 
-    /**
-     * Every 5 seconds, simulate vehicle movement for all "IN_TRANSIT" vehicles
-     * and broadcast the update via WebSockets.
-     */
-    @Scheduled(fixedRate = 5000)
+    @Value("${nexus.simulation.workers:0}")
+    private int workers; // 0 = one per available processor
+
+    @Value("${nexus.simulation.tickMs:5000}")
+    private long tickMs;
+
+    @Value("${nexus.simulation.syntheticVehicles:0}")
+    private int syntheticVehicles;
+
+    private ExecutorService pool;
+    private int partitions;
+    private final AtomicBoolean ticking = new AtomicBoolean();
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong skippedTicks = new AtomicLong();
+    private final AtomicLong lastTickNanos = new AtomicLong();
+    private final AtomicLong maxTickNanos = new AtomicLong();
+    private final AtomicLong lastMoved = new AtomicLong();
+    private final LongAdder moved = new LongAdder();
+    private final LongAdder deferredCheckpoints = new LongAdder();
+    private Timer tickTimer;
+
+    @PostConstruct
+    public void init() {
+        partitions = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIds = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(partitions, runnable -> {
+            Thread thread = new Thread(runnable, "fleet-sim-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        tickTimer = Timer.builder("nexus.simulation.tick").register(meterRegistry);
+        Gauge.builder("nexus.simulation.tick.vehicles", lastMoved, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("nexus.simulation.overruns", overruns, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("nexus.simulation.skipped", skippedTicks, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("nexus.simulation.deferred.checkpoints", deferredCheckpoints, LongAdder::sum)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void spawnSyntheticVehicles() {
+        if (syntheticVehicles <= 0) return;
+        Random random = new Random(42);
+        for (int i = 1; i <= syntheticVehicles; i++) {
+            // Spread over the continental US
+            fleetStateRegistry.put(new VehicleState(-i, String.format("SIM-%05d", i), "SIM-" + i,
+                    "Simulated Truck", null, 25 + random.nextDouble() * 24, -124 + random.nextDouble() * 57,
+                    40 + random.nextDouble() * 40, 100, 0, null, null, "IN_TRANSIT", 20_000, 0, 0));
+        }
+        log.info("Spawned {} synthetic vehicles for the fleet simulation", syntheticVehicles);
+    }
+
+    @Scheduled(fixedRateString = "${nexus.simulation.tickMs:5000}")
     public void simulateMovement() {
-        List<Vehicle> vehicles = vehicleRepository.findAll();
-        
-        for (Vehicle vehicle : vehicles) {
-            if ("IN_TRANSIT".equals(vehicle.getStatus())) {
-                // Slight movement (approx 0.001 - 0.005 degrees)
-                double latDelta = (random.nextDouble() - 0.5) * 0.002;
-                double lngDelta = (random.nextDouble() - 0.5) * 0.002;
-                
-                vehicle.setLatitude(vehicle.getLatitude() + latDelta);
-                vehicle.setLongitude(vehicle.getLongitude() + lngDelta);
-                
-                // Slightly fluctuate speed
-                double speedDelta = (random.nextDouble() - 0.5) * 5;
-                vehicle.setSpeed(Math.max(40, Math.min(80, vehicle.getSpeed() + speedDelta)));
-                
-                vehicleRepository.save(vehicle);
-                
-                // Perform Geofence checks for assigned shipments
-                shipmentRepository.findByAssignedVehicleId(vehicle.getId()).forEach(shipment -> {
-                    geofencingService.evaluateShipmentGeofence(vehicle, shipment);
-                });
-                
-                // Broadcast to WebSockets
-                messagingTemplate.convertAndSend("/topic/fleet", vehicle);
+        if (!enabled) return;
+        if (!ticking.compareAndSet(false, true)) {
+            skippedTicks.incrementAndGet();
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            int movedThisTick = advanceAll(partition(fleetStateRegistry.snapshot()));
+            long elapsed = System.nanoTime() - start;
+
+            ticks.incrementAndGet();
+            tickTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            lastTickNanos.set(elapsed);
+            maxTickNanos.accumulateAndGet(elapsed, Math::max);
+            lastMoved.set(movedThisTick);
+            moved.add(movedThisTick);
+            if (elapsed > TimeUnit.MILLISECONDS.toNanos(tickMs)) {
+                overruns.incrementAndGet();
+                log.warn("Simulation tick took {} ms for {} vehicles, over the {} ms interval",
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), movedThisTick, tickMs);
             }
+        } finally {
+            ticking.set(false);
+        }
+    }
+
+    // Stable assignment by id, so a vehicle is always advanced by the same worker
+    private List<List<VehicleState>> partition(List<VehicleState> vehicles) {
+        List<List<VehicleState>> buckets = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            buckets.add(new ArrayList<>(vehicles.size() / partitions + 1));
+        }
+        for (VehicleState vehicle : vehicles) {
+            buckets.get((int) Math.floorMod(vehicle.getId(), (long) partitions)).add(vehicle);
         }
+        return buckets;
+    }
+
+    private int advanceAll(List<List<VehicleState>> buckets) {
+        List<Callable<Integer>> tasks = new ArrayList<>(buckets.size());
+        for (List<VehicleState> bucket : buckets) {
+            if (!bucket.isEmpty()) tasks.add(() -> advance(bucket));
+        }
+
+        int total = 0;
+        try {
+            for (Future<Integer> result : pool.invokeAll(tasks)) {
+                total += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Simulation worker failed", e.getCause());
+        }
+        return total;
+    }
+
+    private int advance(List<VehicleState> vehicles) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int count = 0;
+        for (VehicleState vehicle : vehicles) {
+            if (!"IN_TRANSIT".equals(vehicle.getStatus())) continue;
+
+            // Slight movement (approx 0.001 - 0.005 degrees)
+            double latDelta = (random.nextDouble() - 0.5) * 0.002;
+            double lngDelta = (random.nextDouble() - 0.5) * 0.002;
+
+            // Slightly fluctuate speed
+            double speedDelta = (random.nextDouble() - 0.5) * 5;
+
+            double latitude = vehicle.getLatitude() + latDelta;
+            double longitude = vehicle.getLongitude() + lngDelta;
+            double speed = Math.max(40, Math.min(80, vehicle.getSpeed() + speedDelta));
+
+            if (vehicle.getId() < 0) {
+                // Synthetic: live state and geofences only, there is nothing to checkpoint
+                VehicleState state = fleetStateRegistry.updatePosition(vehicle.getId(), latitude, longitude, speed);
+                if (state != null) geofencingService.evaluate(state);
+                count++;
+                continue;
+            }
+
+            TelemetryIngestionService.OfferResult result = telemetryIngestionService.offer(TelemetryPing.builder()
+                    .vehicleId(vehicle.getId())
+                    .latitude(latitude)
+                    .longitude(longitude)
+                    .speed(speed)
+                    .build());
+            if (result == TelemetryIngestionService.OfferResult.QUEUE_FULL) {
+                // Not applied; the vehicle moves again on a later tick
+                deferredCheckpoints.increment();
+                continue;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    public Map<String, Object> getStats() {
+        long lastNanos = lastTickNanos.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("workers", partitions);
+        stats.put("tickMs", tickMs);
+        stats.put("syntheticVehicles", syntheticVehicles);
+        stats.put("ticks", ticks.get());
+        stats.put("overruns", overruns.get());
+        stats.put("skippedTicks", skippedTicks.get());
+        stats.put("lastTickMs", TimeUnit.NANOSECONDS.toMillis(lastNanos));
+        stats.put("maxTickMs", TimeUnit.NANOSECONDS.toMillis(maxTickNanos.get()));
+        stats.put("lastTickVehicles", lastMoved.get());
+        stats.put("vehiclesPerSecond", lastNanos > 0 ? Math.round(lastMoved.get() * 1e9 / lastNanos) : 0);
+        stats.put("movedTotal", moved.sum());
+        stats.put("deferredCheckpoints", deferredCheckpoints.sum());
+        return stats;
     }
 }
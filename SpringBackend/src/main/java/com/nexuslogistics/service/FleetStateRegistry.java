@@ -0,0 +1,95 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.model.Vehicle;
+import com.nexuslogistics.model.VehicleState;
+import com.nexuslogistics.repository.VehicleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live fleet state, keyed by vehicle id. Positions are updated here first by
+ * telemetry and the simulator and reach the database later through the
+ * write-behind checkpoint in {@link TelemetryIngestionService}.
+ */
+@Service
+@Slf4j
+public class FleetStateRegistry {
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    // One reference per vehicle so position updates are a CAS on that vehicle only
+    private final ConcurrentHashMap<Long, AtomicReference<VehicleState>> states = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Vehicle> vehicles = vehicleRepository.findAll();
+        vehicles.forEach(this::put);
+        loaded = true;
+        log.info("Fleet state registry loaded {} vehicles", vehicles.size());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void put(Vehicle vehicle) {
+        VehicleState state = VehicleState.of(vehicle, sequence.incrementAndGet());
+        states.computeIfAbsent(vehicle.getId(), id -> new AtomicReference<>()).set(state);
+    }
+
+    /**
+     * Registers a vehicle that has no database row, e.g. a synthetic load-test vehicle.
+     */
+    public void put(VehicleState state) {
+        VehicleState stamped = state.withPosition(state.getLatitude(), state.getLongitude(), state.getSpeed(),
+                sequence.incrementAndGet(), System.currentTimeMillis());
+        states.computeIfAbsent(state.getId(), id -> new AtomicReference<>()).set(stamped);
+    }
+
+    public void remove(Long vehicleId) {
+        states.remove(vehicleId);
+    }
+
+    public VehicleState get(Long vehicleId) {
+        AtomicReference<VehicleState> ref = states.get(vehicleId);
+        return ref != null ? ref.get() : null;
+    }
+
+    public List<VehicleState> snapshot() {
+        List<VehicleState> snapshot = new ArrayList<>(states.size());
+        for (AtomicReference<VehicleState> ref : states.values()) {
+            snapshot.add(ref.get());
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the new state, or null when the vehicle is not known to the registry
+     */
+    public VehicleState updatePosition(Long vehicleId, double latitude, double longitude, double speed) {
+        AtomicReference<VehicleState> ref = states.get(vehicleId);
+        if (ref == null) return null;
+        long now = System.currentTimeMillis();
+        return ref.updateAndGet(state -> state.withPosition(latitude, longitude, speed, sequence.incrementAndGet(), now));
+    }
+
+    public long currentVersion() {
+        return sequence.get();
+    }
+
+    public int size() {
+        return states.size();
+    }
+}
@@ -1,13 +1,33 @@
 package com.nexuslogistics.service;
 
+import com.nexuslogistics.geo.GeoFence;
+import com.nexuslogistics.geo.GeofenceEvent;
+import com.nexuslogistics.geo.GeofenceIndex;
+import com.nexuslogistics.geo.GeofenceStateTracker;
 import com.nexuslogistics.model.Shipment;
-import com.nexuslogistics.model.Vehicle;
+import com.nexuslogistics.model.VehicleState;
+import com.nexuslogistics.repository.ShipmentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Slf4j
@@ -16,48 +36,172 @@ public class GeofencingService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     // Radius in meters to trigger an arrival event
     private static final double ARRIVAL_THRESHOLD_METERS = 800.0;
 
-    // Track active geofence breaches to avoid duplicates
-    private final Set<String> activeAlerts = new HashSet<>();
+    @Value("${nexus.geofence.cellDegrees:0.01}")
+    private double cellDegrees;
+
+    @Value("${nexus.geofence.enterConfirmations:1}")
+    private int enterConfirmations;
+
+    @Value("${nexus.geofence.exitConfirmations:2}")
+    private int exitConfirmations;
+
+    // Circles must be left by this much beyond the radius before an exit counts
+    @Value("${nexus.geofence.exitMarginMeters:100}")
+    private double exitMarginMeters;
+
+    @Value("${nexus.geofence.dwellMs:300000}")
+    private long dwellMs;
+
+    @Value("${nexus.geofence.visitTtlMs:1800000}")
+    private long visitTtlMs;
+
+    @Value("${nexus.geofence.maxVisits:500000}")
+    private int maxVisits;
 
-    public void evaluateShipmentGeofence(Vehicle vehicle, Shipment shipment) {
-        if (shipment == null || !"IN_TRANSIT".equals(shipment.getStatus())) return;
+    private GeofenceIndex index;
+    private GeofenceStateTracker tracker;
+    private final AtomicLong adHocFenceIds = new AtomicLong();
+    private Timer evaluateTimer;
+    private Timer pairTimer;
 
-        double distance = calculateDistanceInMeters(
-            vehicle.getLatitude(), vehicle.getLongitude(), 
-            shipment.getLatitude(), shipment.getLongitude()
-        );
+    @PostConstruct
+    public void init() {
+        index = new GeofenceIndex(cellDegrees);
+        tracker = new GeofenceStateTracker(enterConfirmations, exitConfirmations, exitMarginMeters, dwellMs, maxVisits);
 
-        String alertKey = vehicle.getVId() + ":" + shipment.getSId();
+        evaluateTimer = Timer.builder("nexus.geofence.evaluate").tag("scope", "index").register(meterRegistry);
+        pairTimer = Timer.builder("nexus.geofence.evaluate").tag("scope", "shipment").register(meterRegistry);
+        Gauge.builder("nexus.geofence.fences", index, GeofenceIndex::size).register(meterRegistry);
+        Gauge.builder("nexus.geofence.visits", tracker, GeofenceStateTracker::getVisitCount).register(meterRegistry);
+    }
+
+    /**
+     * Tests a position update against the fences in its grid cell only and advances
+     * the vehicle's fence states, publishing ENTER, DWELL and EXIT events.
+     */
+    public void evaluate(VehicleState vehicle) {
+        long start = System.nanoTime();
+        List<GeoFence> hits = new ArrayList<>(2);
+        index.query(vehicle.getLatitude(), vehicle.getLongitude(), vehicle.getId(), hits);
+
+        publish(vehicle, tracker.update(vehicle.getId(), vehicle.getLatitude(), vehicle.getLongitude(),
+                hits, index::get, System.currentTimeMillis()));
+        evaluateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Checks a single vehicle/shipment pair. Kept for callers that already hold both
+     * objects; position updates go through {@link #evaluate(VehicleState)}.
+     */
+    public void evaluateShipmentGeofence(VehicleState vehicle, Shipment shipment) {
+        if (shipment == null || shipment.getId() == null || !"IN_TRANSIT".equals(shipment.getStatus())) return;
 
-        if (distance <= ARRIVAL_THRESHOLD_METERS) {
-            if (!activeAlerts.contains(alertKey)) {
-                log.info("GEOFENCE TRIGGER: Vehicle {} is nearing destination for Shipment {}", 
-                        vehicle.getVId(), shipment.getSId());
-                
+        long start = System.nanoTime();
+        GeoFence fence = index.get(shipment.getId());
+        if (fence == null) {
+            fence = GeoFence.circle(shipment.getId(), vehicle.getId(), shipment.getDestination(),
+                    shipment.getLatitude(), shipment.getLongitude(), ARRIVAL_THRESHOLD_METERS);
+        }
+        publish(vehicle, tracker.observe(vehicle.getId(), fence,
+                vehicle.getLatitude(), vehicle.getLongitude(), System.currentTimeMillis()));
+        pairTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void publish(VehicleState vehicle, List<GeofenceEvent> events) {
+        for (GeofenceEvent event : events) {
+            log.info("GEOFENCE {}: Vehicle {} fence {}", event.getType(), vehicle.getVId(), event.getFenceLabel());
+            notificationService.sendGeofenceEvent(vehicle.getVId(), event);
+
+            if (event.getType() == GeofenceEvent.Type.ENTER && event.getFenceId() > 0) {
                 notificationService.broadcastSystemUpdate(
-                    String.format("Vehicle %s is within 800m of destination %s", 
-                        vehicle.getVId(), shipment.getDestination())
+                    String.format("Vehicle %s is within 800m of destination %s",
+                        vehicle.getVId(), event.getFenceLabel())
                 );
-                
-                activeAlerts.add(alertKey);
             }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${nexus.geofence.sweepMs:60000}")
+    public void evictIdleVisits() {
+        int evicted = tracker.evictIdle(System.currentTimeMillis() - visitTtlMs);
+        if (evicted > 0) {
+            log.debug("Evicted {} idle geofence visits", evicted);
+        }
+    }
+
+    /**
+     * Keeps the destination fence of a shipment in step with its status: only
+     * assigned, in-transit shipments have one.
+     */
+    public void onShipmentChanged(Shipment shipment) {
+        if (shipment.getId() == null) return;
+        if ("IN_TRANSIT".equals(shipment.getStatus()) && shipment.getAssignedVehicle() != null) {
+            index.put(GeoFence.circle(shipment.getId(), shipment.getAssignedVehicle().getId(),
+                    shipment.getDestination(), shipment.getLatitude(), shipment.getLongitude(),
+                    ARRIVAL_THRESHOLD_METERS));
         } else {
-            // Vehicle moved away or hasn't arrived yet
-            activeAlerts.remove(alertKey);
+            removeAndEvict(shipment.getId());
+        }
+    }
+
+    // Picks up shipments changed outside ShipmentService, e.g. by direct SQL or another node
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${nexus.geofence.refreshMs:60000}", initialDelayString = "${nexus.geofence.refreshMs:60000}")
+    public void refreshShipmentFences() {
+        Set<Long> active = new HashSet<>();
+        for (Shipment shipment : shipmentRepository.findByStatus("IN_TRANSIT")) {
+            onShipmentChanged(shipment);
+            active.add(shipment.getId());
+        }
+        for (GeoFence fence : index.all()) {
+            if (fence.getId() > 0 && !active.contains(fence.getId())) {
+                removeAndEvict(fence.getId());
+            }
         }
+        log.debug("Geofence index holds {} fences", index.size());
+    }
+
+    public GeoFence addCircleFence(String label, long vehicleId, double lat, double lng, double radiusMeters) {
+        GeoFence fence = GeoFence.circle(-adHocFenceIds.incrementAndGet(), vehicleId, label, lat, lng, radiusMeters);
+        index.put(fence);
+        return fence;
+    }
+
+    public GeoFence addPolygonFence(String label, long vehicleId, double[] lats, double[] lngs) {
+        GeoFence fence = GeoFence.polygon(-adHocFenceIds.incrementAndGet(), vehicleId, label, lats, lngs);
+        index.put(fence);
+        return fence;
+    }
+
+    public boolean removeFence(long fenceId) {
+        return removeAndEvict(fenceId);
+    }
+
+    public Collection<GeoFence> getFences() {
+        return index.all();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fences", index.size());
+        stats.put("openVisits", tracker.getVisitCount());
+        stats.put("trackedVehicles", tracker.getTrackedVehicles());
+        return stats;
     }
 
-    private double calculateDistanceInMeters(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Earth radius in km
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c * 1000.0;
+    private boolean removeAndEvict(long fenceId) {
+        GeoFence removed = index.remove(fenceId);
+        if (removed == null) return false;
+        tracker.evictFence(fenceId, removed.getVehicleId());
+        return true;
     }
 }
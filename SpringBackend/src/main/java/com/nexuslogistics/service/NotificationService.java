@@ -1,5 +1,7 @@
 package com.nexuslogistics.service;
 
+import com.nexuslogistics.dto.OptimizationJobView;
+import com.nexuslogistics.geo.GeofenceEvent;
 import com.nexuslogistics.model.Shipment;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,4 +40,31 @@ public class NotificationService {
         // Simulating other channels (Industry Level usually has real integrations here)
         log.info("[SMS/EMAIL SYNC] Notified {} about shipment {}", shipment.getRecipientName(), shipment.getSId());
     }
+
+    public void broadcastSystemUpdate(String message) {
+        log.info("Broadcasting system update: {}", message);
+
+        Map<String, Object> payload = Map.of(
+            "message", message,
+            "timestamp", LocalDateTime.now()
+        );
+        messagingTemplate.convertAndSend("/topic/system", payload);
+    }
+
+    public void sendGeofenceEvent(String vehicleDisplayId, GeofenceEvent event) {
+        Map<String, Object> payload = Map.of(
+            "type", event.getType().name(),
+            "vehicleId", event.getVehicleId(),
+            "vehicle", vehicleDisplayId != null ? vehicleDisplayId : String.valueOf(event.getVehicleId()),
+            "fenceId", event.getFenceId(),
+            "fence", event.getFenceLabel() != null ? event.getFenceLabel() : "",
+            "insideForMs", event.getInsideForMs(),
+            "timestamp", event.getTimestamp()
+        );
+        messagingTemplate.convertAndSend("/topic/geofence", payload);
+    }
+
+    public void sendJobUpdate(OptimizationJobView job) {
+        messagingTemplate.convertAndSend("/topic/jobs/" + job.getId(), job);
+    }
 }
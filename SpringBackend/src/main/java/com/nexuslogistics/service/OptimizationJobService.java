@@ -0,0 +1,385 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.dto.OptimizationJobRequest;
+import com.nexuslogistics.dto.OptimizationJobView;
+import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.model.Vehicle;
+import com.nexuslogistics.model.VehicleState;
+import com.nexuslogistics.repository.ShipmentRepository;
+import com.nexuslogistics.repository.VehicleRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs route optimizations as background jobs instead of on servlet threads.
+ * <p>
+ * Inputs are read when a job is submitted. If an earlier job saw exactly the same
+ * inputs its result is returned straight away; otherwise the job is queued on a
+ * bounded pool. Each tenant (the submitting user) may have a limited number of jobs
+ * queued or running. Status changes are pushed to "/topic/jobs/{id}", and so are
+ * improved solutions, at most one per progress interval. Cancelling a running job
+ * stops the solver at its next phase and keeps the best solution found so far.
+ */
+@Service
+@Slf4j
+public class OptimizationJobService {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    @Autowired
+    private RouteOptimizationService routeOptimizationService;
+
+    @Autowired
+    private FleetDispatchService fleetDispatchService;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nexus.jobs.workers:2}")
+    private int workers;
+
+    @Value("${nexus.jobs.queueCapacity:100}")
+    private int queueCapacity;
+
+    @Value("${nexus.jobs.perTenantLimit:2}")
+    private int perTenantLimit;
+
+    // Finished jobs stay pollable this long
+    @Value("${nexus.jobs.retainMs:3600000}")
+    private long retainMs;
+
+    @Value("${nexus.jobs.resultCacheSize:100}")
+    private int resultCacheSize;
+
+    // Improved solutions are pushed at most this often; the final one always is
+    @Value("${nexus.jobs.progressIntervalMs:500}")
+    private long progressIntervalMs;
+
+    private ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> activeByTenant = new ConcurrentHashMap<>();
+    private Map<String, Object> resultCache;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIds = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "optimization-job-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        resultCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > resultCacheSize;
+            }
+        };
+
+        Gauge.builder("nexus.jobs.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("nexus.jobs.running", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        FunctionCounter.builder("nexus.jobs.completed", executor, ThreadPoolExecutor::getCompletedTaskCount)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @throws IllegalArgumentException   for an unknown type or a missing vehicle id
+     * @throws NoSuchElementException     when the vehicle does not exist
+     * @throws IllegalStateException      when the tenant already has its maximum of active jobs
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public OptimizationJobView submit(String tenant, OptimizationJobRequest request) {
+        String type = request.getType().toUpperCase();
+        Function<Job, Object> work;
+        String fingerprint;
+        switch (type) {
+            case "ROUTE", "TIMED_ROUTE" -> {
+                if (request.getVehicleId() == null) {
+                    throw new IllegalArgumentException("A " + type + " job needs a vehicleId");
+                }
+                VehicleState vehicle = resolveVehicle(request.getVehicleId());
+                List<Shipment> shipments = shipmentRepository.findByAssignedVehicleId(vehicle.getId());
+                if ("ROUTE".equals(type)) {
+                    fingerprint = fingerprint(type, shipments, List.of(vehicle));
+                    work = job -> routeOptimizationService.optimizeRoute(vehicle.getLatitude(),
+                            vehicle.getLongitude(), shipments, vehicle.getMaxCapacity(), job::progress);
+                } else {
+                    // Arrival times depend on the departure, so results only carry over within a minute
+                    LocalDateTime departure = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+                    fingerprint = fingerprint(type + ":" + departure, shipments, List.of(vehicle));
+                    work = job -> routeOptimizationService.optimizeRouteWithTimeWindows(vehicle.getLatitude(),
+                            vehicle.getLongitude(), shipments, vehicle.getMaxCapacity(), departure, job::progress);
+                }
+            }
+            case "FLEET" -> {
+                List<Shipment> shipments = fleetDispatchService.pendingShipments();
+                List<VehicleState> vehicles = fleetDispatchService.dispatchableVehicles();
+                fingerprint = fingerprint(type, shipments, vehicles);
+                work = job -> fleetDispatchService.plan(shipments, vehicles, job::progress);
+            }
+            default -> throw new IllegalArgumentException("Unknown job type " + request.getType());
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), tenant, type, request.getVehicleId(), fingerprint);
+        if (answerFromCache(job)) return job.view(true);
+        return enqueue(job, work);
+    }
+
+    public Optional<OptimizationJobView> get(String tenant, String id) {
+        Job job = jobs.get(id);
+        if (job == null || !job.tenant.equals(tenant)) return Optional.empty();
+        return Optional.of(job.view(true));
+    }
+
+    public List<OptimizationJobView> list(String tenant) {
+        List<OptimizationJobView> views = new ArrayList<>();
+        jobs.values().stream()
+                .filter(job -> job.tenant.equals(tenant))
+                .sorted(Comparator.comparing((Job job) -> job.submittedAt).reversed())
+                .forEach(job -> views.add(job.view(false)));
+        return views;
+    }
+
+    /**
+     * Cancels a queued job outright; a running job is asked to stop at its next checkpoint.
+     */
+    public Optional<OptimizationJobView> cancel(String tenant, String id) {
+        Job job = jobs.get(id);
+        if (job == null || !job.tenant.equals(tenant)) return Optional.empty();
+        if (job.status.compareAndSet(Status.QUEUED, Status.CANCELLED)) {
+            Future<?> future = job.future;
+            if (future != null) future.cancel(false); // null if it is being submitted right now
+            executor.purge();
+            job.finishedAt = LocalDateTime.now();
+            release(job);
+            publish(job);
+        } else {
+            job.cancelRequested = true;
+        }
+        return Optional.of(job.view(false));
+    }
+
+    @Scheduled(fixedDelayString = "${nexus.jobs.sweepMs:60000}")
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retainMs, ChronoUnit.MILLIS);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", executor.getQueue().size());
+        stats.put("running", executor.getActiveCount());
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("retainedJobs", jobs.size());
+        synchronized (resultCache) {
+            stats.put("cachedResults", resultCache.size());
+        }
+        return stats;
+    }
+
+    private boolean answerFromCache(Job job) {
+        Object cached;
+        synchronized (resultCache) {
+            cached = resultCache.get(job.fingerprint);
+        }
+        if (cached == null) return false;
+        job.cached = true;
+        job.result = cached;
+        job.startedAt = job.finishedAt = LocalDateTime.now();
+        job.status.set(Status.COMPLETED);
+        jobs.put(job.id, job);
+        return true;
+    }
+
+    private OptimizationJobView enqueue(Job job, Function<Job, Object> work) {
+        AtomicInteger active = activeByTenant.computeIfAbsent(job.tenant, t -> new AtomicInteger());
+        if (active.incrementAndGet() > perTenantLimit) {
+            active.decrementAndGet();
+            throw new IllegalStateException("At most " + perTenantLimit + " optimization jobs may run at once");
+        }
+        jobs.put(job.id, job);
+        try {
+            job.future = executor.submit(() -> run(job, work));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            active.decrementAndGet();
+            throw e;
+        }
+        publish(job);
+        return job.view(false);
+    }
+
+    private void run(Job job, Function<Job, Object> work) {
+        if (!job.status.compareAndSet(Status.QUEUED, Status.RUNNING)) return; // cancelled while queued
+        job.startedAt = LocalDateTime.now();
+        publish(job);
+        try {
+            Object result = work.apply(job);
+            job.result = result;
+            if (job.cancelRequested) {
+                job.status.set(Status.CANCELLED);
+            } else {
+                synchronized (resultCache) {
+                    resultCache.put(job.fingerprint, result);
+                }
+                job.status.set(Status.COMPLETED);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Optimization job {} failed", job.id, e);
+            job.result = null; // drop any partial solution
+            job.error = e.getMessage();
+            job.status.set(Status.FAILED);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            release(job);
+            publish(job);
+        }
+    }
+
+    private void release(Job job) {
+        AtomicInteger active = activeByTenant.get(job.tenant);
+        if (active != null) active.decrementAndGet();
+    }
+
+    private void publish(Job job) {
+        notificationService.sendJobUpdate(job.view(true));
+    }
+
+    private VehicleState resolveVehicle(long vehicleId) {
+        VehicleState vehicle = fleetStateRegistry.get(vehicleId);
+        if (vehicle != null) return vehicle;
+        Vehicle entity = vehicleRepository.findById(vehicleId)
+                .orElseThrow(() -> new NoSuchElementException("Vehicle not found"));
+        return VehicleState.of(entity, 0);
+    }
+
+    // SHA-256 of everything the solvers read, so equal fingerprints mean equal inputs
+    private static String fingerprint(String prefix, List<Shipment> shipments, List<VehicleState> vehicles) {
+        StringBuilder inputs = new StringBuilder();
+        for (Shipment shipment : shipments) {
+            inputs.append(shipment.getId()).append('@').append(shipment.getLatitude()).append(',')
+                    .append(shipment.getLongitude()).append('/').append(shipment.getWeightKg()).append('/')
+                    .append(shipment.getEstimatedDeliveryTime()).append(';');
+        }
+        inputs.append('|');
+        for (VehicleState vehicle : vehicles) {
+            inputs.append(vehicle.getId()).append('@').append(vehicle.getLatitude()).append(',')
+                    .append(vehicle.getLongitude()).append('/').append(vehicle.getMaxCapacity()).append(';');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(inputs.toString().getBytes(StandardCharsets.UTF_8));
+            return prefix + ":" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM ships SHA-256
+        }
+    }
+
+    private final class Job {
+        final String id;
+        final String tenant;
+        final String type;
+        final Long vehicleId;
+        final String fingerprint;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final AtomicReference<Status> status = new AtomicReference<>(Status.QUEUED);
+        volatile Future<?> future;
+        volatile boolean cancelRequested;
+        volatile boolean cached;
+        volatile String phase;
+        volatile Double bestCost;
+        volatile long lastProgressAt;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile Object result;
+        volatile String error;
+
+        Job(String id, String tenant, String type, Long vehicleId, String fingerprint) {
+            this.id = id;
+            this.tenant = tenant;
+            this.type = type;
+            this.vehicleId = vehicleId;
+            this.fingerprint = fingerprint;
+        }
+
+        // Solver callback: records the improvement, pushes it with its solution when the
+        // progress interval has passed, and says whether to go on
+        <S> boolean progress(String phase, double cost, Supplier<S> solution) {
+            this.phase = phase;
+            this.bestCost = cost;
+            long now = System.currentTimeMillis();
+            if (now - lastProgressAt >= progressIntervalMs) {
+                lastProgressAt = now;
+                result = solution.get();
+                publish(this);
+            }
+            return !cancelRequested;
+        }
+
+        OptimizationJobView view(boolean withResult) {
+            return OptimizationJobView.builder()
+                    .id(id)
+                    .type(type)
+                    .vehicleId(vehicleId)
+                    .status(status.get().name())
+                    .phase(phase)
+                    .bestCost(bestCost)
+                    .cached(cached)
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .result(withResult ? result : null)
+                    .build();
+        }
+    }
+}
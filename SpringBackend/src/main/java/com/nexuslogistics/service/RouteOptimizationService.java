@@ -1,73 +1,251 @@
 package com.nexuslogistics.service;
 
+import com.nexuslogistics.dto.TimedRoute;
+import com.nexuslogistics.dto.TimedStop;
 import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.routing.DistanceMatrix;
+import com.nexuslogistics.routing.LocalSearch;
+import com.nexuslogistics.routing.SolverListener;
+import com.nexuslogistics.routing.TimeWindowSearch;
+import com.nexuslogistics.routing.TimeWindows;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @lombok.extern.slf4j.Slf4j
 @Service
 public class RouteOptimizationService {
 
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Time the 2-opt / Or-opt stage may spend shortening a route
+    @Value("${nexus.routing.improvementBudgetMs:50}")
+    private long improvementBudgetMs;
+
+    @Value("${nexus.routing.averageSpeedKmh:40}")
+    private double averageSpeedKmh;
+
+    @Value("${nexus.routing.serviceMinutes:10}")
+    private double serviceMinutes;
+
+    // When positive, a stop is not served earlier than this long before its estimated delivery time
+    @Value("${nexus.routing.windowMinutes:0}")
+    private double windowMinutes;
+
+    // Extra km one minute of lateness is worth; large values put punctuality before distance
+    @Value("${nexus.routing.latenessPenaltyKmPerMinute:100}")
+    private double latenessPenaltyKmPerMinute;
+
+    private Timer routeTimer;
+    private Timer timedRouteTimer;
+
+    @PostConstruct
+    public void init() {
+        routeTimer = Timer.builder("nexus.routing.optimize").tag("type", "route").register(meterRegistry);
+        timedRouteTimer = Timer.builder("nexus.routing.optimize").tag("type", "timed_route").register(meterRegistry);
+    }
+
     /**
-     * Capacity-Constrained Route Optimization (Greedy Heuristic).
-     * Orders shipments based on proximity and vehicle capacity constraints.
+     * Capacity-Constrained Route Optimization.
+     * Picks and orders shipments greedily by proximity within the vehicle capacity,
+     * then shortens the order with 2-opt and Or-opt moves until no move helps or the
+     * improvement budget is spent.
      */
     public List<Shipment> optimizeRoute(double startLat, double startLng, List<Shipment> shipments, double maxCapacity) {
+        return optimizeRoute(startLat, startLng, shipments, maxCapacity, SolverListener.none());
+    }
+
+    /**
+     * As {@link #optimizeRoute(double, double, List, double)}, reporting the greedy and the
+     * improved route; the listener can stop it before the improvement stage.
+     */
+    public List<Shipment> optimizeRoute(double startLat, double startLng, List<Shipment> shipments, double maxCapacity,
+                                        SolverListener<List<Shipment>> listener) {
         if (shipments == null || shipments.isEmpty()) {
             return new ArrayList<>();
         }
 
-        List<Shipment> unvisited = new ArrayList<>(shipments);
-        List<Shipment> optimizedPath = new ArrayList<>();
+        long start = System.nanoTime();
+        int n = shipments.size();
+        DistanceMatrix matrix = distances(startLat, startLng, shipments);
 
-        double currentLat = startLat;
-        double currentLng = startLng;
+        int[] greedy = nearestNeighbour(matrix, shipments, maxCapacity);
+        if (greedy.length < n) {
+            log.warn("Vehicle capacity {} kg leaves {} of {} shipments off the route; use the fleet plan to place them",
+                    maxCapacity, n - greedy.length, n);
+        }
+        if (!listener.onSolution("construction", matrix.pathLength(greedy), () -> path(shipments, greedy))) {
+            return path(shipments, greedy);
+        }
+        // Reordering the same stops keeps the load unchanged, so the capacity still holds
+        int[] improved = LocalSearch.improve(matrix, greedy,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(improvementBudgetMs));
+        if (log.isDebugEnabled()) {
+            log.debug("Route of {} stops: greedy {} km, improved {} km", improved.length,
+                    String.format("%.1f", matrix.pathLength(greedy)), String.format("%.1f", matrix.pathLength(improved)));
+        }
+
+        List<Shipment> optimizedPath = path(shipments, improved);
+        routeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        listener.onSolution("final", matrix.pathLength(improved), () -> optimizedPath);
+        return optimizedPath;
+    }
+
+    /**
+     * Time-window aware variant: each stop should be reached by its estimated delivery
+     * time, given the average speed and a fixed service time per stop. The order
+     * minimises lateness first and distance second, and the expected arrival and
+     * lateness of every stop are reported. Shipments beyond the vehicle capacity are
+     * listed as unassigned.
+     */
+    public TimedRoute optimizeRouteWithTimeWindows(double startLat, double startLng, List<Shipment> shipments,
+                                                   double maxCapacity, LocalDateTime departure) {
+        return optimizeRouteWithTimeWindows(startLat, startLng, shipments, maxCapacity, departure, SolverListener.none());
+    }
+
+    /**
+     * As {@link #optimizeRouteWithTimeWindows(double, double, List, double, LocalDateTime)}, reporting
+     * the starting and the improved route; the listener can stop it before the improvement stage.
+     */
+    public TimedRoute optimizeRouteWithTimeWindows(double startLat, double startLng, List<Shipment> shipments,
+                                                   double maxCapacity, LocalDateTime departure,
+                                                   SolverListener<TimedRoute> listener) {
+        if (shipments == null || shipments.isEmpty()) {
+            return new TimedRoute(departure, new ArrayList<>(), new ArrayList<>(), 0, 0, 0);
+        }
+
+        long startNanos = System.nanoTime();
+        int n = shipments.size();
+        DistanceMatrix matrix = distances(startLat, startLng, shipments);
+        double[] earliest = new double[n + 1];
+        double[] latest = new double[n + 1];
+        double[] service = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            LocalDateTime due = shipments.get(i).getEstimatedDeliveryTime();
+            latest[i + 1] = due != null ? minutesAfter(departure, due) : Double.MAX_VALUE / 4;
+            earliest[i + 1] = due != null && windowMinutes > 0 ? latest[i + 1] - windowMinutes : 0;
+            service[i + 1] = serviceMinutes;
+        }
+        TimeWindows windows = new TimeWindows(matrix, averageSpeedKmh, earliest, latest, service);
+
+        // Same stops as the distance-only route, started from whichever of nearest-first or
+        // earliest-deadline-first is cheaper
+        int[] nearest = nearestNeighbour(matrix, shipments, maxCapacity);
+        int[] byDeadline = Arrays.stream(nearest).boxed()
+                .sorted(Comparator.comparingDouble(node -> latest[node]))
+                .mapToInt(Integer::intValue).toArray();
+        int[] start = TimeWindowSearch.cost(windows, byDeadline, latenessPenaltyKmPerMinute)
+                < TimeWindowSearch.cost(windows, nearest, latenessPenaltyKmPerMinute) ? byDeadline : nearest;
+        if (!listener.onSolution("construction", matrix.pathLength(start),
+                () -> timedRoute(departure, shipments, windows, start))) {
+            return timedRoute(departure, shipments, windows, start);
+        }
+        int[] improved = TimeWindowSearch.improve(windows, start, latenessPenaltyKmPerMinute,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(improvementBudgetMs));
+
+        TimedRoute route = timedRoute(departure, shipments, windows, improved);
+        timedRouteTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        listener.onSolution("final", route.getDistanceKm(), () -> route);
+        return route;
+    }
+
+    private static TimedRoute timedRoute(LocalDateTime departure, List<Shipment> shipments, TimeWindows windows,
+                                         int[] order) {
+        int n = shipments.size();
+        double[] arrivals = windows.arrivals(order);
+        List<TimedStop> stops = new ArrayList<>(order.length);
+        boolean[] routed = new boolean[n + 1];
+        int lateStops = 0;
+        double totalLate = 0;
+        for (int i = 0; i < order.length; i++) {
+            Shipment shipment = shipments.get(order[i] - 1);
+            double late = windows.lateness(order[i], arrivals[i]);
+            if (late > 0) {
+                lateStops++;
+                totalLate += late;
+            }
+            routed[order[i]] = true;
+            stops.add(new TimedStop(shipment.getId(), shipment.getSId(),
+                    departure.plusSeconds(Math.round(arrivals[i] * 60)), shipment.getEstimatedDeliveryTime(), late));
+        }
+        List<Long> unassigned = new ArrayList<>();
+        for (int node = 1; node <= n; node++) {
+            if (!routed[node]) unassigned.add(shipments.get(node - 1).getId());
+        }
+        return new TimedRoute(departure, stops, unassigned, windows.getMatrix().pathLength(order), lateStops, totalLate);
+    }
+
+    private static List<Shipment> path(List<Shipment> shipments, int[] order) {
+        List<Shipment> path = new ArrayList<>(order.length);
+        for (int node : order) {
+            path.add(shipments.get(node - 1));
+        }
+        return path;
+    }
+
+    // Node 0 is the vehicle, node i the shipment at index i - 1
+    private DistanceMatrix distances(double startLat, double startLng, List<Shipment> shipments) {
+        int n = shipments.size();
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = shipments.get(i).getLatitude();
+            lngs[i] = shipments.get(i).getLongitude();
+        }
+        return distanceMatrixService.matrixFrom(startLat, startLng, lats, lngs);
+    }
+
+    private static double minutesAfter(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMillis() / 60_000.0;
+    }
+
+    private int[] nearestNeighbour(DistanceMatrix matrix, List<Shipment> shipments, double maxCapacity) {
+        int n = shipments.size();
+        boolean[] visited = new boolean[n + 1];
+        int[] order = new int[n];
+        int count = 0;
+        int current = 0;
         double currentLoad = 0;
 
-        while (!unvisited.isEmpty()) {
-            Shipment nearest = null;
+        while (count < n) {
+            int nearest = -1;
             double minDistance = Double.MAX_VALUE;
 
-            for (Shipment shipment : unvisited) {
+            for (int node = 1; node <= n; node++) {
+                if (visited[node]) continue;
                 // Skip if adding this shipment exceeds capacity
-                if (currentLoad + shipment.getWeightKg() > maxCapacity) continue;
+                if (currentLoad + shipments.get(node - 1).getWeightKg() > maxCapacity) continue;
 
-                double distance = calculateHaversine(currentLat, currentLng, shipment.getLatitude(), shipment.getLongitude());
+                double distance = matrix.get(current, node);
                 if (distance < minDistance) {
                     minDistance = distance;
-                    nearest = shipment;
+                    nearest = node;
                 }
             }
 
-            if (nearest != null) {
-                optimizedPath.add(nearest);
-                unvisited.remove(nearest);
-                currentLat = nearest.getLatitude();
-                currentLng = nearest.getLongitude();
-                currentLoad += nearest.getWeightKg();
-            } else {
-                // If no more shipments can fit, we stop (or would need another vehicle)
-                break;
-            }
-        }
-
-        return optimizedPath;
-    }
+            // If no more shipments can fit, we stop (or would need another vehicle)
+            if (nearest < 0) break;
 
-    /**
-     * Calculates the great-circle distance between two points on a sphere.
-     */
-    private double calculateHaversine(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Earth radius in km
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
+            visited[nearest] = true;
+            order[count++] = nearest;
+            currentLoad += shipments.get(nearest - 1).getWeightKg();
+            current = nearest;
+        }
+        return Arrays.copyOf(order, count);
     }
 }
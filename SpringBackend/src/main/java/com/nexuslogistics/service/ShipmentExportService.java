@@ -0,0 +1,222 @@
+package com.nexuslogistics.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexuslogistics.dto.ShipmentFilter;
+import com.nexuslogistics.repository.ShipmentQueryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk export of shipments and their delivery details as CSV or NDJSON.
+ * <p>
+ * Rows are written to the response as they come off the database cursor, so memory
+ * use does not depend on the number of rows and the first bytes leave right away.
+ * e-POD images are exported as their content ids.
+ */
+@Service
+@Slf4j
+public class ShipmentExportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ShipmentQueryRepository shipmentQueryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nexus.export.fetchSize:1000}")
+    private int fetchSize;
+
+    public static boolean isSupported(String format) {
+        return CSV.equals(format) || NDJSON.equals(format);
+    }
+
+    /**
+     * Writes every shipment matching the filter to the stream. The stream is finished
+     * but not closed.
+     */
+    public void export(ShipmentFilter filter, String format, boolean gzip, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : out,
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+        RowWriter rows = NDJSON.equals(format) ? new NdjsonWriter(writer) : new CsvWriter(writer);
+        long count;
+        try {
+            count = shipmentQueryRepository.streamExport(filter, fetchSize, rows);
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // usually the client went away; the query has been cancelled
+        }
+        writer.flush();
+        if (compressed != null) compressed.finish();
+
+        meterRegistry.timer("nexus.shipments.export", "format", format)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Exported {} shipments as {}{}", count, format, gzip ? " (gzip)" : "");
+    }
+
+    /** Writes the open cursor out row by row and returns the number of rows. */
+    private abstract static class RowWriter implements ResultSetExtractor<Long> {
+        final Writer writer;
+        String[] labels;
+
+        RowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public Long extractData(ResultSet rs) throws SQLException {
+            try {
+                ResultSetMetaData metaData = rs.getMetaData();
+                labels = new String[metaData.getColumnCount()];
+                for (int i = 0; i < labels.length; i++) labels[i] = metaData.getColumnLabel(i + 1);
+                start();
+                long count = 0;
+                while (rs.next()) {
+                    writeRow(rs);
+                    // The first row goes out at once so a long export is not mistaken for a dead one
+                    if (count++ == 0) flush();
+                }
+                finish(count);
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void start() throws IOException {
+        }
+
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        void finish(long count) throws IOException {
+        }
+
+        abstract void writeRow(ResultSet rs) throws SQLException, IOException;
+
+        static Object value(ResultSet rs, int column) throws SQLException {
+            Object value = rs.getObject(column);
+            return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime().toString() : value;
+        }
+    }
+
+    private static final class CsvWriter extends RowWriter {
+
+        CsvWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void start() throws IOException {
+            for (int i = 0; i < labels.length; i++) {
+                if (i > 0) writer.write(',');
+                writer.write(labels[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void writeRow(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < labels.length; i++) {
+                if (i > 0) writer.write(',');
+                Object value = value(rs, i + 1);
+                if (value != null) writeField(value.toString(), value instanceof String);
+            }
+            writer.write("\r\n");
+        }
+
+        // RFC 4180 quoting. Text a spreadsheet would run as a formula gets a leading
+        // apostrophe; numbers are left alone, negative ones included
+        private void writeField(String field, boolean text) throws IOException {
+            boolean quote = false;
+            if (text && !field.isEmpty() && "=+-@\t\r".indexOf(field.charAt(0)) >= 0) {
+                field = "'" + field;
+                quote = true;
+            }
+            for (int i = 0; i < field.length() && !quote; i++) {
+                char c = field.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(field);
+                return;
+            }
+            writer.write('"');
+            writer.write(field.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private final class NdjsonWriter extends RowWriter {
+        private JsonGenerator generator;
+        private SerializedString[] names;
+
+        NdjsonWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void start() throws IOException {
+            generator = objectMapper.getFactory().createGenerator(writer);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            names = new SerializedString[labels.length];
+            for (int i = 0; i < labels.length; i++) names[i] = new SerializedString(labels[i]);
+        }
+
+        @Override
+        void writeRow(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < labels.length; i++) {
+                generator.writeFieldName(names[i]);
+                Object value = value(rs, i + 1);
+                if (value == null) generator.writeNull();
+                else if (value instanceof String text) generator.writeString(text);
+                else if (value instanceof Long number) generator.writeNumber(number);
+                else if (value instanceof Integer number) generator.writeNumber(number);
+                else if (value instanceof Double number) generator.writeNumber(number);
+                else generator.writeString(value.toString());
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        void finish(long count) throws IOException {
+            if (count > 0) generator.writeRaw('\n');
+            generator.flush();
+        }
+    }
+}
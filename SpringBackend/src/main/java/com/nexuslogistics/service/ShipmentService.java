@@ -1,16 +1,31 @@
 package com.nexuslogistics.service;
 
 import com.nexuslogistics.dto.ShipmentDTO;
+import com.nexuslogistics.dto.ShipmentFilter;
+import com.nexuslogistics.dto.ShipmentPage;
 import com.nexuslogistics.model.Shipment;
 import com.nexuslogistics.model.Vehicle;
+import com.nexuslogistics.repository.ShipmentQueryRepository;
 import com.nexuslogistics.repository.ShipmentRepository;
 import com.nexuslogistics.repository.VehicleRepository;
+import com.nexuslogistics.storage.ContentStore;
+import com.nexuslogistics.storage.StoredContent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,18 +35,69 @@ public class ShipmentService {
     @Autowired
     private ShipmentRepository shipmentRepository;
 
+    @Autowired
+    private ShipmentQueryRepository shipmentQueryRepository;
+
     @Autowired
     private VehicleRepository vehicleRepository;
 
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private GeofencingService geofencingService;
+
+    @Autowired
+    private DispatchPlanService dispatchPlanService;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    // e-POD images are served back from our own origin, so only raster types that cannot carry script
+    private static final Set<String> IMAGE_TYPES = Set.of("image/png", "image/jpeg", "image/gif", "image/webp");
+    private static final String UNKNOWN_TYPE = "application/octet-stream";
+
+    @Value("${nexus.shipments.maxPageSize:200}")
+    private int maxPageSize;
+
     public List<ShipmentDTO> getAllShipments() {
         return shipmentRepository.findAll().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lists shipments newest first, one page at a time. The cursor is the nextCursor of
+     * the previous page and is opaque to clients.
+     *
+     * @throws IllegalArgumentException for a cursor this service did not issue
+     */
+    public ShipmentPage getShipmentPage(ShipmentFilter filter, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+        LocalDateTime afterCreated = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterCreated = LocalDateTime.parse(key[0]);
+                afterId = Long.parseLong(key[1]);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+
+        // One extra row tells whether there is a next page without counting
+        List<ShipmentDTO> items = shipmentQueryRepository.findPage(filter, afterCreated, afterId, limit + 1);
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            ShipmentDTO last = items.get(limit - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getCreated() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new ShipmentPage(items, nextCursor);
+    }
+
     public List<ShipmentDTO> getShipmentsByStatus(String status) {
         return shipmentRepository.findByStatus(status).stream()
                 .map(this::convertToDTO)
@@ -44,39 +110,132 @@ public class ShipmentService {
 
     public ShipmentDTO saveShipment(ShipmentDTO dto) {
         log.info("Saving shipment: {}", dto.getSId());
-        Shipment entity = convertToEntity(dto);
-        if (dto.getAssignedVehicleId() != null) {
-            vehicleRepository.findById(dto.getAssignedVehicleId()).ifPresent(entity::setAssignedVehicle);
+        // An update edits the stored row, which keeps its place in the listing and its proof of delivery
+        Shipment entity = dto.getId() != null ? shipmentRepository.findById(dto.getId()).orElse(null) : null;
+        if (entity != null) {
+            copyEditableFields(dto, entity);
+        } else {
+            entity = convertToEntity(dto);
         }
-        return convertToDTO(shipmentRepository.save(entity));
+        entity.setAssignedVehicle(dto.getAssignedVehicleId() != null
+                ? vehicleRepository.findById(dto.getAssignedVehicleId()).orElse(null)
+                : null);
+        Shipment saved = shipmentRepository.save(entity);
+        geofencingService.onShipmentChanged(saved);
+        dispatchPlanService.onShipmentChanged(saved);
+        return convertToDTO(saved);
     }
 
     public void updateStatus(Long id, String status) {
         shipmentRepository.findById(id).ifPresent(shipment -> {
             shipment.setStatus(status);
             shipmentRepository.save(shipment);
+            geofencingService.onShipmentChanged(shipment);
+            dispatchPlanService.onShipmentChanged(shipment);
             notificationService.sendTrackingUpdate(shipment);
         });
     }
 
-    public void completeDelivery(Long id, String signature, String photoUrl, double lat, double lng) {
-        shipmentRepository.findById(id).ifPresent(shipment -> {
-            shipment.setStatus("DELIVERED");
-            shipment.setSignatureBase64(signature);
-            shipment.setDeliveryPhotoUrl(photoUrl);
-            shipment.setDeliveredAt(LocalDateTime.now());
-            shipment.setDeliveryLat(lat);
-            shipment.setDeliveryLng(lng);
+    /**
+     * Records the proof of delivery. The signature is a base64 image, optionally as a
+     * data URL; it and the photo are kept in the content store.
+     *
+     * @throws IllegalArgumentException when the signature is not valid base64, or either
+     *                                  image is not PNG, JPEG, GIF or WebP
+     */
+    public void completeDelivery(Long id, String signature, MultipartFile photo, double lat, double lng)
+            throws IOException {
+        Optional<Shipment> found = shipmentRepository.findById(id);
+        if (found.isEmpty()) return;
+        Shipment shipment = found.get();
+        boolean hasPhoto = photo != null && !photo.isEmpty();
+        String photoType = hasPhoto ? imageType(photo.getContentType()) : null;
+
+        StoredContent signatureContent = storeBase64Image(signature);
+        shipment.setSignatureBlobId(signatureContent.getId());
+        shipment.setSignatureContentType(signatureContent.getContentType());
+        shipment.setSignatureBase64(null);
+        if (hasPhoto) {
+            // Streamed from the multipart upload, which is already on disk for large files
+            shipment.setDeliveryPhotoBlobId(contentStore.put(Channels.newChannel(photo.getInputStream())));
+            shipment.setDeliveryPhotoContentType(photoType);
+            shipment.setDeliveryPhotoUrl("/api/shipments/" + id + "/photo");
+        }
+
+        shipment.setStatus("DELIVERED");
+        shipment.setDeliveredAt(LocalDateTime.now());
+        shipment.setDeliveryLat(lat);
+        shipment.setDeliveryLng(lng);
+        shipmentRepository.save(shipment);
+        geofencingService.onShipmentChanged(shipment);
+        dispatchPlanService.onDelivered(shipment, lat, lng);
+
+        notificationService.sendTrackingUpdate(shipment);
+        log.info("E-POD captured for shipment {}", shipment.getSId());
+    }
+
+    /**
+     * The shipment's signature image, moving a legacy inline signature into the content
+     * store on the way.
+     */
+    public Optional<StoredContent> getSignature(Long id) throws IOException {
+        Optional<Shipment> found = shipmentRepository.findById(id);
+        if (found.isEmpty()) return Optional.empty();
+        Shipment shipment = found.get();
+        if (shipment.getSignatureBlobId() == null && shipment.getSignatureBase64() != null) {
+            StoredContent content;
+            try {
+                content = storeBase64Image(shipment.getSignatureBase64());
+            } catch (IllegalArgumentException e) {
+                log.warn("Legacy signature of shipment {} is not a supported image: {}", id, e.getMessage());
+                return Optional.empty();
+            }
+            shipment.setSignatureBlobId(content.getId());
+            shipment.setSignatureContentType(content.getContentType());
+            shipment.setSignatureBase64(null);
             shipmentRepository.save(shipment);
-            
-            notificationService.sendTrackingUpdate(shipment);
-            log.info("E-POD captured for shipment {}", shipment.getSId());
-        });
+        }
+        if (shipment.getSignatureBlobId() == null) return Optional.empty();
+        return Optional.of(new StoredContent(shipment.getSignatureBlobId(),
+                servedType(shipment.getSignatureContentType())));
+    }
+
+    public Optional<StoredContent> getDeliveryPhoto(Long id) {
+        return shipmentRepository.findById(id)
+                .filter(shipment -> shipment.getDeliveryPhotoBlobId() != null)
+                .map(shipment -> new StoredContent(shipment.getDeliveryPhotoBlobId(),
+                        servedType(shipment.getDeliveryPhotoContentType())));
+    }
+
+    private static String imageType(String contentType) {
+        String type = contentType != null ? contentType.split(";")[0].trim().toLowerCase() : "";
+        if (!IMAGE_TYPES.contains(type)) throw new IllegalArgumentException("Unsupported image type " + contentType);
+        return type;
+    }
+
+    // Anything stored before the allow-list is downloaded as opaque bytes rather than rendered
+    private static String servedType(String contentType) {
+        return contentType != null && IMAGE_TYPES.contains(contentType) ? contentType : UNKNOWN_TYPE;
+    }
+
+    private StoredContent storeBase64Image(String image) throws IOException {
+        String contentType = "image/png"; // what signature pads send
+        String payload = image;
+        if (image.startsWith("data:")) {
+            int comma = image.indexOf(',');
+            if (comma < 0) throw new IllegalArgumentException("Malformed data URL");
+            String mediaType = image.substring(5, comma).split(";")[0];
+            if (!mediaType.isEmpty()) contentType = imageType(mediaType);
+            payload = image.substring(comma + 1);
+        }
+        byte[] bytes = Base64.getMimeDecoder().decode(payload);
+        return new StoredContent(contentStore.put(Channels.newChannel(new ByteArrayInputStream(bytes))), contentType);
     }
 
     public void deleteShipment(Long id) {
         log.warn("Deleting shipment with ID: {}", id);
         shipmentRepository.deleteById(id);
+        dispatchPlanService.onShipmentDeleted(id);
     }
 
     public List<ShipmentDTO> getShipmentsByVehicle(Long vehicleId) {
@@ -100,8 +259,10 @@ public class ShipmentService {
                 .longitude(entity.getLongitude())
                 .estimatedDeliveryTime(entity.getEstimatedDeliveryTime())
                 .created(entity.getCreated())
+                // The id of a lazy reference is known without loading the vehicle
                 .assignedVehicleId(entity.getAssignedVehicle() != null ? entity.getAssignedVehicle().getId() : null)
-                .signatureBase64(entity.getSignatureBase64())
+                .signatureBlobId(entity.getSignatureBlobId())
+                .deliveryPhotoBlobId(entity.getDeliveryPhotoBlobId())
                 .deliveredAt(entity.getDeliveredAt())
                 .build();
     }
@@ -109,6 +270,14 @@ public class ShipmentService {
     private Shipment convertToEntity(ShipmentDTO dto) {
         Shipment entity = new Shipment();
         if (dto.getId() != null) entity.setId(dto.getId());
+        copyEditableFields(dto, entity);
+        // Keeps the entity's default; created must never be null
+        if (dto.getCreated() != null) entity.setCreated(dto.getCreated());
+        return entity;
+    }
+
+    // Everything but the id, creation time, vehicle and the proof of delivery
+    private static void copyEditableFields(ShipmentDTO dto, Shipment entity) {
         entity.setSId(dto.getSId());
         entity.setCustomer(dto.getCustomer());
         entity.setRecipientName(dto.getRecipientName());
@@ -120,7 +289,5 @@ public class ShipmentService {
         entity.setLatitude(dto.getLatitude());
         entity.setLongitude(dto.getLongitude());
         entity.setEstimatedDeliveryTime(dto.getEstimatedDeliveryTime());
-        entity.setCreated(dto.getCreated());
-        return entity;
     }
 }
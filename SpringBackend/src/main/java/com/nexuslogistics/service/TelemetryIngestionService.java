@@ -0,0 +1,432 @@
+package com.nexuslogistics.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexuslogistics.dto.TelemetryBatchResult;
+import com.nexuslogistics.dto.TelemetryPing;
+import com.nexuslogistics.model.VehicleState;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind stage for GPS pings. Each ping updates the {@link FleetStateRegistry}
+ * immediately and is coalesced to the latest position per vehicle in a bounded
+ * buffer that is checkpointed to the vehicle table in JDBC batches, so trackers
+ * never wait on a JPA round-trip.
+ */
+@Service
+@Slf4j
+public class TelemetryIngestionService {
+
+    public enum OfferResult { ACCEPTED, COALESCED, UNKNOWN_VEHICLE, QUEUE_FULL, UNAVAILABLE }
+
+    private static final Set<String> POSITION_FIELDS =
+            Set.of("id", "vehicleId", "latitude", "lat", "longitude", "lng", "speed");
+
+    private static final String UPDATE_POSITION_SQL =
+            "UPDATE vehicle SET latitude = ?, longitude = ?, speed = ? WHERE id = ?";
+
+    private static final ParameterizedPreparedStatementSetter<TelemetryPing> POSITION_SETTER = (ps, ping) -> {
+        ps.setDouble(1, ping.getLatitude());
+        ps.setDouble(2, ping.getLongitude());
+        ps.setDouble(3, ping.getSpeed());
+        ps.setLong(4, ping.getVehicleId());
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Autowired
+    private GeofencingService geofencingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${nexus.telemetry.queueCapacity:20000}")
+    private int queueCapacity;
+
+    @Value("${nexus.telemetry.flushBatchSize:500}")
+    private int flushBatchSize;
+
+    @Value("${nexus.telemetry.bulkTransactionSize:1000}")
+    private int bulkTransactionSize;
+
+    // Latest un-flushed ping per vehicle; the number of entries is the queue depth
+    private final ConcurrentHashMap<Long, TelemetryPing> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private volatile boolean accepting = true;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final LongAdder bulkRows = new LongAdder();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicInteger activeBatches = new AtomicInteger();
+    private Timer flushTimer;
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void init() {
+        // Pings are only counted here; the per-ping work is timed by the geofence evaluation
+        Gauge.builder("nexus.telemetry.queue.depth", depth, AtomicInteger::get)
+                .description("Positions waiting for the next database checkpoint").register(meterRegistry);
+        Gauge.builder("nexus.telemetry.batches.active", activeBatches, AtomicInteger::get)
+                .description("Bulk telemetry requests being read").register(meterRegistry);
+        FunctionCounter.builder("nexus.telemetry.pings", accepted, LongAdder::sum).tag("result", "accepted")
+                .register(meterRegistry);
+        FunctionCounter.builder("nexus.telemetry.pings", coalesced, LongAdder::sum).tag("result", "coalesced")
+                .register(meterRegistry);
+        FunctionCounter.builder("nexus.telemetry.pings", rejected, LongAdder::sum).tag("result", "rejected")
+                .register(meterRegistry);
+        FunctionCounter.builder("nexus.telemetry.rows", flushedRows, LongAdder::sum).tag("outcome", "flushed")
+                .register(meterRegistry);
+        FunctionCounter.builder("nexus.telemetry.rows", failedRows, LongAdder::sum).tag("outcome", "failed")
+                .register(meterRegistry);
+        FunctionCounter.builder("nexus.telemetry.rows", bulkRows, LongAdder::sum).tag("outcome", "bulk")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("nexus.telemetry.flush").register(meterRegistry);
+        batchTimer = Timer.builder("nexus.telemetry.batch").register(meterRegistry);
+    }
+
+    public OfferResult offer(TelemetryPing ping) {
+        if (!accepting) {
+            rejected.increment();
+            return OfferResult.UNAVAILABLE;
+        }
+        if (ping.getReceivedAt() == 0) {
+            ping.setReceivedAt(System.currentTimeMillis());
+        }
+
+        Long vehicleId = ping.getVehicleId();
+        if (!isKnown(vehicleId)) {
+            rejected.increment();
+            return OfferResult.UNKNOWN_VEHICLE;
+        }
+
+        // The checkpoint slot is taken first, so a rejected ping has changed nothing and a retry applies it once
+        OfferResult result = buffer(ping);
+        if (result == OfferResult.QUEUE_FULL) return result;
+
+        // The registry is the live source of truth; the buffer only checkpoints it
+        VehicleState state = fleetStateRegistry.updatePosition(
+                vehicleId, ping.getLatitude(), ping.getLongitude(), ping.getSpeed());
+        if (state != null) {
+            geofencingService.evaluate(state);
+        }
+        return result;
+    }
+
+    // Before the registry has loaded, the database decides which vehicles exist
+    private boolean isKnown(Long vehicleId) {
+        return !fleetStateRegistry.isLoaded() || fleetStateRegistry.get(vehicleId) != null;
+    }
+
+    private OfferResult buffer(TelemetryPing ping) {
+        Long vehicleId = ping.getVehicleId();
+        while (true) {
+            TelemetryPing previous = pending.get(vehicleId);
+            if (previous != null) {
+                // A newer ping supersedes the buffered one without taking another slot
+                if (pending.replace(vehicleId, previous, ping)) {
+                    coalesced.increment();
+                    return OfferResult.COALESCED;
+                }
+                continue;
+            }
+
+            if (depth.incrementAndGet() > queueCapacity) {
+                depth.decrementAndGet();
+                rejected.increment();
+                return OfferResult.QUEUE_FULL;
+            }
+            if (pending.putIfAbsent(vehicleId, ping) == null) {
+                accepted.increment();
+                return OfferResult.ACCEPTED;
+            }
+            // Lost the race to another ping for the same vehicle, retry as a coalesce
+            depth.decrementAndGet();
+        }
+    }
+
+    /**
+     * Streams a JSON array or newline-delimited JSON body of position updates from a
+     * gateway. Items are read one token at a time and written in chunks of
+     * {@code bulkTransactionSize}, one transaction per chunk.
+     */
+    public TelemetryBatchResult ingestBatch(InputStream body) throws IOException {
+        activeBatches.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            return readBatch(body);
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            activeBatches.decrementAndGet();
+        }
+    }
+
+    private TelemetryBatchResult readBatch(InputStream body) throws IOException {
+        TelemetryBatchResult result = new TelemetryBatchResult();
+        List<TelemetryPing> chunk = new ArrayList<>();
+        List<Integer> chunkIndexes = new ArrayList<>();
+        int index = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                // A top-level array is just an envelope; NDJSON is a sequence of root values
+                if (token == JsonToken.START_ARRAY && parser.getParsingContext().getParent().inRoot()) continue;
+                if (token == JsonToken.END_ARRAY && parser.getParsingContext().inRoot()) continue;
+
+                int itemIndex = index++;
+                result.setReceived(result.getReceived() + 1);
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    result.reject(itemIndex, "expected a JSON object");
+                    continue;
+                }
+
+                TelemetryPing ping = readPing(parser);
+                String problem = ping != null ? validate(ping) : "position fields must be scalars";
+                if (problem == null && !isKnown(ping.getVehicleId())) {
+                    problem = "unknown vehicle " + ping.getVehicleId();
+                }
+                if (problem != null) {
+                    result.reject(itemIndex, problem);
+                    continue;
+                }
+
+                chunk.add(ping);
+                chunkIndexes.add(itemIndex);
+                if (chunk.size() >= bulkTransactionSize) {
+                    applyBatch(chunk, chunkIndexes, result);
+                    chunk.clear();
+                    chunkIndexes.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            result.setComplete(false);
+            result.getErrors().add("malformed JSON at line " + e.getLocation().getLineNr() + ": " + e.getOriginalMessage());
+        }
+
+        if (!chunk.isEmpty()) {
+            applyBatch(chunk, chunkIndexes, result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads one item up to its closing brace.
+     *
+     * @return the ping, or null when a position field holds an object or array
+     */
+    private TelemetryPing readPing(JsonParser parser) throws IOException {
+        TelemetryPing ping = new TelemetryPing();
+        ping.setLatitude(Double.NaN);
+        ping.setLongitude(Double.NaN);
+        boolean malformed = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                // Skipped whole so the parser stays on this item; trackers nest driver objects and the like
+                parser.skipChildren();
+                malformed |= POSITION_FIELDS.contains(field);
+                continue;
+            }
+            switch (field) {
+                case "id":
+                case "vehicleId":
+                    if (value == JsonToken.VALUE_NUMBER_INT) ping.setVehicleId(parser.getLongValue());
+                    break;
+                case "latitude":
+                case "lat":
+                    if (value.isNumeric()) ping.setLatitude(parser.getDoubleValue());
+                    break;
+                case "longitude":
+                case "lng":
+                    if (value.isNumeric()) ping.setLongitude(parser.getDoubleValue());
+                    break;
+                case "speed":
+                    if (value.isNumeric()) ping.setSpeed(parser.getDoubleValue());
+                    break;
+                default:
+                    // Trackers post whole Vehicle payloads; other scalars are ignored
+                    break;
+            }
+        }
+        if (malformed) return null;
+        ping.setReceivedAt(System.currentTimeMillis());
+        return ping;
+    }
+
+    private String validate(TelemetryPing ping) {
+        if (ping.getVehicleId() == null) return "vehicle id is required";
+        if (!(ping.getLatitude() >= -90 && ping.getLatitude() <= 90)) return "latitude out of range";
+        if (!(ping.getLongitude() >= -180 && ping.getLongitude() <= 180)) return "longitude out of range";
+        return null;
+    }
+
+    private void applyBatch(List<TelemetryPing> chunk, List<Integer> indexes, TelemetryBatchResult result) {
+        int[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> {
+                int[][] perBatch = jdbcTemplate.batchUpdate(UPDATE_POSITION_SQL, chunk, chunk.size(), POSITION_SETTER);
+                return perBatch.length == 0 ? new int[0] : perBatch[0];
+            });
+        } catch (DataAccessException e) {
+            log.error("Bulk telemetry transaction of {} positions failed: {}", chunk.size(), e.getMessage());
+            for (Integer index : indexes) {
+                result.reject(index, "database write failed");
+            }
+            result.setBatches(result.getBatches() + 1);
+            return;
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            TelemetryPing ping = chunk.get(i);
+            boolean updated = counts == null || i >= counts.length
+                    || counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+            if (updated) {
+                // Live state follows only once the position is committed; a rejected item has changed nothing
+                result.setAccepted(result.getAccepted() + 1);
+                bulkRows.increment();
+                VehicleState state = fleetStateRegistry.updatePosition(
+                        ping.getVehicleId(), ping.getLatitude(), ping.getLongitude(), ping.getSpeed());
+                if (state != null) {
+                    geofencingService.evaluate(state);
+                }
+                dropSuperseded(ping);
+            } else {
+                result.reject(indexes.get(i), "unknown vehicle " + ping.getVehicleId());
+            }
+        }
+        result.setBatches(result.getBatches() + 1);
+    }
+
+    // A buffered single ping older than a position written in bulk must not overwrite it on the next flush
+    private void dropSuperseded(TelemetryPing written) {
+        pending.computeIfPresent(written.getVehicleId(), (id, buffered) -> {
+            if (buffered.getReceivedAt() <= written.getReceivedAt()) {
+                depth.decrementAndGet();
+                return null;
+            }
+            return buffered;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${nexus.telemetry.flushIntervalMs:1000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        long start = System.nanoTime();
+        List<TelemetryPing> batch = new ArrayList<>(Math.min(flushBatchSize, depth.get()));
+        for (Long vehicleId : pending.keySet()) {
+            TelemetryPing ping = pending.remove(vehicleId);
+            if (ping == null) continue;
+            depth.decrementAndGet();
+            batch.add(ping);
+            if (batch.size() >= flushBatchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        flushTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        flushCount.incrementAndGet();
+        lastFlushNanos.set(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        flush();
+    }
+
+    private void writeBatch(List<TelemetryPing> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_POSITION_SQL, batch, batch.size(), POSITION_SETTER);
+            flushedRows.add(batch.size());
+        } catch (DataAccessException e) {
+            log.error("Telemetry flush of {} positions failed: {}", batch.size(), e.getMessage());
+            failedRows.add(batch.size());
+            requeue(batch);
+        }
+    }
+
+    private void requeue(List<TelemetryPing> batch) {
+        // Only put back positions that have not been superseded by a newer ping meanwhile
+        for (TelemetryPing ping : batch) {
+            if (pending.putIfAbsent(ping.getVehicleId(), ping) == null) {
+                depth.incrementAndGet();
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", depth.get());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("accepted", accepted.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("flushedRows", flushedRows.sum());
+        stats.put("failedRows", failedRows.sum());
+        stats.put("bulkRows", bulkRows.sum());
+        stats.put("flushCount", flushCount.get());
+        stats.put("lastFlushMs", lastFlushNanos.get() / 1_000_000.0);
+        stats.put("maxFlushMs", maxFlushNanos.get() / 1_000_000.0);
+        return stats;
+    }
+}
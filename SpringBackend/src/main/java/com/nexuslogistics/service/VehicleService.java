@@ -2,6 +2,7 @@ package com.nexuslogistics.service;
 
 import com.nexuslogistics.dto.VehicleDTO;
 import com.nexuslogistics.model.Vehicle;
+import com.nexuslogistics.model.VehicleState;
 import com.nexuslogistics.repository.DriverProfileRepository;
 import com.nexuslogistics.repository.UserRepository;
 import com.nexuslogistics.repository.VehicleRepository;
@@ -9,6 +10,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -26,25 +28,42 @@ public class VehicleService {
     @Autowired
     private DriverProfileRepository driverProfileRepository;
 
+    @Autowired
+    private FleetStateRegistry fleetStateRegistry;
+
     public List<VehicleDTO> getAllVehicles() {
+        if (fleetStateRegistry.isLoaded()) {
+            // Live positions come from memory; no JPA round-trip on the dashboard refresh path
+            return fleetStateRegistry.snapshot().stream()
+                    .sorted(Comparator.comparingLong(VehicleState::getId))
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+        }
         return vehicleRepository.findAll().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     public Optional<VehicleDTO> getVehicleById(Long id) {
+        VehicleState state = fleetStateRegistry.get(id);
+        if (state != null) {
+            return Optional.of(convertToDTO(state));
+        }
         return vehicleRepository.findById(id).map(this::convertToDTO);
     }
 
     public VehicleDTO saveVehicle(VehicleDTO dto) {
         log.info("Saving vehicle: {}", dto.getVId());
         Vehicle entity = convertToEntity(dto);
-        return convertToDTO(vehicleRepository.save(entity));
+        Vehicle saved = vehicleRepository.save(entity);
+        fleetStateRegistry.put(saved);
+        return convertToDTO(saved);
     }
 
     public void deleteVehicle(Long id) {
         log.warn("Deleting vehicle with ID: {}", id);
         vehicleRepository.deleteById(id);
+        fleetStateRegistry.remove(id);
     }
 
     public VehicleDTO updateVehicleLocation(Long id, double latitude, double longitude, double speed) {
@@ -52,7 +71,9 @@ public class VehicleService {
             vehicle.setLatitude(latitude);
             vehicle.setLongitude(longitude);
             vehicle.setSpeed(speed);
-            return convertToDTO(vehicleRepository.save(vehicle));
+            VehicleDTO updated = convertToDTO(vehicleRepository.save(vehicle));
+            fleetStateRegistry.updatePosition(id, latitude, longitude, speed);
+            return updated;
         }).orElse(null);
     }
 
@@ -76,6 +97,25 @@ public class VehicleService {
                 .build();
     }
 
+    private VehicleDTO convertToDTO(VehicleState state) {
+        return VehicleDTO.builder()
+                .id(state.getId())
+                .vId(state.getVId())
+                .plate(state.getPlate())
+                .name(state.getName())
+                .driver(state.getDriver() != null ? state.getDriver() : "Unassigned")
+                .latitude(state.getLatitude())
+                .longitude(state.getLongitude())
+                .speed(state.getSpeed())
+                .fuel(state.getFuel())
+                .mileage(state.getMileage())
+                .lastService(state.getLastService())
+                .temp(state.getTemp())
+                .status(state.getStatus())
+                .maxCapacity(state.getMaxCapacity())
+                .build();
+    }
+
     private Vehicle convertToEntity(VehicleDTO dto) {
         Vehicle entity = new Vehicle();
         if (dto.getId() != null) entity.setId(dto.getId());
@@ -0,0 +1,41 @@
+package com.nexuslogistics.storage;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.regex.Pattern;
+
+/**
+ * Store for binary content such as e-POD signatures and photos. Content is addressed
+ * by the hex SHA-256 of its bytes, so storing the same bytes twice keeps one copy and
+ * an id never changes meaning. Selected through {@code nexus.storage.type}.
+ */
+public interface ContentStore {
+
+    Pattern ID = Pattern.compile("[0-9a-f]{64}");
+
+    String getName();
+
+    /**
+     * Reads the channel to its end and stores the bytes.
+     *
+     * @return the content id
+     */
+    String put(ReadableByteChannel source) throws IOException;
+
+    /**
+     * @return the content's length in bytes, or -1 when there is no such content
+     */
+    long size(String id) throws IOException;
+
+    /**
+     * Copies {@code length} bytes starting at {@code offset} to the target.
+     *
+     * @throws java.nio.file.NoSuchFileException when there is no such content
+     */
+    void transferTo(String id, long offset, long length, WritableByteChannel target) throws IOException;
+
+    static boolean isValidId(String id) {
+        return id != null && ID.matcher(id).matches();
+    }
+}
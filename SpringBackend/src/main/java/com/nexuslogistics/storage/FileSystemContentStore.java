@@ -0,0 +1,129 @@
+package com.nexuslogistics.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content store on the local filesystem under {@code nexus.storage.root}, one file per
+ * content id in 256 fan-out directories. Uploads are written to a temporary file
+ * through a direct buffer that is hashed on the way, then renamed to their id, which
+ * makes them visible atomically and drops duplicates. Reads go through
+ * {@link FileChannel#transferTo}, so the kernel moves the bytes without a heap copy
+ * where the target allows it.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "nexus.storage.type", havingValue = FileSystemContentStore.NAME, matchIfMissing = true)
+public class FileSystemContentStore implements ContentStore {
+
+    public static final String NAME = "filesystem";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${nexus.storage.root:data/content}")
+    private String root;
+
+    private Path rootDir;
+    private Path tmpDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        rootDir = Path.of(root).toAbsolutePath();
+        tmpDir = rootDir.resolve("tmp");
+        Files.createDirectories(tmpDir);
+        // Uploads interrupted by a restart are never completed
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(tmpDir)) {
+            for (Path leftover : leftovers) Files.deleteIfExists(leftover);
+        }
+        log.info("Content store at {}", rootDir);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String put(ReadableByteChannel source) throws IOException {
+        MessageDigest digest = sha256();
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    buffer.mark();
+                    digest.update(buffer);
+                    buffer.reset();
+                    while (buffer.hasRemaining()) out.write(buffer);
+                    buffer.clear();
+                }
+                out.force(false); // on disk before it is renamed into place
+            }
+
+            String id = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(id);
+            if (Files.exists(target)) {
+                log.debug("Content {} already stored", id);
+                return id;
+            }
+            Files.createDirectories(target.getParent());
+            // A concurrent upload of the same bytes may win the rename; either copy is the same
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            return id;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public long size(String id) throws IOException {
+        Path path = pathOf(id);
+        return Files.exists(path) ? Files.size(path) : -1;
+    }
+
+    @Override
+    public void transferTo(String id, long offset, long length, WritableByteChannel target) throws IOException {
+        Path path = pathOf(id);
+        if (!Files.exists(path)) throw new NoSuchFileException(id);
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (length > 0) {
+                long sent = in.transferTo(offset, length, target);
+                if (sent <= 0) break; // past the end of the file
+                offset += sent;
+                length -= sent;
+            }
+        }
+    }
+
+    private Path pathOf(String id) {
+        if (!ContentStore.isValidId(id)) throw new IllegalArgumentException("Invalid content id " + id);
+        return rootDir.resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JRE has SHA-256
+        }
+    }
+}
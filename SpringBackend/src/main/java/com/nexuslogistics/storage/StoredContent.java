@@ -0,0 +1,16 @@
+package com.nexuslogistics.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reference to content in the {@link ContentStore} together with its media type.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredContent {
+    private String id;
+    private String contentType;
+}
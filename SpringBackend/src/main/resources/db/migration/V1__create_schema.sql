@@ -0,0 +1,99 @@
+-- Schema as mapped by the JPA entities. Column names follow Spring's
+-- CamelCaseToUnderscoresNamingStrategy; Hibernate validates against this at startup.
+-- Databases Hibernate created before the migrations are baselined at version 0 and run
+-- this too, so every statement tolerates the tables already being there.
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role     VARCHAR(20) CHECK (role IN ('ROLE_USER', 'ROLE_DRIVER', 'ROLE_DISPATCHER', 'ROLE_ADMIN')),
+    enabled  BOOLEAN      NOT NULL,
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS driver_profile (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id        BIGINT REFERENCES users (id),
+    license_number VARCHAR(255),
+    phone_number   VARCHAR(255),
+    status         VARCHAR(255),
+    rating         DOUBLE PRECISION NOT NULL,
+    total_trips    INTEGER          NOT NULL,
+    CONSTRAINT uk_driver_profile_user UNIQUE (user_id)
+);
+
+CREATE TABLE IF NOT EXISTS driver_score (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    driver_id        BIGINT REFERENCES driver_profile (id),
+    safety_score     INTEGER          NOT NULL,
+    eco_score        INTEGER          NOT NULL,
+    total_fuel_saved DOUBLE PRECISION NOT NULL,
+    rank             INTEGER          NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS loading_dock (
+    id                        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    dock_number               VARCHAR(255),
+    dock_type                 VARCHAR(255),
+    status                    VARCHAR(255),
+    assignedvid               VARCHAR(255),
+    current_activity          VARCHAR(255),
+    estimated_turnaround_time INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS vehicle (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    v_id         VARCHAR(255),
+    plate        VARCHAR(255),
+    name         VARCHAR(255),
+    driver_id    BIGINT REFERENCES driver_profile (id),
+    latitude     DOUBLE PRECISION NOT NULL,
+    longitude    DOUBLE PRECISION NOT NULL,
+    speed        DOUBLE PRECISION NOT NULL,
+    fuel         DOUBLE PRECISION NOT NULL,
+    mileage      DOUBLE PRECISION NOT NULL,
+    last_service VARCHAR(255),
+    temp         DOUBLE PRECISION,
+    status       VARCHAR(255),
+    max_capacity DOUBLE PRECISION NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS shipment (
+    id                          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    s_id                        VARCHAR(255),
+    customer                    VARCHAR(255),
+    recipient_name              VARCHAR(255),
+    origin                      VARCHAR(255),
+    destination                 VARCHAR(255),
+    destination_address         VARCHAR(255),
+    weight_kg                   DOUBLE PRECISION NOT NULL,
+    status                      VARCHAR(255),
+    latitude                    DOUBLE PRECISION NOT NULL,
+    longitude                   DOUBLE PRECISION NOT NULL,
+    estimated_delivery_time     TIMESTAMP(6),
+    created                     TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    vehicle_id                  BIGINT REFERENCES vehicle (id),
+    signature_blob_id           VARCHAR(255),
+    signature_content_type      VARCHAR(255),
+    delivery_photo_blob_id      VARCHAR(255),
+    delivery_photo_content_type VARCHAR(255),
+    signature_base64            TEXT,
+    delivery_photo_url          VARCHAR(255),
+    delivered_at                TIMESTAMP(6),
+    delivery_lat                DOUBLE PRECISION,
+    delivery_lng                DOUBLE PRECISION
+);
+
+-- Columns added since Hibernate last updated such a database
+ALTER TABLE shipment ADD COLUMN IF NOT EXISTS signature_blob_id VARCHAR(255);
+ALTER TABLE shipment ADD COLUMN IF NOT EXISTS signature_content_type VARCHAR(255);
+ALTER TABLE shipment ADD COLUMN IF NOT EXISTS delivery_photo_blob_id VARCHAR(255);
+ALTER TABLE shipment ADD COLUMN IF NOT EXISTS delivery_photo_content_type VARCHAR(255);
+
+-- The shipment listing pages by created, so it may not be null
+UPDATE shipment SET created = CURRENT_TIMESTAMP WHERE created IS NULL;
+ALTER TABLE shipment ALTER COLUMN created SET DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE shipment ALTER COLUMN created SET NOT NULL;
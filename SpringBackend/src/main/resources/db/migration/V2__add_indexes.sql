@@ -0,0 +1,22 @@
+-- Indexes for the repository access paths. Built CONCURRENTLY so that applying this to a
+-- populated database does not block writes; see V2__add_indexes.sql.conf.
+
+-- Shipment listing (ShipmentQueryRepository): keyset on (created, id), unfiltered and per filter.
+-- The vehicle one also serves findByAssignedVehicleId and the foreign key.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shipment_created_id ON shipment (created, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shipment_status_created_id ON shipment (status, created, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shipment_vehicle_created_id ON shipment (vehicle_id, created, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shipment_customer_created_id ON shipment (customer, created, id);
+
+-- findByStatus on the statuses dispatch and geofencing poll. Delivered shipments make up
+-- almost all of a mature table, so an index over the open ones stays small and cached.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shipment_open_status ON shipment (status)
+    WHERE status IN ('PENDING', 'IN_TRANSIT');
+
+-- Leaderboard (findTop100ByOrderByEcoScoreDesc) and the foreign keys used in joins
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_driver_score_eco_score ON driver_score (eco_score DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_driver_score_driver ON driver_score (driver_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vehicle_driver ON vehicle (driver_id);
+
+-- findByLicenseNumber; users.username and driver_profile.user_id are covered by their unique constraints
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_driver_profile_license_number ON driver_profile (license_number);
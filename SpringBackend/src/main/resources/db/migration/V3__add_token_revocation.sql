@@ -0,0 +1,10 @@
+-- Token revocations shared by every instance and kept across restarts (JwtAuthenticationCache):
+-- a per-user cut-off for account changes and the signed-out tokens themselves.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS tokens_valid_after BIGINT;
+
+CREATE TABLE IF NOT EXISTS revoked_token (
+    token_hash VARCHAR(64) PRIMARY KEY,
+    expires_at BIGINT NOT NULL,
+    revoked_at BIGINT NOT NULL
+);
@@ -0,0 +1,94 @@
+package com.nexuslogistics.benchmark;
+
+import com.nexuslogistics.dto.ShipmentDTO;
+import com.nexuslogistics.dto.VehicleDTO;
+import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.model.Vehicle;
+import com.nexuslogistics.repository.ShipmentRepository;
+import com.nexuslogistics.repository.VehicleRepository;
+import com.nexuslogistics.service.FleetStateRegistry;
+import com.nexuslogistics.service.ShipmentService;
+import com.nexuslogistics.service.VehicleService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping behind the list endpoints, through the public service
+ * methods with the repositories stubbed, so the time is the mapping itself.
+ * Vehicles are mapped both from entities and from the live fleet state.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    private ShipmentService shipmentService;
+    private VehicleService vehicleEntityService;
+    private VehicleService vehicleStateService;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Shipment> shipments = new ArrayList<>(rows);
+        List<Vehicle> vehicles = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Vehicle vehicle = Vehicle.builder().id((long) i + 1).vId("VN-" + i).plate("P" + i).name("Truck")
+                    .latitude(40 + random.nextDouble()).longitude(-74 + random.nextDouble()).speed(60)
+                    .fuel(80).mileage(12000).status("ACTIVE").maxCapacity(1000).build();
+            vehicles.add(vehicle);
+            shipments.add(Shipment.builder().id((long) i + 1).sId("SH-" + i).customer("Customer " + i)
+                    .recipientName("Recipient " + i).origin("Origin").destination("Destination " + i)
+                    .destinationAddress(i + " Main St").weightKg(25).status("IN_TRANSIT")
+                    .latitude(vehicle.getLatitude()).longitude(vehicle.getLongitude())
+                    .estimatedDeliveryTime(LocalDateTime.now()).created(LocalDateTime.now())
+                    .assignedVehicle(vehicle).build());
+        }
+
+        ShipmentRepository shipmentRepository = Mockito.mock(ShipmentRepository.class);
+        Mockito.when(shipmentRepository.findAll()).thenReturn(shipments);
+        shipmentService = new ShipmentService();
+        ReflectionTestUtils.setField(shipmentService, "shipmentRepository", shipmentRepository);
+
+        VehicleRepository vehicleRepository = Mockito.mock(VehicleRepository.class);
+        Mockito.when(vehicleRepository.findAll()).thenReturn(vehicles);
+
+        // Not loaded: the service falls back to the repository
+        vehicleEntityService = new VehicleService();
+        ReflectionTestUtils.setField(vehicleEntityService, "vehicleRepository", vehicleRepository);
+        ReflectionTestUtils.setField(vehicleEntityService, "fleetStateRegistry", new FleetStateRegistry());
+
+        FleetStateRegistry registry = new FleetStateRegistry();
+        ReflectionTestUtils.setField(registry, "vehicleRepository", vehicleRepository);
+        registry.load();
+        vehicleStateService = new VehicleService();
+        ReflectionTestUtils.setField(vehicleStateService, "fleetStateRegistry", registry);
+    }
+
+    @Benchmark
+    public List<ShipmentDTO> shipments() {
+        return shipmentService.getAllShipments();
+    }
+
+    @Benchmark
+    public List<VehicleDTO> vehicleEntities() {
+        return vehicleEntityService.getAllVehicles();
+    }
+
+    @Benchmark
+    public List<VehicleDTO> vehicleStates() {
+        return vehicleStateService.getAllVehicles();
+    }
+}
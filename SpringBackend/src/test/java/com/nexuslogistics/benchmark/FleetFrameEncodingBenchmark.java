@@ -0,0 +1,85 @@
+package com.nexuslogistics.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.nexuslogistics.config.CborEncodingInterceptor;
+import com.nexuslogistics.dto.FleetDelta;
+import com.nexuslogistics.dto.FleetFrame;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of a fleet frame: the default JSON path, CBOR written directly,
+ * and the JSON-to-CBOR transcoding CborEncodingInterceptor does per opted-in message.
+ * Bytes per vehicle update of each encoding are reported as the bytesPerUpdate counter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FleetFrameEncodingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int vehicles;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper cborMapper = new ObjectMapper(
+            CBORFactory.builder().enable(CBORGenerator.Feature.STRINGREF).build());
+    private final CborEncodingInterceptor interceptor = new CborEncodingInterceptor();
+
+    private FleetFrame frame;
+    private byte[] json;
+
+    /** Encoded size of the last frame, reported next to the timing of each benchmark. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public double bytesPerUpdate;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerUpdate = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        List<FleetDelta> deltas = new ArrayList<>(vehicles);
+        for (int i = 0; i < vehicles; i++) {
+            // Typical tick: every vehicle moved, a few changed speed, status changes are rare
+            deltas.add(new FleetDelta(i + 1, 25 + random.nextDouble() * 24, -124 + random.nextDouble() * 57,
+                    random.nextInt(4) == 0 ? 40 + random.nextDouble() * 40 : null,
+                    random.nextInt(50) == 0 ? "IN_TRANSIT" : null));
+        }
+        frame = new FleetFrame(1, System.currentTimeMillis(), false, deltas, null);
+        json = jsonMapper.writeValueAsBytes(frame);
+    }
+
+    @Benchmark
+    public byte[] json(EncodedSize size) throws Exception {
+        return record(size, jsonMapper.writeValueAsBytes(frame));
+    }
+
+    @Benchmark
+    public byte[] cbor(EncodedSize size) throws Exception {
+        return record(size, cborMapper.writeValueAsBytes(frame));
+    }
+
+    @Benchmark
+    public byte[] transcodeJsonToCbor(EncodedSize size) throws Exception {
+        return record(size, interceptor.toCbor(json));
+    }
+
+    private byte[] record(EncodedSize size, byte[] encoded) {
+        size.bytesPerUpdate = (double) encoded.length / vehicles;
+        return encoded;
+    }
+}
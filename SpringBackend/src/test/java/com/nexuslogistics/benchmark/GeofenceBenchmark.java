@@ -0,0 +1,97 @@
+package com.nexuslogistics.benchmark;
+
+import com.nexuslogistics.geo.GeoFence;
+import com.nexuslogistics.geo.GeofenceIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-position geofence evaluation: the grid index against the brute-force
+ * haversine scan over every fence that GeofencingService used to do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeofenceBenchmark {
+
+    @Param({"1000", "100000"})
+    public int fences;
+
+    private GeofenceIndex index;
+    private double[] fenceLats;
+    private double[] fenceLngs;
+    private double[] probeLats;
+    private double[] probeLngs;
+    private long[] probeVehicles;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new GeofenceIndex(0.01);
+        fenceLats = new double[fences];
+        fenceLngs = new double[fences];
+        // Continental US bounding box
+        for (int i = 0; i < fences; i++) {
+            fenceLats[i] = 25 + random.nextDouble() * 24;
+            fenceLngs[i] = -124 + random.nextDouble() * 57;
+            index.put(GeoFence.circle(i + 1, random.nextInt(10_000) + 1, "F" + i, fenceLats[i], fenceLngs[i], 800));
+        }
+
+        probeLats = new double[10_000];
+        probeLngs = new double[10_000];
+        probeVehicles = new long[10_000];
+        for (int i = 0; i < probeLats.length; i++) {
+            // Half of the probes sit next to a fence so the exact test is exercised
+            int near = random.nextInt(fences);
+            boolean close = random.nextBoolean();
+            probeLats[i] = close ? fenceLats[near] + 0.002 : 25 + random.nextDouble() * 24;
+            probeLngs[i] = close ? fenceLngs[near] - 0.002 : -124 + random.nextDouble() * 57;
+            probeVehicles[i] = random.nextInt(10_000) + 1;
+        }
+    }
+
+    @Benchmark
+    public void gridIndex(Blackhole bh) {
+        int i = next();
+        List<GeoFence> hits = new ArrayList<>(2);
+        index.query(probeLats[i], probeLngs[i], probeVehicles[i], hits);
+        bh.consume(hits);
+    }
+
+    @Benchmark
+    public void bruteForceHaversine(Blackhole bh) {
+        int i = next();
+        int hits = 0;
+        for (int f = 0; f < fences; f++) {
+            if (haversineMeters(probeLats[i], probeLngs[i], fenceLats[f], fenceLngs[f]) <= 800.0) hits++;
+        }
+        bh.consume(hits);
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 1) % probeLats.length;
+        return i;
+    }
+
+    // The per-pair formula GeofencingService used before the grid index
+    private static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        final int R = 6371;
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return R * c * 1000.0;
+    }
+}
@@ -0,0 +1,93 @@
+package com.nexuslogistics.benchmark;
+
+import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.model.Vehicle;
+import com.nexuslogistics.model.VehicleState;
+import com.nexuslogistics.repository.ShipmentRepository;
+import com.nexuslogistics.service.GeofencingService;
+import com.nexuslogistics.service.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GeofencingService per position update with the destination fences of in-transit
+ * shipments loaded: the indexed {@code evaluate} and the single-pair
+ * {@code evaluateShipmentGeofence}. Vehicles stay outside their fences, which is the
+ * common case and keeps event publishing out of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeofencingServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    public int shipments;
+
+    private GeofencingService service;
+    private VehicleState[] vehicles;
+    private Shipment[] pairedShipments;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        service = new GeofencingService();
+        ReflectionTestUtils.setField(service, "notificationService", Mockito.mock(NotificationService.class));
+        ReflectionTestUtils.setField(service, "shipmentRepository", Mockito.mock(ShipmentRepository.class));
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "cellDegrees", 0.01);
+        ReflectionTestUtils.setField(service, "enterConfirmations", 1);
+        ReflectionTestUtils.setField(service, "exitConfirmations", 2);
+        ReflectionTestUtils.setField(service, "exitMarginMeters", 100.0);
+        ReflectionTestUtils.setField(service, "dwellMs", 300_000L);
+        ReflectionTestUtils.setField(service, "maxVisits", 500_000);
+        service.init();
+
+        Random random = new Random(42);
+        int vehicleCount = Math.min(shipments, 10_000);
+        pairedShipments = new Shipment[vehicleCount];
+        for (int i = 0; i < shipments; i++) {
+            long vehicleId = i % vehicleCount + 1;
+            // Continental US bounding box
+            Shipment shipment = Shipment.builder().id((long) i + 1).sId("S" + i).destination("D" + i)
+                    .status("IN_TRANSIT").latitude(25 + random.nextDouble() * 24)
+                    .longitude(-124 + random.nextDouble() * 57)
+                    .assignedVehicle(Vehicle.builder().id(vehicleId).build()).build();
+            service.onShipmentChanged(shipment);
+            if (i < vehicleCount) pairedShipments[i] = shipment;
+        }
+
+        vehicles = new VehicleState[vehicleCount];
+        for (int i = 0; i < vehicleCount; i++) {
+            // A few kilometres short of the destination
+            Shipment target = pairedShipments[i];
+            vehicles[i] = new VehicleState(i + 1, "V" + i, "P" + i, "Truck", null,
+                    target.getLatitude() + 0.03, target.getLongitude(), 60, 100, 0, null, null,
+                    "ACTIVE", 1000, i, 0);
+        }
+    }
+
+    @Benchmark
+    public void evaluate() {
+        service.evaluate(vehicles[next()]);
+    }
+
+    @Benchmark
+    public void evaluateShipmentGeofence() {
+        int i = next();
+        service.evaluateShipmentGeofence(vehicles[i], pairedShipments[i]);
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 1) % vehicles.length;
+        return i;
+    }
+}
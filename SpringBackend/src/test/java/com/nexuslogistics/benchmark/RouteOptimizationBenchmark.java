@@ -0,0 +1,76 @@
+package com.nexuslogistics.benchmark;
+
+import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.service.DistanceMatrixService;
+import com.nexuslogistics.service.RouteOptimizationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-vehicle route optimization end to end: matrix, greedy construction and the
+ * 2-opt / Or-opt stage. "cold" builds the matrix on every call, "cached" re-optimizes
+ * the same stops from a vehicle that moves between calls, reusing the stop matrix from
+ * DistanceMatrixService.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteOptimizationBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int stops;
+
+    private RouteOptimizationService cold;
+    private RouteOptimizationService cached;
+    private List<Shipment> shipments;
+    private int calls;
+
+    @Setup
+    public void setUp() {
+        cold = service(0);
+        cached = service(4_000_000);
+
+        Random random = new Random(42);
+        shipments = new ArrayList<>(stops);
+        for (int i = 0; i < stops; i++) {
+            // A metro area, with every shipment fitting in one vehicle
+            shipments.add(Shipment.builder().id((long) i + 1).status("PENDING")
+                    .latitude(40.5 + random.nextDouble() * 0.5).longitude(-74.3 + random.nextDouble() * 0.6)
+                    .weightKg(10 + random.nextInt(40)).build());
+        }
+    }
+
+    @Benchmark
+    public List<Shipment> cold() {
+        return cold.optimizeRoute(40.75, -74.0, shipments, Double.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Shipment> cached() {
+        double lat = 40.75 + (calls++ % 1000) * 1e-5; // the vehicle drives on
+        return cached.optimizeRoute(lat, -74.0, shipments, Double.MAX_VALUE);
+    }
+
+    private static RouteOptimizationService service(long matrixCacheMaxCells) {
+        DistanceMatrixService matrices = new DistanceMatrixService();
+        ReflectionTestUtils.setField(matrices, "providerName", "haversine");
+        ReflectionTestUtils.setField(matrices, "maxCachedCells", matrixCacheMaxCells);
+        matrices.init();
+
+        RouteOptimizationService service = new RouteOptimizationService();
+        ReflectionTestUtils.setField(service, "distanceMatrixService", matrices);
+        ReflectionTestUtils.setField(service, "improvementBudgetMs", 50L);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,70 @@
+package com.nexuslogistics.benchmark;
+
+import com.nexuslogistics.dto.OptimizationJobView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the NotificationService payloads into STOMP messages, with the
+ * converter configured as Spring Boot configures the broker's. Fleet frames are
+ * covered by FleetFrameEncodingBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StompPayloadBenchmark {
+
+    private MappingJackson2MessageConverter converter;
+    private Map<String, Object> trackingUpdate;
+    private Map<String, Object> geofenceEvent;
+    private OptimizationJobView jobUpdate;
+
+    @Setup
+    public void setUp() {
+        converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(Jackson2ObjectMapperBuilder.json().build());
+
+        // Same shapes as NotificationService sends
+        trackingUpdate = Map.of(
+                "shipmentId", "SH-10422",
+                "status", "IN_TRANSIT",
+                "message", "NexusLogistics Update: Your shipment SH-10422 is now IN_TRANSIT.",
+                "timestamp", LocalDateTime.now());
+        geofenceEvent = Map.of(
+                "type", "ENTER",
+                "vehicleId", 42L,
+                "vehicle", "VN-42",
+                "fenceId", 10422L,
+                "fence", "Destination 10422",
+                "insideForMs", 0L,
+                "timestamp", System.currentTimeMillis());
+        jobUpdate = OptimizationJobView.builder()
+                .id("5f0c2a9e-3c1b-4f7e-9a55-0d6c1f3e2b7a").type("FLEET").status("RUNNING")
+                .phase("relocate").bestCost(1523.4).cached(false)
+                .submittedAt(LocalDateTime.now()).startedAt(LocalDateTime.now()).build();
+    }
+
+    @Benchmark
+    public Message<?> trackingUpdate() {
+        return converter.toMessage(trackingUpdate, null);
+    }
+
+    @Benchmark
+    public Message<?> geofenceEvent() {
+        return converter.toMessage(geofenceEvent, null);
+    }
+
+    @Benchmark
+    public Message<?> jobUpdate() {
+        return converter.toMessage(jobUpdate, null);
+    }
+}
@@ -0,0 +1,90 @@
+package com.nexuslogistics.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CborEncodingInterceptorTest {
+
+    private static final byte[] JSON = "{\"seq\":1,\"vehicles\":[{\"id\":7,\"lat\":40.5,\"lng\":-74.0}]}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final CborEncodingInterceptor interceptor = new CborEncodingInterceptor();
+
+    private void subscribe(String sessionId, String subscriptionId, boolean binaryCapable) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination("/topic/fleet");
+        accessor.setNativeHeader(CborEncodingInterceptor.ENCODING_HEADER, "cbor");
+        Map<String, Object> attributes = new HashMap<>();
+        if (binaryCapable) attributes.put(CborEncodingInterceptor.BINARY_CAPABLE_ATTRIBUTE, Boolean.TRUE);
+        accessor.setSessionAttributes(attributes);
+        interceptor.subscriptionTracker().preSend(
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private Message<?> deliver(String sessionId, String subscriptionId, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination("/topic/fleet");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return interceptor.preSend(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()), null);
+    }
+
+    @Test
+    void encodesOptedInSubscriptionsAsCbor() throws Exception {
+        subscribe("s1", "sub-0", true);
+
+        Message<?> encoded = deliver("s1", "sub-0", JSON);
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(encoded);
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, headers.getContentType());
+        assertEquals("cbor", headers.getFirstNativeHeader(CborEncodingInterceptor.ENCODING_HEADER));
+
+        JsonNode decoded = new ObjectMapper(new CBORFactory()).readTree((byte[]) encoded.getPayload());
+        assertEquals(new ObjectMapper().readTree(JSON), decoded);
+        assertTrue(((byte[]) encoded.getPayload()).length < JSON.length);
+
+        // The same broker payload fanned out to another session is transcoded once
+        subscribe("s2", "sub-3", true);
+        assertSame(encoded.getPayload(), deliver("s2", "sub-3", JSON).getPayload());
+    }
+
+    @Test
+    void keepsJsonByDefaultAndOnTextOnlyTransports() {
+        subscribe("sockjs", "sub-0", false);
+
+        assertSame(JSON, deliver("sockjs", "sub-0", JSON).getPayload());
+        assertSame(JSON, deliver("other", "sub-0", JSON).getPayload());
+    }
+
+    @Test
+    void passesInboundSendFramesThrough() {
+        subscribe("s1", "sub-0", true);
+
+        // A SEND from the same session, e.g. a viewport update, is typed MESSAGE but has no subscription
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setSessionId("s1");
+        accessor.setDestination("/app/fleet/viewport");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        Message<byte[]> send = MessageBuilder.createMessage(JSON, accessor.getMessageHeaders());
+
+        assertSame(send, interceptor.subscriptionTracker().preSend(send, null));
+        assertSame(send, interceptor.preSend(send, null));
+    }
+}
@@ -0,0 +1,121 @@
+package com.nexuslogistics.config;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the relay broker mode against an embedded Artemis broker standing in for the
+ * external STOMP broker a multi-node deployment would use.
+ */
+@SpringJUnitWebConfig(WebSocketConfigRelayTest.TestConfig.class)
+public class WebSocketConfigRelayTest {
+
+    @Configuration
+    @Import({ WebSocketConfig.class, CborEncodingInterceptor.class })
+    static class TestConfig {
+    }
+
+    private static final int STOMP_PORT = freePort();
+    private static final EmbeddedActiveMQ BROKER = startBroker();
+
+    @DynamicPropertySource
+    static void relayProperties(DynamicPropertyRegistry registry) {
+        registry.add("nexus.broker.mode", () -> "relay");
+        registry.add("nexus.broker.relay.host", () -> "127.0.0.1");
+        registry.add("nexus.broker.relay.port", () -> STOMP_PORT);
+    }
+
+    @Autowired
+    private SimpMessagingTemplate brokerMessagingTemplate;
+
+    @Autowired
+    private AbstractBrokerMessageHandler stompBrokerRelayMessageHandler;
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        BROKER.stop();
+    }
+
+    @Test
+    void publishesThroughTheExternalBroker() throws Exception {
+        for (int i = 0; i < 100 && !stompBrokerRelayMessageHandler.isBrokerAvailable(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(stompBrokerRelayMessageHandler.isBrokerAvailable());
+
+        // A client connected to the broker directly sees what this node publishes, as another node would
+        ReactorNettyTcpStompClient client = new ReactorNettyTcpStompClient("127.0.0.1", STOMP_PORT);
+        client.setMessageConverter(new StringMessageConverter());
+        StompHeaders connect = new StompHeaders();
+        connect.setLogin("guest");
+        connect.setPasscode("guest");
+        StompSession session = client.connectAsync(connect, new StompSessionHandlerAdapter() { })
+                .get(10, TimeUnit.SECONDS);
+
+        BlockingQueue<String> received = new ArrayBlockingQueue<>(1);
+        session.subscribe("/topic/fleet", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.offer((String) payload);
+            }
+        });
+        Thread.sleep(500); // let the subscription reach the broker
+
+        brokerMessagingTemplate.convertAndSend("/topic/fleet", "frame-1");
+        assertEquals("frame-1", received.poll(10, TimeUnit.SECONDS));
+
+        session.disconnect();
+        client.shutdown();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static EmbeddedActiveMQ startBroker() {
+        try {
+            EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+            broker.setConfiguration(new ConfigurationImpl()
+                    .setPersistenceEnabled(false)
+                    .setSecurityEnabled(false)
+                    .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + STOMP_PORT + "?protocols=STOMP"));
+            broker.start();
+            return broker;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.nexuslogistics.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeofenceIndexTest {
+
+    private static List<Long> hits(GeofenceIndex index, double lat, double lng, long vehicleId) {
+        List<GeoFence> hits = new ArrayList<>();
+        index.query(lat, lng, vehicleId, hits);
+        return hits.stream().map(GeoFence::getId).toList();
+    }
+
+    @Test
+    void findsFencesByCellAndExactShape() {
+        GeofenceIndex index = new GeofenceIndex(0.01);
+        index.put(GeoFence.circle(1, 7, "depot", 40.7, -74.0, 200));
+        index.put(GeoFence.polygon(-1, 0, "yard", new double[]{40.70, 40.70, 40.71}, new double[]{-74.01, -73.99, -74.0}));
+
+        assertEquals(List.of(1L, -1L), hits(index, 40.7005, -74.0, 7));
+        assertEquals(List.of(-1L), hits(index, 40.7005, -74.0, 8)); // the depot fence belongs to vehicle 7
+        assertEquals(List.of(), hits(index, 40.709, -74.008, 7)); // inside the yard's bounding box only
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void replacesAMovedFenceInPlace() {
+        GeofenceIndex index = new GeofenceIndex(0.01);
+        index.put(GeoFence.circle(1, 7, "drop", 40.7, -74.0, 200));
+        index.put(GeoFence.circle(1, 7, "drop", 40.75, -74.0, 200));
+
+        assertEquals(List.of(), hits(index, 40.7, -74.0, 7));
+        assertEquals(List.of(1L), hits(index, 40.75, -74.0, 7));
+        assertEquals(1, index.size());
+
+        // Growing the fence keeps one copy in the cells both versions share
+        index.put(GeoFence.circle(1, 7, "drop", 40.75, -74.0, 2_000));
+        assertEquals(List.of(1L), hits(index, 40.75, -74.0, 7));
+        assertEquals(List.of(1L), hits(index, 40.765, -74.0, 7));
+    }
+
+    @Test
+    void keepsTheStoredFenceWhenNothingChanged() {
+        GeofenceIndex index = new GeofenceIndex(0.01);
+        GeoFence fence = GeoFence.circle(1, 7, "drop", 40.7, -74.0, 200);
+        index.put(fence);
+        index.put(GeoFence.circle(1, 7, "drop", 40.7, -74.0, 200));
+
+        assertSame(fence, index.get(1));
+        assertEquals(List.of(1L), hits(index, 40.7, -74.0, 7));
+    }
+
+    @Test
+    void removesGriddedAndOversizedFences() {
+        GeofenceIndex index = new GeofenceIndex(0.01);
+        index.put(GeoFence.circle(1, 0, "drop", 40.7, -74.0, 200));
+        index.put(GeoFence.circle(2, 0, "state", 40.7, -74.0, 100_000)); // too many cells to grid
+
+        assertEquals(List.of(1L, 2L), hits(index, 40.7, -74.0, 7));
+        assertEquals(List.of(2L), hits(index, 41.2, -74.0, 7));
+
+        // Shrinking the oversized fence moves it onto the grid
+        index.put(GeoFence.circle(2, 0, "state", 40.7, -74.0, 500));
+        assertEquals(List.of(1L, 2L), hits(index, 40.7, -74.0, 7));
+        assertEquals(List.of(), hits(index, 41.2, -74.0, 7));
+
+        assertNotNull(index.remove(1));
+        assertNotNull(index.remove(2));
+        assertNull(index.remove(2));
+        assertEquals(List.of(), hits(index, 40.7, -74.0, 7));
+        assertEquals(0, index.size());
+    }
+}
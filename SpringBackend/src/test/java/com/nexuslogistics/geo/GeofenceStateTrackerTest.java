@@ -0,0 +1,117 @@
+package com.nexuslogistics.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeofenceStateTrackerTest {
+
+    // 500m circle; 0.0045 deg of latitude is roughly 500m
+    private final GeoFence fence = GeoFence.circle(7L, 1L, "Depot", 40.0, -74.0, 500);
+
+    private List<GeofenceEvent> at(GeofenceStateTracker tracker, double lat, long now) {
+        GeofenceIndex index = new GeofenceIndex(0.01);
+        index.put(fence);
+        List<GeoFence> hits = new ArrayList<>();
+        index.query(lat, -74.0, 1L, hits);
+        return tracker.update(1L, lat, -74.0, hits, index::get, now);
+    }
+
+    @Test
+    void enterDwellAndExitAreReportedOnce() {
+        GeofenceStateTracker tracker = new GeofenceStateTracker(1, 2, 100, 60_000, 1000);
+
+        List<GeofenceEvent> events = at(tracker, 40.0, 0);
+        assertEquals(1, events.size());
+        assertEquals(GeofenceEvent.Type.ENTER, events.get(0).getType());
+        assertTrue(at(tracker, 40.001, 10_000).isEmpty());
+
+        events = at(tracker, 40.0, 61_000);
+        assertEquals(GeofenceEvent.Type.DWELL, events.get(0).getType());
+        assertTrue(at(tracker, 40.0, 62_000).isEmpty());
+
+        // Two samples well outside the margin are needed to exit
+        assertTrue(at(tracker, 40.02, 63_000).isEmpty());
+        events = at(tracker, 40.02, 64_000);
+        assertEquals(GeofenceEvent.Type.EXIT, events.get(0).getType());
+        assertEquals(64_000, events.get(0).getInsideForMs());
+        assertEquals(0, tracker.getVisitCount());
+        assertEquals(0, tracker.getTrackedVehicles());
+    }
+
+    @Test
+    void jitterWithinExitMarginDoesNotFlap() {
+        GeofenceStateTracker tracker = new GeofenceStateTracker(1, 1, 100, 60_000, 1000);
+        at(tracker, 40.0, 0);
+
+        // ~530m out: outside the radius but inside radius + margin
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(at(tracker, i % 2 == 0 ? 40.0048 : 40.0044, i * 1000).isEmpty());
+        }
+        assertTrue(tracker.isInside(1L, 7L));
+    }
+
+    @Test
+    void entryNeedsConfirmations() {
+        GeofenceStateTracker tracker = new GeofenceStateTracker(2, 1, 100, 60_000, 1000);
+
+        assertTrue(at(tracker, 40.0, 0).isEmpty());
+        assertFalse(tracker.isInside(1L, 7L));
+        assertEquals(GeofenceEvent.Type.ENTER, at(tracker, 40.0, 1000).get(0).getType());
+    }
+
+    @Test
+    void evictionKeepsStateBounded() {
+        GeofenceStateTracker tracker = new GeofenceStateTracker(1, 1, 100, 60_000, 1000);
+        at(tracker, 40.0, 0);
+        assertEquals(1, tracker.getVisitCount());
+
+        tracker.evictFence(7L, 1L);
+        assertEquals(0, tracker.getVisitCount());
+        assertEquals(0, tracker.getTrackedVehicles());
+
+        at(tracker, 40.0, 0);
+        assertEquals(1, tracker.evictIdle(1));
+        assertEquals(0, tracker.getTrackedVehicles());
+    }
+
+    @Test
+    void newVisitsAreShedAtCapacity() {
+        GeofenceStateTracker tracker = new GeofenceStateTracker(1, 1, 100, 60_000, 1);
+        GeoFence other = GeoFence.circle(8L, 0L, "Yard", 40.0, -74.0, 500);
+
+        assertEquals(1, tracker.observe(1L, fence, 40.0, -74.0, 0).size());
+        assertTrue(tracker.observe(1L, other, 40.0, -74.0, 0).isEmpty());
+        assertEquals(1, tracker.getVisitCount());
+    }
+
+    @Test
+    void tracksManyVehiclesPerStripe() {
+        GeofenceStateTracker tracker = new GeofenceStateTracker(1, 1, 100, 60_000, 10_000);
+        GeoFence far = GeoFence.circle(8L, 0L, "Yard", 41.0, -74.0, 500);
+        for (long vehicle = 1; vehicle <= 2000; vehicle++) {
+            tracker.observe(vehicle, fence, 40.0, -74.0, 0);
+            if (vehicle % 2 == 0) tracker.observe(vehicle, far, 41.0, -74.0, 0);
+        }
+        assertEquals(2000, tracker.getTrackedVehicles());
+        assertEquals(3000, tracker.getVisitCount());
+
+        // Odd vehicles leave their only fence and are forgotten
+        for (long vehicle = 1; vehicle <= 2000; vehicle += 2) {
+            assertEquals(1, tracker.observe(vehicle, fence, 40.02, -74.0, 1).size());
+        }
+        assertEquals(1000, tracker.getTrackedVehicles());
+        for (long vehicle = 1; vehicle <= 2000; vehicle++) {
+            assertEquals(vehicle % 2 == 0, tracker.isInside(vehicle, fence.getId()));
+        }
+
+        tracker.evictFence(fence.getId(), 0);
+        assertEquals(1000, tracker.getVisitCount());
+        assertTrue(tracker.isInside(2000L, far.getId()));
+        assertEquals(1000, tracker.evictIdle(1));
+        assertEquals(0, tracker.getTrackedVehicles());
+    }
+}
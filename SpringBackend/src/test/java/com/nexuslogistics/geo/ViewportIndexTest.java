@@ -0,0 +1,80 @@
+package com.nexuslogistics.geo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ViewportIndexTest {
+
+    @Test
+    void findsViewersByCellAndExactBounds() {
+        ViewportIndex<String> index = new ViewportIndex<>(0.5);
+        index.put("city", BoundingBox.parse("40.6,-74.1,40.9,-73.7"));
+        index.put("world", BoundingBox.parse("-90,-180,90,180"));
+
+        List<String> viewers = new ArrayList<>();
+        index.query(40.7, -74.0, viewers);
+        assertEquals(List.of("city", "world"), viewers);
+
+        viewers.clear();
+        index.query(40.55, -74.0, viewers); // same grid cell, outside the city box
+        assertEquals(List.of("world"), viewers);
+
+        index.remove("world");
+        viewers.clear();
+        index.query(10, 10, viewers);
+        assertTrue(viewers.isEmpty());
+    }
+
+    @Test
+    void concurrentUpdatesOfOneViewerLeaveNoStaleCells() throws Exception {
+        ViewportIndex<String> index = new ViewportIndex<>(0.5);
+        List<List<BoundingBox>> pans = List.of(
+                BoundingBox.parse("40,-75,42,-73"), BoundingBox.parse("50,0,52,2"), BoundingBox.parse("-35,150,-33,152"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int first = t;
+            done.add(pool.submit(() -> {
+                for (int i = 0; i < 2000; i++) index.put("map", pans.get((first + i) % pans.size()));
+            }));
+        }
+        for (Future<?> future : done) future.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        index.remove("map");
+        assertEquals(0, index.size());
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(index, "cells")).isEmpty());
+    }
+
+    @Test
+    void splitsBoxesCrossingTheAntimeridian() {
+        List<BoundingBox> boxes = BoundingBox.parse("-10,170,10,-170");
+        assertEquals(2, boxes.size());
+
+        ViewportIndex<String> index = new ViewportIndex<>(1);
+        index.put("pacific", boxes);
+        assertTrue(index.covers("pacific", 0, 179.5));
+        assertTrue(index.covers("pacific", 0, -179.5));
+        assertFalse(index.covers("pacific", 0, 0));
+    }
+
+    @Test
+    void tileBoundsMatchSlippyMapScheme() {
+        BoundingBox tile = BoundingBox.ofTile("1/1/0"); // north-east quarter of the world
+        assertEquals(0, tile.getMinLat(), 1e-9);
+        assertEquals(85.0511, tile.getMaxLat(), 1e-4);
+        assertEquals(0, tile.getMinLng(), 1e-9);
+        assertEquals(180, tile.getMaxLng(), 1e-9);
+    }
+}
@@ -0,0 +1,155 @@
+package com.nexuslogistics.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexuslogistics.controller.LeaderboardController;
+import com.nexuslogistics.dto.ShipmentDTO;
+import com.nexuslogistics.dto.VehicleDTO;
+import com.nexuslogistics.model.DriverProfile;
+import com.nexuslogistics.model.DriverScore;
+import com.nexuslogistics.model.ERole;
+import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.model.User;
+import com.nexuslogistics.model.Vehicle;
+import com.nexuslogistics.service.DispatchPlanService;
+import com.nexuslogistics.service.FleetStateRegistry;
+import com.nexuslogistics.service.GeofencingService;
+import com.nexuslogistics.service.NotificationService;
+import com.nexuslogistics.service.ShipmentService;
+import com.nexuslogistics.service.VehicleService;
+import com.nexuslogistics.storage.ContentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Holds each list endpoint to a query budget that does not grow with the number of
+ * rows, JSON serialization included where the endpoint returns entities. The session
+ * stays open for the whole test, as it does for a web request, so a lazy association
+ * left out of a fetch plan shows up as one extra statement per row.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false", // the migrations are PostgreSQL-only; H2 gets the schema from Hibernate
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.nexuslogistics.repository.QueryCounter"})
+@Import({VehicleService.class, ShipmentService.class, LeaderboardController.class})
+public class QueryBudgetTest {
+
+    private static final int DRIVERS = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private ShipmentService shipmentService;
+
+    @Autowired
+    private LeaderboardController leaderboardController;
+
+    @MockBean
+    private FleetStateRegistry fleetStateRegistry; // not loaded, so vehicles are listed from the database
+
+    @MockBean
+    private ShipmentQueryRepository shipmentQueryRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @MockBean
+    private GeofencingService geofencingService;
+
+    @MockBean
+    private DispatchPlanService dispatchPlanService;
+
+    @MockBean
+    private ContentStore contentStore;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private Long vehicleId;
+
+    // One user, driver, score and vehicle per driver, each vehicle carrying two pending shipments
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < DRIVERS; i++) {
+            User user = entityManager.persist(User.builder()
+                    .username("driver" + i).email("driver" + i + "@example.com").password("x")
+                    .role(ERole.ROLE_DRIVER).build());
+            DriverProfile driver = entityManager.persist(DriverProfile.builder()
+                    .user(user).licenseNumber("LIC-" + i).status("ACTIVE").build());
+            entityManager.persist(DriverScore.builder().driver(driver).ecoScore(i).safetyScore(i).build());
+            Vehicle vehicle = entityManager.persist(Vehicle.builder()
+                    .vId("VN-" + i).plate("P" + i).name("Truck").driver(driver).status("ACTIVE").build());
+            vehicleId = vehicle.getId();
+            for (int j = 0; j < 2; j++) {
+                entityManager.persist(Shipment.builder()
+                        .sId("SH-" + i + "-" + j).customer("customer" + i).status("PENDING")
+                        .created(LocalDateTime.now()).assignedVehicle(vehicle).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testVehicleListIsOneQuery() {
+        List<VehicleDTO> vehicles = QueryCounter.assertAtMost(1, "GET /api/vehicles", vehicleService::getAllVehicles);
+
+        assertEquals(DRIVERS, vehicles.size());
+        assertTrue(vehicles.stream().allMatch(vehicle -> vehicle.getDriver().startsWith("driver")));
+    }
+
+    @Test
+    public void testShipmentListsAreOneQueryEach() {
+        List<ShipmentDTO> all = QueryCounter.assertAtMost(1, "GET /api/shipments", shipmentService::getAllShipments);
+        List<ShipmentDTO> pending = QueryCounter.assertAtMost(1, "shipments by status",
+                () -> shipmentService.getShipmentsByStatus("PENDING"));
+        List<ShipmentDTO> byVehicle = QueryCounter.assertAtMost(1, "shipments by vehicle",
+                () -> shipmentService.getShipmentsByVehicle(vehicleId));
+
+        assertEquals(2 * DRIVERS, all.size());
+        assertEquals(2 * DRIVERS, pending.size());
+        assertEquals(2, byVehicle.size());
+        assertTrue(all.stream().allMatch(shipment -> shipment.getAssignedVehicleId() != null));
+    }
+
+    @Test
+    public void testEntityResponsesAreOneQueryEach() {
+        // Dispatch returns the shipments themselves, vehicle and driver included
+        String plan = QueryCounter.assertAtMost(1, "POST /api/dispatch/fleet-plan",
+                () -> toJson(() -> shipmentRepository.findByStatus("PENDING")));
+        String route = QueryCounter.assertAtMost(1, "POST /api/dispatch/optimize/{vehicleId}",
+                () -> toJson(() -> shipmentRepository.findByAssignedVehicleId(vehicleId)));
+        String leaderboard = QueryCounter.assertAtMost(1, "GET /api/leaderboard",
+                () -> toJson(leaderboardController::getEcoLeaderboard));
+
+        assertTrue(plan.contains("\"username\":\"driver7\""));
+        assertTrue(route.contains("\"username\":\"driver" + (DRIVERS - 1) + "\""));
+        assertTrue(leaderboard.contains("\"username\":\"driver19\""));
+    }
+
+    private String toJson(Supplier<?> work) {
+        try {
+            return objectMapper.writeValueAsString(work.get());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.nexuslogistics.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the SQL statements Hibernate prepares so a test can hold an operation to a
+ * fixed query budget. Registered with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final AtomicInteger statements = new AtomicInteger();
+
+    @Override
+    public String inspect(String sql) {
+        statements.incrementAndGet();
+        return sql;
+    }
+
+    /**
+     * Runs the work and fails if it took more than {@code budget} statements, whatever
+     * the number of rows involved.
+     */
+    public static <T> T assertAtMost(int budget, String operation, Supplier<T> work) {
+        statements.set(0);
+        T result = work.get();
+        int count = statements.get();
+        assertTrue(count <= budget, () -> operation + " ran " + count + " statements, the budget is " + budget);
+        return result;
+    }
+}
@@ -0,0 +1,141 @@
+package com.nexuslogistics.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Applies the Flyway migrations to PostgreSQL, seeds a dataset the size of a busy
+ * deployment and checks that the planner serves each repository access path from its
+ * index. Runs against -Dnexus.test.jdbcUrl (plus jdbcUser/jdbcPassword) when given,
+ * in a schema of its own, or else a Testcontainers PostgreSQL; without either it is
+ * skipped.
+ */
+public class QueryPlanTest {
+
+    private static final String SCHEMA = "nexus_query_plan_test";
+    private static final int SHIPMENTS = 500_000;
+
+    private static PostgreSQLContainer<?> container;
+    private static JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    public static void setUp() {
+        String url = System.getProperty("nexus.test.jdbcUrl");
+        String user = System.getProperty("nexus.test.jdbcUser", "postgres");
+        String password = System.getProperty("nexus.test.jdbcPassword", "");
+        if (url == null) {
+            assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Needs Docker or -Dnexus.test.jdbcUrl");
+            container = new PostgreSQLContainer<>("postgres:15-alpine"); // as in docker-compose.yml
+            container.start();
+            url = container.getJdbcUrl();
+            user = container.getUsername();
+            password = container.getPassword();
+        }
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA, user, password);
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(SCHEMA)
+                .cleanDisabled(false)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false")) // as the application
+                .load();
+        flyway.clean();
+        flyway.migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        seed();
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        if (container != null) container.stop();
+    }
+
+    // Mostly delivered history with a thin layer of open shipments, as in production
+    private static void seed() {
+        jdbc.update("INSERT INTO users (username, email, password, role, enabled) "
+                + "SELECT 'user' || i, 'user' || i || '@example.com', 'x', 'ROLE_DRIVER', true "
+                + "FROM generate_series(1, 50000) i");
+        jdbc.update("INSERT INTO driver_profile (user_id, license_number, status, rating, total_trips) "
+                + "SELECT i, 'LIC-' || i, 'ACTIVE', 4.5, i % 500 FROM generate_series(1, 20000) i");
+        jdbc.update("INSERT INTO driver_score (driver_id, safety_score, eco_score, total_fuel_saved, rank) "
+                + "SELECT 1 + i % 20000, i % 100, (i * 7919) % 100000, 0, 0 FROM generate_series(1, 200000) i");
+        jdbc.update("INSERT INTO vehicle (v_id, plate, name, driver_id, latitude, longitude, speed, fuel, mileage, "
+                + "status, max_capacity) SELECT 'VN-' || i, 'P' || i, 'Truck', i, 40, -74, 0, 100, 0, 'ACTIVE', 1000 "
+                + "FROM generate_series(1, 20000) i");
+        jdbc.update("INSERT INTO shipment (s_id, customer, recipient_name, origin, destination, destination_address, "
+                + "weight_kg, status, latitude, longitude, created, vehicle_id) "
+                + "SELECT 'SH-' || i, 'customer' || i % 5000, 'Recipient', 'Origin', 'Destination', 'Address', 10, "
+                + "CASE WHEN i % 100 < 2 THEN 'PENDING' WHEN i % 100 < 3 THEN 'IN_TRANSIT' ELSE 'DELIVERED' END, "
+                + "40, -74, TIMESTAMP '2024-01-01' + i * INTERVAL '1 minute', 1 + (i * 31) % 20000 "
+                + "FROM generate_series(1, " + SHIPMENTS + ") i");
+        jdbc.execute("ANALYZE");
+    }
+
+    @Test
+    public void testOpenShipmentsUseThePartialIndex() {
+        String findByStatus = "SELECT * FROM shipment WHERE status = ?";
+        assertUsesIndex("idx_shipment_open_status", findByStatus, "PENDING");
+        assertUsesIndex("idx_shipment_open_status", findByStatus, "IN_TRANSIT");
+    }
+
+    @Test
+    public void testLookupsUseTheirIndexes() {
+        assertUsesIndex("idx_shipment_vehicle_created_id", "SELECT * FROM shipment WHERE vehicle_id = ?", 42L);
+        assertUsesIndex("uk_users_username", "SELECT * FROM users WHERE username = ?", "user4242");
+        assertUsesIndex("idx_driver_profile_license_number",
+                "SELECT * FROM driver_profile WHERE license_number = ?", "LIC-4242");
+        assertUsesIndex("idx_driver_score_eco_score",
+                "SELECT * FROM driver_score ORDER BY eco_score DESC FETCH FIRST ? ROWS ONLY", 100);
+    }
+
+    @Test
+    public void testListingPagesUseTheKeysetIndexes() {
+        String page = "SELECT id, s_id, status, created FROM shipment WHERE 1 = 1";
+        String order = " ORDER BY created DESC, id DESC LIMIT 51";
+        Timestamp deep = Timestamp.valueOf(LocalDateTime.of(2024, 6, 1, 0, 0));
+
+        assertUsesIndex("idx_shipment_created_id", page + order);
+        assertUsesIndex("idx_shipment_created_id", page + " AND (created, id) < (?, ?)" + order, deep, 1000L);
+        // DELIVERED matches nearly every row, so walking idx_shipment_created_id is the better plan there
+        assertUsesIndex("idx_shipment_status_created_id", page + " AND status = ?" + order, "PENDING");
+        assertUsesIndex("idx_shipment_customer_created_id", page + " AND customer = ?" + order, "customer42");
+    }
+
+    private void assertUsesIndex(String index, String sql, Object... args) {
+        String json = jdbc.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, args);
+        List<String> indexes = new ArrayList<>();
+        List<String> seqScans = new ArrayList<>();
+        try {
+            collect(objectMapper.readTree(json).get(0).get("Plan"), indexes, seqScans);
+        } catch (Exception e) {
+            throw new AssertionError("Unreadable plan: " + json, e);
+        }
+        assertTrue(indexes.contains(index), () -> sql + " should use " + index + " but the plan is " + json);
+        assertTrue(seqScans.isEmpty(), () -> sql + " scans " + seqScans + " sequentially: " + json);
+    }
+
+    private static void collect(JsonNode plan, List<String> indexes, List<String> seqScans) {
+        if (plan.has("Index Name")) indexes.add(plan.get("Index Name").asText());
+        if ("Seq Scan".equals(plan.path("Node Type").asText())) seqScans.add(plan.path("Relation Name").asText());
+        for (JsonNode child : plan.path("Plans")) collect(child, indexes, seqScans);
+    }
+}
@@ -0,0 +1,132 @@
+package com.nexuslogistics.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContractionHierarchyTest {
+
+    @Test
+    void matchesDijkstraOnRandomGrid() {
+        assertMatchesDijkstra(randomGrid(20, 0, new Random(9)), true);
+    }
+
+    @Test
+    void keepsShortcutsOverZeroSecondEdges() {
+        // Ferry links, private yards and the like are often exported with no travel time
+        RoadGraph line = new RoadGraph();
+        for (int i = 0; i < 4; i++) line.addNode(51.5, -0.1 + i * 0.01);
+        line.addEdge(0, 1, 700, 0);
+        line.addEdge(1, 2, 700, 0);
+        line.addEdge(2, 3, 700, 0);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(line);
+
+        assertEquals(0, hierarchy.route(0, 3).seconds(), 1e-9);
+        assertEquals(2100, hierarchy.route(0, 3).meters(), 1e-6);
+
+        // Equally fast paths of different lengths are common here, so only seconds are compared
+        assertMatchesDijkstra(randomGrid(20, 0.3, new Random(4)), false);
+    }
+
+    private static void assertMatchesDijkstra(RoadGraph graph, boolean compareMeters) {
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+
+        Random random = new Random(1);
+        int[] nodes = new int[25];
+        for (int i = 0; i < nodes.length; i++) nodes[i] = random.nextInt(graph.getNodeCount());
+        double[] seconds = new double[nodes.length * nodes.length];
+        double[] meters = new double[nodes.length * nodes.length];
+        hierarchy.manyToMany(nodes, nodes, seconds, meters);
+
+        for (int i = 0; i < nodes.length; i++) {
+            double[] expected = dijkstra(graph, nodes[i]);
+            for (int j = 0; j < nodes.length; j++) {
+                double want = expected[nodes[j]];
+                assertEquals(want, seconds[i * nodes.length + j], 1e-3);
+                ContractionHierarchy.PathCost route = hierarchy.route(nodes[i], nodes[j]);
+                if (want == Double.POSITIVE_INFINITY) {
+                    assertNull(route);
+                } else {
+                    assertEquals(want, route.seconds(), 1e-3);
+                    if (compareMeters) assertEquals(meters[i * nodes.length + j], route.meters(), 1e-2);
+                }
+            }
+        }
+    }
+
+    @Test
+    void loadsEdgeListAndSnapsToNearestNode(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("roads.txt");
+        Files.writeString(file, String.join("\n",
+                "# three junctions on a line, the last street one-way",
+                "v 1001 51.500 -0.100",
+                "v 1002 51.500 -0.090",
+                "v 1003 51.500 -0.080",
+                "e 1001 1002 700 60",
+                "e 1002 1003 700 90 1"));
+
+        RoadGraph graph = RoadGraph.load(file);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+
+        assertEquals(3, graph.getNodeCount());
+        assertEquals(3, graph.getEdgeCount());
+        assertEquals(2, hierarchy.nearestNode(51.5001, -0.0801));
+        assertEquals(150, hierarchy.route(0, 2).seconds(), 1e-6);
+        assertEquals(1400, hierarchy.route(0, 2).meters(), 1e-6);
+        assertNull(hierarchy.route(2, 0));
+    }
+
+    private static RoadGraph randomGrid(int side, double zeroShare, Random random) {
+        RoadGraph graph = new RoadGraph();
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                graph.addNode(51 + y * 0.01, x * 0.01);
+            }
+        }
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int v = y * side + x;
+                if (x + 1 < side) addRoad(graph, v, v + 1, zeroShare, random);
+                if (y + 1 < side) addRoad(graph, v, v + side, zeroShare, random);
+            }
+        }
+        return graph;
+    }
+
+    private static void addRoad(RoadGraph graph, int a, int b, double zeroShare, Random random) {
+        float meters = 500 + random.nextInt(1000);
+        float seconds = random.nextDouble() < zeroShare ? 0 : meters / (5 + random.nextInt(20));
+        graph.addEdge(a, b, meters, seconds);
+        if (random.nextInt(5) > 0) graph.addEdge(b, a, meters, seconds); // a fifth are one-way
+    }
+
+    private static double[] dijkstra(RoadGraph graph, int source) {
+        double[] dist = new double[graph.getNodeCount()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[source] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[] { 0, source });
+        while (!queue.isEmpty()) {
+            double[] top = queue.poll();
+            int u = (int) top[1];
+            if (top[0] > dist[u]) continue;
+            for (int e = 0; e < graph.getEdgeCount(); e++) {
+                if (graph.from(e) != u) continue;
+                double d = dist[u] + graph.seconds(e);
+                if (d < dist[graph.to(e)]) {
+                    dist[graph.to(e)] = d;
+                    queue.add(new double[] { d, graph.to(e) });
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,110 @@
+package com.nexuslogistics.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CvrpSolverTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final CvrpSolver solver = new CvrpSolver(20, pool);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void servesEveryStopOnceWithinCapacity() {
+        CvrpProblem problem = randomProblem(400, 30, 100, new Random(3));
+
+        CvrpSolution solution = solver.solve(problem, 500);
+
+        assertEquals(0, solution.getUnassigned().length);
+        int[] seen = new int[problem.stopCount()];
+        for (int v = 0; v < problem.vehicleCount(); v++) {
+            double load = 0;
+            for (int stop : solution.getRoutes()[v]) {
+                seen[stop]++;
+                load += problem.getDemands()[stop];
+            }
+            assertTrue(load <= problem.getCapacities()[v] + 1e-9, "vehicle " + v + " overloaded");
+        }
+        for (int count : seen) {
+            assertEquals(1, count);
+        }
+    }
+
+    @Test
+    void reportsStopsThatDoNotFit() {
+        // Ten stops of 30 kg, two vehicles of 100 kg: six fit, four are left over
+        Random random = new Random(5);
+        double[] lats = new double[10];
+        double[] lngs = new double[10];
+        double[] demands = new double[10];
+        for (int i = 0; i < 10; i++) {
+            lats[i] = 51 + random.nextDouble() * 0.1;
+            lngs[i] = random.nextDouble() * 0.1;
+            demands[i] = 30;
+        }
+        CvrpProblem problem = new CvrpProblem(lats, lngs, demands,
+                new double[] { 51, 51.1 }, new double[] { 0, 0.1 }, new double[] { 100, 100 });
+
+        CvrpSolution solution = solver.solve(problem, 200);
+
+        assertEquals(3, solution.getRoutes()[0].length);
+        assertEquals(3, solution.getRoutes()[1].length);
+        assertEquals(4, solution.getUnassigned().length);
+    }
+
+    @Test
+    void reportsKmFromTheProvider() {
+        // Every leg costs 1 km on this provider, so each route costs one km per stop
+        TravelTimeProvider unitLegs = new TravelTimeProvider() {
+            @Override
+            public String getName() {
+                return "unit";
+            }
+
+            @Override
+            public DistanceMatrix matrix(double[] lats, double[] lngs) {
+                int n = lats.length;
+                double[] distances = new double[n * n];
+                for (int i = 0; i < n * n; i++) distances[i] = i % (n + 1) == 0 ? 0 : 1;
+                return new DistanceMatrix(n, distances);
+            }
+        };
+        CvrpProblem problem = randomProblem(60, 5, 100, new Random(9));
+
+        CvrpSolution solution = new CvrpSolver(20, pool, unitLegs).solve(problem, 200);
+
+        for (int v = 0; v < problem.vehicleCount(); v++) {
+            assertEquals(solution.getRoutes()[v].length, solution.getRouteKm()[v], 1e-9);
+        }
+        assertEquals(60 - solution.getUnassigned().length, solution.getTotalKm(), 1e-9);
+    }
+
+    private static CvrpProblem randomProblem(int stops, int vehicles, double capacity, Random random) {
+        double[] lats = new double[stops];
+        double[] lngs = new double[stops];
+        double[] demands = new double[stops];
+        for (int i = 0; i < stops; i++) {
+            lats[i] = 40 + random.nextDouble();
+            lngs[i] = -74 + random.nextDouble();
+            demands[i] = 1 + random.nextInt(10);
+        }
+        double[] vehicleLats = new double[vehicles];
+        double[] vehicleLngs = new double[vehicles];
+        double[] capacities = new double[vehicles];
+        for (int v = 0; v < vehicles; v++) {
+            vehicleLats[v] = 40 + random.nextDouble();
+            vehicleLngs[v] = -74 + random.nextDouble();
+            capacities[v] = capacity;
+        }
+        return new CvrpProblem(lats, lngs, demands, vehicleLats, vehicleLngs, capacities);
+    }
+}
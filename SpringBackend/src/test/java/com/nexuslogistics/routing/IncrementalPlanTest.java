@@ -0,0 +1,124 @@
+package com.nexuslogistics.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalPlanTest {
+
+    private final IncrementalPlan plan = new IncrementalPlan(5_000_000);
+
+    @Test
+    void insertsIntoNearestRouteWithRoom() {
+        plan.addVehicle(1, 51.0, 0.0, 100);
+        plan.addVehicle(2, 51.0, 1.0, 100);
+        plan.append(2, 20, 51.0, 1.01, 95);
+
+        // Vehicle 2 is closer but full
+        assertEquals(1L, plan.insert(10, 51.0, 0.9, 10));
+        assertArrayEquals(new long[] { 10 }, plan.getRoute(1).getStopIds());
+        assertEquals(10, plan.getRoute(1).getLoad(), 1e-9);
+
+        // Nothing fits 200 kg
+        assertNull(plan.insert(11, 51.0, 0.5, 200));
+        assertArrayEquals(new long[] { 11 }, plan.getUnassignedIds());
+    }
+
+    @Test
+    void keepsEveryStopOnceAndRoutesOrderedAsStopsComeAndGo() {
+        Random random = new Random(7);
+        for (int v = 0; v < 20; v++) {
+            plan.addVehicle(v, 51 + random.nextDouble(), random.nextDouble(), 1000);
+        }
+        for (int i = 0; i < 500; i++) {
+            plan.insert(i, 51 + random.nextDouble(), random.nextDouble(), 30);
+        }
+        for (int i = 0; i < 500; i += 3) {
+            assertTrue(plan.remove(i));
+        }
+        assertFalse(plan.remove(0));
+
+        int planned = 0;
+        for (IncrementalPlan.Route route : plan.getRoutes()) {
+            assertTrue(route.getLoad() <= route.getCapacity() + 1e-9);
+            assertEquals(route.size() * 30, route.getLoad(), 1e-6);
+            for (long id : route.getStopIds()) {
+                assertTrue(plan.contains(id));
+                assertNotEquals(0, id % 3);
+            }
+            planned += route.size();
+        }
+        assertEquals(plan.stopCount(), planned + plan.getUnassignedIds().length);
+        assertEquals(500 - 167, plan.stopCount());
+    }
+
+    @Test
+    void deliveryRestartsRouteAndTakesParkedStops() {
+        plan.addVehicle(1, 51.0, 0.0, 50);
+        plan.append(1, 1, 51.0, 0.1, 40);
+        plan.append(1, 2, 51.0, 0.2, 10);
+        assertNull(plan.insert(3, 51.0, 0.15, 30));
+
+        assertTrue(plan.complete(1, 51.0, 0.1));
+
+        IncrementalPlan.Route route = plan.getRoute(1);
+        assertEquals(51.0, route.getStartLat(), 1e-9);
+        assertEquals(0.1, route.getStartLng(), 1e-9);
+        assertArrayEquals(new long[] { 3, 2 }, route.getStopIds());
+        assertEquals(40, route.getLoad(), 1e-9);
+        assertEquals(0, plan.getUnassignedIds().length);
+    }
+
+    @Test
+    void movedVehicleVisitsNearestStopsFirst() {
+        plan.addVehicle(1, 51.0, 0.0, 100);
+        for (int i = 1; i <= 5; i++) {
+            plan.append(1, i, 51.0, i * 0.1, 10);
+        }
+
+        // The driver went to the far end instead
+        plan.moveVehicle(1, 51.0, 0.6);
+
+        assertArrayEquals(new long[] { 5, 4, 3, 2, 1 }, plan.getRoute(1).getStopIds());
+    }
+
+    @Test
+    void ordersRepairedRouteByProviderCosts() {
+        // Driving east costs ten times the straight line, so the far side is done first
+        TravelTimeProvider eastIsSlow = new TravelTimeProvider() {
+            @Override
+            public String getName() {
+                return "east-is-slow";
+            }
+
+            @Override
+            public DistanceMatrix matrix(double[] lats, double[] lngs) {
+                int n = lats.length;
+                double[] distances = new double[n * n];
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        double km = DistanceMatrix.haversineKm(lats[i], lngs[i], lats[j], lngs[j]);
+                        distances[i * n + j] = lngs[j] > lngs[i] ? 10 * km : km;
+                    }
+                }
+                return new DistanceMatrix(n, distances);
+            }
+        };
+        IncrementalPlan roads = new IncrementalPlan(50_000_000, eastIsSlow);
+        roads.addVehicle(1, 51.0, 0.22, 100);
+        roads.append(1, 1, 51.0, 0.1, 1);
+        roads.append(1, 2, 51.0, 0.2, 1);
+        roads.append(1, 3, 51.0, 0.3, 1);
+        roads.append(1, 4, 51.0, 0.4, 1);
+
+        roads.moveVehicle(1, 51.0, 0.22);
+
+        // Straight-line distances alone would go west first, to stop 2
+        long[] order = roads.getRoute(1).getStopIds();
+        assertTrue(order[0] >= 3 && order[1] >= 3, Arrays.toString(order));
+        assertArrayEquals(new long[] { 2, 1 }, Arrays.copyOfRange(order, 2, 4));
+    }
+}
@@ -0,0 +1,88 @@
+package com.nexuslogistics.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalSearchTest {
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    @Test
+    void removesCrossingEdges() {
+        // Start at the origin, stops on a line visited out of order
+        double[] lats = { 0, 0, 0, 0, 0 };
+        double[] lngs = { 0, 0.01, 0.03, 0.02, 0.04 };
+        DistanceMatrix matrix = DistanceMatrix.haversine(lats, lngs);
+
+        int[] improved = LocalSearch.improve(matrix, new int[] { 2, 1, 3, 4 }, System.nanoTime() + 1_000_000_000L);
+
+        assertArrayEquals(new int[] { 1, 3, 2, 4 }, improved);
+    }
+
+    @Test
+    void neverLengthensAndKeepsEveryStop() {
+        Random random = new Random(7);
+        int n = 80;
+        double[] lats = new double[n + 1];
+        double[] lngs = new double[n + 1];
+        for (int i = 0; i <= n; i++) {
+            lats[i] = 40 + random.nextDouble();
+            lngs[i] = -74 + random.nextDouble();
+        }
+        DistanceMatrix matrix = DistanceMatrix.haversine(lats, lngs);
+        int[] stops = new int[n];
+        for (int i = 0; i < n; i++) stops[i] = i + 1;
+
+        int[] improved = LocalSearch.improve(matrix, stops, NO_LIMIT);
+
+        // A random order over 80 points is far from a local optimum
+        assertTrue(matrix.pathLength(improved) < 0.5 * matrix.pathLength(stops));
+        int[] sorted = improved.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(stops, sorted);
+    }
+
+    @Test
+    void neverLengthensAnAsymmetricRoute() {
+        // Road-graph matrices differ by direction; reversed segments must be priced both ways
+        for (int seed = 0; seed < 50; seed++) {
+            Random random = new Random(seed);
+            int n = 12;
+            double[] distances = new double[(n + 1) * (n + 1)];
+            for (int from = 0; from <= n; from++) {
+                for (int to = 0; to <= n; to++) {
+                    if (from != to) distances[from * (n + 1) + to] = from < to ? random.nextDouble() : 5 + 5 * random.nextDouble();
+                }
+            }
+            DistanceMatrix matrix = new DistanceMatrix(n + 1, distances);
+            int[] stops = new int[n];
+            for (int i = 0; i < n; i++) stops[i] = i + 1;
+            for (int i = n - 1; i > 0; i--) {
+                int k = random.nextInt(i + 1);
+                int tmp = stops[i];
+                stops[i] = stops[k];
+                stops[k] = tmp;
+            }
+
+            // Bounded, since mispriced moves can cycle forever
+            int[] improved = LocalSearch.improve(matrix, stops, System.nanoTime() + 1_000_000_000L);
+
+            assertTrue(matrix.pathLength(improved) <= matrix.pathLength(stops) + 1e-9, "seed " + seed);
+            int[] sorted = improved.clone();
+            Arrays.sort(sorted);
+            for (int i = 0; i < n; i++) assertEquals(i + 1, sorted[i]);
+        }
+    }
+
+    @Test
+    void returnsInputWhenBudgetIsSpent() {
+        DistanceMatrix matrix = DistanceMatrix.haversine(new double[] { 0, 0, 0, 0 }, new double[] { 0, 0.03, 0.01, 0.02 });
+        int[] stops = { 1, 2, 3 };
+
+        assertArrayEquals(stops, LocalSearch.improve(matrix, stops, System.nanoTime() - 1));
+    }
+}
@@ -0,0 +1,69 @@
+package com.nexuslogistics.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeWindowSearchTest {
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+    private static final double OPEN = Double.MAX_VALUE / 4;
+
+    @Test
+    void servesUrgentStopFirstEvenIfLonger() {
+        // Vehicle at the origin, stop 1 one km east with no deadline, stop 2 ten km east due in 12 minutes
+        double[] lats = { 0, 0, 0 };
+        double[] lngs = { 0, 0.009, 0.09 };
+        TimeWindows windows = new TimeWindows(DistanceMatrix.haversine(lats, lngs), 60,
+                new double[] { 0, 0, 0 }, new double[] { 0, OPEN, 12 }, new double[] { 0, 5, 5 });
+
+        int[] nearestFirst = { 1, 2 };
+        assertTrue(windows.lateness(2, windows.arrivals(nearestFirst)[1]) > 0);
+
+        int[] improved = TimeWindowSearch.improve(windows, nearestFirst, 100, NO_LIMIT);
+
+        assertArrayEquals(new int[] { 2, 1 }, improved);
+        assertEquals(0, windows.lateness(2, windows.arrivals(improved)[0]));
+    }
+
+    @Test
+    void segmentsAgreeWithForwardSimulation() {
+        Random random = new Random(11);
+        int n = 40;
+        double[] lats = new double[n + 1];
+        double[] lngs = new double[n + 1];
+        double[] earliest = new double[n + 1];
+        double[] latest = new double[n + 1];
+        double[] service = new double[n + 1];
+        for (int i = 1; i <= n; i++) {
+            lats[i] = random.nextDouble() * 0.5;
+            lngs[i] = random.nextDouble() * 0.5;
+            earliest[i] = random.nextDouble() * 200;
+            latest[i] = earliest[i] + 30 + random.nextDouble() * 120;
+            service[i] = 5;
+        }
+        TimeWindows windows = new TimeWindows(DistanceMatrix.haversine(lats, lngs), 40, earliest, latest, service);
+        int[] stops = new int[n];
+        for (int i = 0; i < n; i++) stops[i] = i + 1;
+
+        int[] improved = TimeWindowSearch.improve(windows, stops, 100, NO_LIMIT);
+
+        // Reordering only: every stop once
+        boolean[] seen = new boolean[n + 1];
+        for (int stop : improved) {
+            assertFalse(seen[stop]);
+            seen[stop] = true;
+        }
+        // The summary of the whole route matches walking it
+        TimeWindows.Segment route = windows.node(0);
+        for (int stop : improved) route = windows.concat(route, windows.node(stop));
+        assertEquals(windows.getMatrix().pathLength(improved), route.getDistance(), 1e-6);
+        double[] arrivals = windows.arrivals(improved);
+        boolean late = false;
+        for (int i = 0; i < n; i++) late |= windows.lateness(improved[i], arrivals[i]) > 0;
+        assertEquals(late, route.getTimeWarp() > 0);
+        assertTrue(TimeWindowSearch.cost(windows, improved, 100) <= TimeWindowSearch.cost(windows, stops, 100));
+    }
+}
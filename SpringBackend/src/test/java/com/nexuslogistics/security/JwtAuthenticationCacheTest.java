@@ -0,0 +1,181 @@
+package com.nexuslogistics.security;
+
+import com.nexuslogistics.model.RevokedToken;
+import com.nexuslogistics.repository.RevokedTokenRepository;
+import com.nexuslogistics.repository.UserRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JwtAuthenticationCacheTest {
+
+    private static final String SECRET = "nexuslogisticsManagementSystemSecretKeyForJWTTokenGeneration2024";
+
+    private JwtUtils jwtUtils;
+    private UserDetailsServiceImpl userDetailsService;
+    private UserRepository userRepository;
+    private RevokedTokenRepository revokedTokenRepository;
+    private JwtAuthenticationCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(utils, "meterRegistry", new SimpleMeterRegistry());
+        utils.init();
+        jwtUtils = spy(utils);
+        userDetailsService = mock(UserDetailsServiceImpl.class);
+        userRepository = mock(UserRepository.class);
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+
+        cache = new JwtAuthenticationCache();
+        ReflectionTestUtils.setField(cache, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(cache, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(cache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(cache, "revokedTokenRepository", revokedTokenRepository);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        cache.init();
+    }
+
+    @Test
+    public void testTakesRolesFromTheTokenAndParsesItOnce() {
+        String token = issue("dispatcher", "ROLE_DISPATCHER");
+
+        UserDetails first = cache.authenticate(token);
+        UserDetails second = cache.authenticate(token);
+
+        assertEquals("dispatcher", first.getUsername());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_DISPATCHER")), List.copyOf(first.getAuthorities()));
+        assertSame(first, second);
+        verify(jwtUtils, times(1)).parseClaims(token);
+        verifyNoInteractions(userDetailsService);
+
+        assertNull(cache.authenticate(token + "x"));
+        assertNull(cache.authenticate(Jwts.builder().setSubject("admin").compact()));
+
+        cache.authenticate(issue("a", "ROLE_USER"));
+        cache.authenticate(issue("b", "ROLE_USER"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testLooksUpUsersOfTokensWithoutRoles() {
+        UserDetails driver = new User("driver", "", List.of(new SimpleGrantedAuthority("ROLE_DRIVER")));
+        when(userDetailsService.loadUserByUsername("driver")).thenReturn(driver);
+        String token = Jwts.builder()
+                .setSubject("driver")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertSame(driver, cache.authenticate(token));
+        assertSame(driver, cache.authenticate(token));
+        verify(userDetailsService, times(1)).loadUserByUsername("driver");
+    }
+
+    @Test
+    public void testRejectsRevokedTokensAndUsers() {
+        String signedOut = issue("dispatcher", "ROLE_DISPATCHER");
+        String other = issue("dispatcher", "ROLE_USER"); // same second, so it must differ in its claims
+        String admin = issue("admin", "ROLE_ADMIN");
+        assertNotNull(cache.authenticate(signedOut));
+
+        cache.revokeToken(signedOut);
+        assertNull(cache.authenticate(signedOut));
+        assertNotNull(cache.authenticate(other));
+
+        cache.revokeUser("dispatcher");
+        assertNull(cache.authenticate(other));
+        assertNotNull(cache.authenticate(admin));
+    }
+
+    @Test
+    public void testStoresRevocationsForOtherInstancesAndRestarts() {
+        com.nexuslogistics.model.User dispatcher = com.nexuslogistics.model.User.builder().username("dispatcher").build();
+        when(userRepository.findByUsername("dispatcher")).thenReturn(Optional.of(dispatcher));
+        String signedOut = issue("driver", "ROLE_DRIVER");
+        String revokedElsewhere = issue("dispatcher", "ROLE_DISPATCHER");
+
+        cache.revokeToken(signedOut);
+        cache.revokeUser("dispatcher");
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(saved.capture());
+        verify(userRepository).save(dispatcher);
+        assertNotNull(dispatcher.getTokensValidAfter());
+
+        // A fresh instance only has the database to go by
+        setUp();
+        when(userRepository.findByUsername("dispatcher")).thenReturn(Optional.of(dispatcher));
+        when(revokedTokenRepository.existsById(saved.getValue().getTokenHash())).thenReturn(true);
+        assertNull(cache.authenticate(signedOut));
+        assertNull(cache.authenticate(revokedElsewhere));
+        assertNotNull(cache.authenticate(issue("admin", "ROLE_ADMIN")));
+    }
+
+    @Test
+    public void testSweepDropsCachedTokensRevokedElsewhere() {
+        String token = issue("dispatcher", "ROLE_DISPATCHER");
+        assertNotNull(cache.authenticate(token));
+
+        com.nexuslogistics.model.User dispatcher = com.nexuslogistics.model.User.builder()
+                .username("dispatcher").tokensValidAfter(System.currentTimeMillis()).build();
+        when(userRepository.findByTokensValidAfterGreaterThanEqual(anyLong())).thenReturn(List.of(dispatcher));
+        cache.sweep();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.authenticate(token));
+    }
+
+    @Test
+    public void testServesConcurrentRequestsWithinTheBound() throws Exception {
+        ReflectionTestUtils.setField(cache, "maxEntries", 20);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 50; i++) tokens.add(issue("user" + i, "ROLE_USER"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                for (int round = 0; round < 20; round++) {
+                    for (String token : tokens) {
+                        if (cache.authenticate(token) == null) return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> result : results) assertTrue(result.get(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertTrue(cache.size() <= 20 + 8, "at most one entry per thread beyond the bound");
+    }
+
+    private String issue(String username, String role) {
+        User user = new User(username, "", List.of(new SimpleGrantedAuthority(role)));
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
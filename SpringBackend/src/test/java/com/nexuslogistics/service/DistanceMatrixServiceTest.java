@@ -0,0 +1,105 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.routing.DistanceMatrix;
+import com.nexuslogistics.routing.RoadGraphTravelTimeProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistanceMatrixServiceTest {
+
+    private DistanceMatrixService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DistanceMatrixService();
+        ReflectionTestUtils.setField(service, "providerName", "haversine");
+        // Room for two 3x3 matrices
+        ReflectionTestUtils.setField(service, "maxCachedCells", 18L);
+        service.init();
+    }
+
+    @Test
+    void matchesPointToPointHaversine() {
+        double[] lats = { 40.7128, 34.0522, 51.5074 };
+        double[] lngs = { -74.0060, -118.2437, -0.1278 };
+
+        DistanceMatrix matrix = service.matrix(lats, lngs);
+
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(DistanceMatrix.haversineKm(lats[i], lngs[i], lats[j], lngs[j]), matrix.get(i, j), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void addsTheOriginToTheCachedStopMatrix() {
+        double[] lats = { 40.7128, 34.0522, 51.5074 };
+        double[] lngs = { -74.0060, -118.2437, -0.1278 };
+
+        DistanceMatrix first = service.matrixFrom(41.0, -73.0, lats, lngs);
+        DistanceMatrix moved = service.matrixFrom(41.5, -72.5, lats.clone(), lngs.clone());
+
+        assertEquals(4, moved.size());
+        for (int i = 0; i < 3; i++) {
+            double km = DistanceMatrix.haversineKm(41.5, -72.5, lats[i], lngs[i]);
+            assertEquals(km, moved.get(0, i + 1), 1e-6);
+            assertEquals(km, moved.get(i + 1, 0), 1e-6);
+            for (int j = 0; j < 3; j++) assertEquals(first.get(i + 1, j + 1), moved.get(i + 1, j + 1), 0);
+        }
+        // The second call found the stops in the cache although the origin moved
+        assertEquals(1L, service.getStats().get("hits"));
+        assertEquals(1, service.getStats().get("cachedMatrices"));
+    }
+
+    @Test
+    void roadGraphOriginLegsMatchTheFullMatrix(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("roads.txt");
+        Files.writeString(file, String.join("\n",
+                "v 1001 51.500 -0.100",
+                "v 1002 51.500 -0.090",
+                "v 1003 51.500 -0.080",
+                "e 1001 1002 700 60",
+                "e 1002 1003 700 90 1")); // one-way, so the legs to and from the origin differ
+        RoadGraphTravelTimeProvider roads = new RoadGraphTravelTimeProvider();
+        ReflectionTestUtils.setField(roads, "roadGraphFile", file.toString());
+        ReflectionTestUtils.setField(roads, "snapSpeedKmh", 20.0);
+        roads.init();
+
+        double[] lats = { 51.500, 51.501, 52.5 }; // the last one is off the graph
+        double[] lngs = { -0.090, -0.080, 0.5 };
+        DistanceMatrix withOrigin = roads.withOrigin(51.5, -0.1, lats, lngs, roads.matrix(lats, lngs));
+        DistanceMatrix full = roads.matrix(new double[] { 51.5, 51.500, 51.501, 52.5 },
+                new double[] { -0.1, -0.090, -0.080, 0.5 });
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(full.get(i, j), withOrigin.get(i, j), 1e-9);
+                assertEquals(full.minutes(i, j), withOrigin.minutes(i, j), 1e-9);
+            }
+        }
+        assertNotEquals(withOrigin.minutes(0, 2), withOrigin.minutes(2, 0), 1e-6);
+    }
+
+    @Test
+    void reusesAndEvictsLeastRecentlyUsed() {
+        DistanceMatrix a = service.matrix(new double[] { 0, 1, 2 }, new double[] { 0, 1, 2 });
+        DistanceMatrix b = service.matrix(new double[] { 0, 1, 3 }, new double[] { 0, 1, 3 });
+
+        // Equal coordinates in fresh arrays hit the cache; touching a makes b the eldest
+        assertSame(a, service.matrix(new double[] { 0, 1, 2 }, new double[] { 0, 1, 2 }));
+        service.matrix(new double[] { 0, 1, 4 }, new double[] { 0, 1, 4 });
+
+        assertSame(a, service.matrix(new double[] { 0, 1, 2 }, new double[] { 0, 1, 2 }));
+        assertNotSame(b, service.matrix(new double[] { 0, 1, 3 }, new double[] { 0, 1, 3 }));
+        assertEquals(2, service.getStats().get("cachedMatrices"));
+    }
+}
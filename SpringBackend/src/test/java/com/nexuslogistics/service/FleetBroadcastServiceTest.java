@@ -0,0 +1,154 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.dto.FleetDelta;
+import com.nexuslogistics.dto.FleetFrame;
+import com.nexuslogistics.model.VehicleState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FleetBroadcastServiceTest {
+
+    @Mock
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private FleetBroadcastService fleetBroadcastService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fleetBroadcastService, "keyframeIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(fleetBroadcastService, "viewportCellDegrees", 0.25);
+        fleetBroadcastService.init();
+    }
+
+    private VehicleState state(long id, double lat, double speed, String status, long version) {
+        return new VehicleState(id, "V-" + id, "P", "Truck", null, lat, -74.0, speed, 100, 0, null, null,
+                status, 1000, version, 0);
+    }
+
+    private FleetFrame lastFrame(int times) {
+        ArgumentCaptor<FleetFrame> captor = ArgumentCaptor.forClass(FleetFrame.class);
+        verify(messagingTemplate, times(times)).convertAndSend(eq(FleetBroadcastService.FLEET_TOPIC), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void sendsOnlyChangedFieldsAfterKeyframe() {
+        when(fleetStateRegistry.snapshot()).thenReturn(List.of(
+                state(1, 40.0, 50, "IN_TRANSIT", 1), state(2, 41.0, 0, "IDLE", 2)));
+        fleetBroadcastService.broadcast();
+
+        FleetFrame keyframe = lastFrame(1);
+        assertTrue(keyframe.isKeyframe());
+        assertEquals(2, keyframe.getVehicles().size());
+
+        // Vehicle 1 moved at the same speed, vehicle 2 was removed
+        when(fleetStateRegistry.snapshot()).thenReturn(List.of(state(1, 40.1, 50, "IN_TRANSIT", 3)));
+        fleetBroadcastService.broadcast();
+
+        FleetFrame delta = lastFrame(2);
+        assertFalse(delta.isKeyframe());
+        assertEquals(List.of(2L), delta.getRemoved());
+        FleetDelta moved = delta.getVehicles().get(0);
+        assertEquals(1L, moved.getId());
+        assertEquals(40.1, moved.getLat());
+        assertNull(moved.getLng());
+        assertNull(moved.getSpeed());
+        assertNull(moved.getStatus());
+    }
+
+    @Test
+    void skipsTicksWithoutChanges() {
+        when(fleetStateRegistry.snapshot()).thenReturn(List.of(state(1, 40.0, 50, "IN_TRANSIT", 1)));
+        fleetBroadcastService.broadcast();
+        fleetBroadcastService.broadcast();
+        fleetBroadcastService.broadcast();
+
+        verify(messagingTemplate, times(1)).convertAndSend(eq(FleetBroadcastService.FLEET_TOPIC), any(FleetFrame.class));
+    }
+
+    private void subscribe(String sessionId, String bbox) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/user/queue/fleet");
+        accessor.setNativeHeader(FleetBroadcastService.BBOX_HEADER, bbox);
+        fleetBroadcastService.onSubscribe(new SessionSubscribeEvent(this,
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<FleetFrame> sessionFrames(String sessionId) {
+        ArgumentCaptor<FleetFrame> captor = ArgumentCaptor.forClass(FleetFrame.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSendToUser(eq(sessionId),
+                eq(FleetBroadcastService.SESSION_DESTINATION), captor.capture(), anyMap());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void viewportSubscribersOnlySeeVehiclesInView() {
+        subscribe("s1", "40.0,-75.0,41.0,-73.0");
+        when(fleetStateRegistry.snapshot()).thenReturn(List.of(
+                state(1, 40.5, 50, "IN_TRANSIT", 1), state(2, 10.0, 50, "IN_TRANSIT", 2)));
+        fleetBroadcastService.broadcast();
+
+        FleetFrame keyframe = sessionFrames("s1").get(0);
+        assertTrue(keyframe.isKeyframe());
+        assertEquals(1, keyframe.getVehicles().size());
+        assertEquals(1L, keyframe.getVehicles().get(0).getId());
+
+        // Vehicle 2 moving outside the viewport is not sent; vehicle 1 leaving it is reported as removed
+        when(fleetStateRegistry.snapshot()).thenReturn(List.of(
+                state(1, 42.0, 50, "IN_TRANSIT", 3), state(2, 10.5, 50, "IN_TRANSIT", 4)));
+        fleetBroadcastService.broadcast();
+
+        FleetFrame delta = sessionFrames("s1").get(1);
+        assertFalse(delta.isKeyframe());
+        assertTrue(delta.getVehicles().isEmpty());
+        assertEquals(List.of(1L), delta.getRemoved());
+
+        // Entering the viewport sends every field
+        when(fleetStateRegistry.snapshot()).thenReturn(List.of(
+                state(1, 42.0, 50, "IN_TRANSIT", 3), state(2, 40.2, 50, "IN_TRANSIT", 5)));
+        fleetBroadcastService.broadcast();
+
+        FleetDelta entered = sessionFrames("s1").get(2).getVehicles().get(0);
+        assertEquals(2L, entered.getId());
+        assertEquals(50.0, entered.getSpeed());
+        assertEquals("IN_TRANSIT", entered.getStatus());
+    }
+
+    @Test
+    void diffIgnoresUnchangedState() {
+        assertNull(FleetBroadcastService.diff(state(1, 40.0, 50, "IDLE", 1), state(1, 40.0, 50, "IDLE", 2)));
+        assertEquals("MAINTENANCE",
+                FleetBroadcastService.diff(state(1, 40.0, 50, "IDLE", 1), state(1, 40.0, 50, "MAINTENANCE", 2)).getStatus());
+    }
+}
@@ -0,0 +1,90 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.dto.TelemetryPing;
+import com.nexuslogistics.model.VehicleState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FleetSimulationServiceTest {
+
+    @Mock
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Mock
+    private TelemetryIngestionService telemetryIngestionService;
+
+    @Mock
+    private GeofencingService geofencingService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private FleetSimulationService fleetSimulationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fleetSimulationService, "enabled", true);
+        ReflectionTestUtils.setField(fleetSimulationService, "workers", 4);
+        ReflectionTestUtils.setField(fleetSimulationService, "tickMs", 5000L);
+        fleetSimulationService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fleetSimulationService.shutdown();
+    }
+
+    @Test
+    void advancesEveryInTransitVehicleAcrossWorkers() {
+        List<VehicleState> fleet = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            fleet.add(new VehicleState(i, "V" + i, "P", "Truck", null, 40, -74, 60, 100, 0, null, null,
+                    i % 2 == 0 ? "IN_TRANSIT" : "IDLE", 1000, i, 0));
+        }
+        when(fleetStateRegistry.snapshot()).thenReturn(fleet);
+        when(telemetryIngestionService.offer(any(TelemetryPing.class)))
+                .thenReturn(TelemetryIngestionService.OfferResult.ACCEPTED);
+
+        fleetSimulationService.simulateMovement();
+
+        verify(telemetryIngestionService, times(500)).offer(any(TelemetryPing.class));
+        Map<String, Object> stats = fleetSimulationService.getStats();
+        assertEquals(1L, stats.get("ticks"));
+        assertEquals(500L, stats.get("lastTickVehicles"));
+        assertEquals(0L, stats.get("overruns"));
+        assertEquals(4, stats.get("workers"));
+    }
+
+    @Test
+    void movesSyntheticVehiclesWithoutCheckpointing() {
+        VehicleState synthetic = new VehicleState(-1, "SIM-00001", "SIM-1", "Simulated Truck", null, 40, -74, 60,
+                100, 0, null, null, "IN_TRANSIT", 20_000, 1, 0);
+        when(fleetStateRegistry.snapshot()).thenReturn(List.of(synthetic));
+        when(fleetStateRegistry.updatePosition(eq(-1L), anyDouble(), anyDouble(), anyDouble())).thenReturn(synthetic);
+
+        fleetSimulationService.simulateMovement();
+
+        verifyNoInteractions(telemetryIngestionService);
+        verify(geofencingService).evaluate(synthetic);
+        assertEquals(1L, fleetSimulationService.getStats().get("lastTickVehicles"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.dto.OptimizationJobRequest;
+import com.nexuslogistics.dto.OptimizationJobView;
+import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.model.VehicleState;
+import com.nexuslogistics.repository.ShipmentRepository;
+import com.nexuslogistics.repository.VehicleRepository;
+import com.nexuslogistics.routing.SolverListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class OptimizationJobServiceTest {
+
+    @Mock
+    private RouteOptimizationService routeOptimizationService;
+
+    @Mock
+    private FleetDispatchService fleetDispatchService;
+
+    @Mock
+    private ShipmentRepository shipmentRepository;
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    @Mock
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private OptimizationJobService optimizationJobService;
+
+    private final List<Shipment> shipments = List.of(
+            Shipment.builder().id(10L).latitude(40.1).longitude(-74.1).weightKg(100).build());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(optimizationJobService, "workers", 1);
+        ReflectionTestUtils.setField(optimizationJobService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(optimizationJobService, "perTenantLimit", 2);
+        ReflectionTestUtils.setField(optimizationJobService, "retainMs", 60000L);
+        ReflectionTestUtils.setField(optimizationJobService, "resultCacheSize", 10);
+        optimizationJobService.init();
+
+        when(fleetStateRegistry.get(1L)).thenReturn(new VehicleState(1, "V1", "P", "Truck", null, 40, -74, 0, 100,
+                0, null, null, "IDLE", 1000, 1, 0));
+        when(shipmentRepository.findByAssignedVehicleId(1L)).thenReturn(shipments);
+    }
+
+    @AfterEach
+    void tearDown() {
+        optimizationJobService.shutdown();
+    }
+
+    @Test
+    void reusesResultWhileInputsAreUnchanged() throws Exception {
+        when(routeOptimizationService.optimizeRoute(anyDouble(), anyDouble(), anyList(), anyDouble(), any())).thenReturn(shipments);
+
+        OptimizationJobView first = optimizationJobService.submit("alice", new OptimizationJobRequest("ROUTE", 1L));
+        assertEquals("COMPLETED", awaitFinished("alice", first.getId()).getStatus());
+
+        OptimizationJobView second = optimizationJobService.submit("alice", new OptimizationJobRequest("ROUTE", 1L));
+
+        assertTrue(second.isCached());
+        assertEquals("COMPLETED", second.getStatus());
+        assertSame(shipments, second.getResult());
+        verify(routeOptimizationService, times(1)).optimizeRoute(anyDouble(), anyDouble(), anyList(), anyDouble(), any());
+        // Other users cannot see the job
+        assertTrue(optimizationJobService.get("bob", first.getId()).isEmpty());
+    }
+
+    @Test
+    void limitsActiveJobsPerTenantAndCancelsQueuedOnes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(routeOptimizationService.optimizeRoute(anyDouble(), anyDouble(), anyList(), anyDouble(), any())).thenAnswer(call -> {
+            release.await(5, TimeUnit.SECONDS);
+            return shipments;
+        });
+
+        OptimizationJobView running = optimizationJobService.submit("alice", new OptimizationJobRequest("ROUTE", 1L));
+        OptimizationJobView queued = optimizationJobService.submit("alice", new OptimizationJobRequest("ROUTE", 1L));
+        assertThrows(IllegalStateException.class,
+                () -> optimizationJobService.submit("alice", new OptimizationJobRequest("ROUTE", 1L)));
+        // The limit is per tenant
+        OptimizationJobView other = optimizationJobService.submit("bob", new OptimizationJobRequest("ROUTE", 1L));
+
+        assertEquals("CANCELLED", optimizationJobService.cancel("alice", queued.getId()).orElseThrow().getStatus());
+        OptimizationJobView replacement = optimizationJobService.submit("alice", new OptimizationJobRequest("ROUTE", 1L));
+        release.countDown();
+
+        assertEquals("COMPLETED", awaitFinished("alice", running.getId()).getStatus());
+        assertEquals("COMPLETED", awaitFinished("bob", other.getId()).getStatus());
+        assertEquals("COMPLETED", awaitFinished("alice", replacement.getId()).getStatus());
+        assertEquals("CANCELLED", optimizationJobService.get("alice", queued.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void cancelsRunningRouteJobsAndPushesTheirBestRoute() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Shipment> greedy = List.copyOf(shipments);
+        when(routeOptimizationService.optimizeRoute(anyDouble(), anyDouble(), anyList(), anyDouble(), any())).thenAnswer(call -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            SolverListener<List<Shipment>> listener = call.getArgument(4);
+            return listener.onSolution("construction", 12.5, () -> greedy) ? shipments : greedy;
+        });
+
+        OptimizationJobView job = optimizationJobService.submit("alice", new OptimizationJobRequest("ROUTE", 1L));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals("RUNNING", optimizationJobService.cancel("alice", job.getId()).orElseThrow().getStatus());
+        release.countDown();
+
+        OptimizationJobView finished = awaitFinished("alice", job.getId());
+        assertEquals("CANCELLED", finished.getStatus());
+        assertSame(greedy, finished.getResult());
+
+        ArgumentCaptor<OptimizationJobView> pushed = ArgumentCaptor.forClass(OptimizationJobView.class);
+        verify(notificationService, atLeastOnce()).sendJobUpdate(pushed.capture());
+        assertTrue(pushed.getAllValues().stream().anyMatch(view ->
+                "construction".equals(view.getPhase()) && "RUNNING".equals(view.getStatus()) && view.getResult() == greedy));
+    }
+
+    private OptimizationJobView awaitFinished(String tenant, String id) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            OptimizationJobView job = optimizationJobService.get(tenant, id).orElseThrow();
+            if (job.getFinishedAt() != null) return job;
+            Thread.sleep(10);
+        }
+        fail("Job " + id + " did not finish");
+        return null;
+    }
+}
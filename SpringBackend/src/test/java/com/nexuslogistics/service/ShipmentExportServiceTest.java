@@ -0,0 +1,127 @@
+package com.nexuslogistics.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexuslogistics.dto.ShipmentFilter;
+import com.nexuslogistics.repository.ShipmentQueryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShipmentExportServiceTest {
+
+    private static final ShipmentFilter ALL = new ShipmentFilter();
+
+    @Mock
+    private ShipmentQueryRepository shipmentQueryRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ShipmentExportService exportService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(exportService, "fetchSize", 500);
+
+    }
+
+    // Two rows of (id, customer, deliveredAt), the second with characters CSV must quote
+    private void stubShipments() throws Exception {
+        stubRows(new String[] { "id", "customer", "deliveredAt" },
+                new Object[] { 1L, "Acme", Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 9, 30)) },
+                new Object[] { 2L, "Smith, \"Jones\" & Co", null });
+    }
+
+    private void stubRows(String[] labels, Object[]... rows) throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(labels.length);
+        for (int i = 0; i < labels.length; i++) when(metaData.getColumnLabel(i + 1)).thenReturn(labels[i]);
+        ResultSet rs = mock(ResultSet.class);
+        int[] row = { -1 };
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(rs.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(rs.getObject(anyInt())).thenAnswer(invocation -> rows[row[0]][invocation.<Integer>getArgument(0) - 1]);
+
+        when(shipmentQueryRepository.streamExport(same(ALL), eq(500), any())).thenAnswer(invocation -> {
+            ResultSetExtractor<?> extractor = invocation.getArgument(2);
+            return extractor.extractData(rs);
+        });
+    }
+
+    @Test
+    public void testWritesQuotedCsvThroughGzip() throws Exception {
+        stubShipments();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ALL, ShipmentExportService.CSV, true, out);
+
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals("id,customer,deliveredAt\r\n"
+                + "1,Acme,2024-05-01T09:30\r\n"
+                + "2,\"Smith, \"\"Jones\"\" & Co\",\r\n", csv);
+    }
+
+    @Test
+    public void testNeutralisesSpreadsheetFormulasButNotNumbers() throws Exception {
+        stubRows(new String[] { "customer", "longitude" },
+                new Object[] { "=HYPERLINK(\"http://x\")", -0.1 },
+                new Object[] { "+1", -0.1 },
+                new Object[] { "-1+2", -0.1 },
+                new Object[] { "@SUM(A1)", -0.1 },
+                new Object[] { "\tTab", -0.1 });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ALL, ShipmentExportService.CSV, false, out);
+
+        assertEquals("customer,longitude\r\n"
+                + "\"'=HYPERLINK(\"\"http://x\"\")\",-0.1\r\n"
+                + "\"'+1\",-0.1\r\n"
+                + "\"'-1+2\",-0.1\r\n"
+                + "\"'@SUM(A1)\",-0.1\r\n"
+                + "\"'\tTab\",-0.1\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWritesOneJsonObjectPerLine() throws Exception {
+        stubShipments();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ALL, ShipmentExportService.NDJSON, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals("2024-05-01T09:30", first.get("deliveredAt").asText());
+        JsonNode second = new ObjectMapper().readTree(lines[1]);
+        assertEquals("Smith, \"Jones\" & Co", second.get("customer").asText());
+        assertTrue(second.get("deliveredAt").isNull());
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("}\n"));
+    }
+}
@@ -0,0 +1,150 @@
+package com.nexuslogistics.service;
+
+import com.nexuslogistics.dto.ShipmentDTO;
+import com.nexuslogistics.dto.ShipmentFilter;
+import com.nexuslogistics.dto.ShipmentPage;
+import com.nexuslogistics.model.Shipment;
+import com.nexuslogistics.repository.ShipmentQueryRepository;
+import com.nexuslogistics.repository.ShipmentRepository;
+import com.nexuslogistics.repository.VehicleRepository;
+import com.nexuslogistics.storage.ContentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShipmentServiceTest {
+
+    @Mock
+    private ShipmentRepository shipmentRepository;
+
+    @Mock
+    private ShipmentQueryRepository shipmentQueryRepository;
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private GeofencingService geofencingService;
+
+    @Mock
+    private DispatchPlanService dispatchPlanService;
+
+    @Mock
+    private ContentStore contentStore;
+
+    @InjectMocks
+    private ShipmentService shipmentService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(shipmentService, "maxPageSize", 2);
+    }
+
+    @Test
+    public void testPagesContinueAfterTheLastShipmentOfThePreviousPage() {
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+        ShipmentFilter filter = new ShipmentFilter("PENDING", null, null, null, null);
+        when(shipmentQueryRepository.findPage(eq(filter), isNull(), isNull(), eq(3)))
+                .thenReturn(shipments(created, 9L, 8L, 7L));
+        when(shipmentQueryRepository.findPage(filter, created, 8L, 3))
+                .thenReturn(shipments(created, 7L));
+
+        ShipmentPage first = shipmentService.getShipmentPage(filter, null, 50);
+        assertEquals(List.of(9L, 8L), first.getItems().stream().map(ShipmentDTO::getId).toList());
+        assertNotNull(first.getNextCursor());
+
+        ShipmentPage second = shipmentService.getShipmentPage(filter, first.getNextCursor(), 50);
+        assertEquals(List.of(7L), second.getItems().stream().map(ShipmentDTO::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testRejectsForeignCursors() {
+        ShipmentFilter filter = new ShipmentFilter();
+        assertThrows(IllegalArgumentException.class, () -> shipmentService.getShipmentPage(filter, "not a cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> shipmentService.getShipmentPage(filter, "MTIz", 10));
+        verifyNoInteractions(shipmentQueryRepository);
+    }
+
+    @Test
+    public void testUpdateKeepsTheCreationTime() {
+        LocalDateTime created = LocalDateTime.of(2024, 6, 1, 12, 0);
+        when(shipmentRepository.findById(1L)).thenReturn(Optional.of(Shipment.builder().id(1L).created(created).build()));
+        when(shipmentRepository.save(any(Shipment.class))).thenAnswer(call -> call.getArgument(0));
+
+        ShipmentDTO saved = shipmentService.saveShipment(ShipmentDTO.builder().id(1L).sId("SH-1").status("PENDING").build());
+        ShipmentDTO added = shipmentService.saveShipment(ShipmentDTO.builder().sId("SH-2").status("PENDING").build());
+
+        assertEquals(created, saved.getCreated());
+        assertNotNull(added.getCreated());
+    }
+
+    @Test
+    public void testUpdateKeepsTheProofOfDelivery() {
+        LocalDateTime deliveredAt = LocalDateTime.of(2024, 6, 2, 9, 30);
+        Shipment stored = Shipment.builder().id(1L).sId("SH-1").status("DELIVERED")
+                .signatureBlobId("a".repeat(64)).signatureContentType("image/png")
+                .deliveryPhotoBlobId("b".repeat(64)).deliveryPhotoContentType("image/jpeg")
+                .deliveredAt(deliveredAt).deliveryLat(51.5).deliveryLng(-0.1).build();
+        when(shipmentRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(shipmentRepository.save(any(Shipment.class))).thenAnswer(call -> call.getArgument(0));
+
+        shipmentService.saveShipment(ShipmentDTO.builder().id(1L).sId("SH-1").customer("Acme").status("DELIVERED").build());
+
+        ArgumentCaptor<Shipment> saved = ArgumentCaptor.forClass(Shipment.class);
+        verify(shipmentRepository).save(saved.capture());
+        assertEquals("Acme", saved.getValue().getCustomer());
+        assertEquals("a".repeat(64), saved.getValue().getSignatureBlobId());
+        assertEquals("image/png", saved.getValue().getSignatureContentType());
+        assertEquals("b".repeat(64), saved.getValue().getDeliveryPhotoBlobId());
+        assertEquals("image/jpeg", saved.getValue().getDeliveryPhotoContentType());
+        assertEquals(deliveredAt, saved.getValue().getDeliveredAt());
+        assertEquals(51.5, saved.getValue().getDeliveryLat());
+        assertEquals(-0.1, saved.getValue().getDeliveryLng());
+    }
+
+    @Test
+    public void testRejectsProofOfDeliveryThatIsNotARasterImage() throws Exception {
+        Shipment shipment = Shipment.builder().id(1L).sId("SH-1").status("IN_TRANSIT").build();
+        when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
+        String html = "data:text/html;base64,PHNjcmlwdD5hbGVydCgxKTwvc2NyaXB0Pg==";
+        String svg = "data:image/svg+xml;base64,PHN2Zz48L3N2Zz4=";
+        MockMultipartFile page = new MockMultipartFile("photo", "photo.html", "text/html", new byte[] { 1 });
+
+        assertThrows(IllegalArgumentException.class, () -> shipmentService.completeDelivery(1L, html, null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> shipmentService.completeDelivery(1L, svg, null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> shipmentService.completeDelivery(1L, "AAAA", page, 0, 0));
+        verifyNoInteractions(contentStore);
+        verify(shipmentRepository, never()).save(any());
+
+        // Content stored before the check is downloaded, never rendered
+        shipment.setDeliveryPhotoBlobId("0".repeat(64));
+        shipment.setDeliveryPhotoContentType("text/html");
+        assertEquals("application/octet-stream", shipmentService.getDeliveryPhoto(1L).get().getContentType());
+    }
+
+    private List<ShipmentDTO> shipments(LocalDateTime created, Long... ids) {
+        List<ShipmentDTO> result = new ArrayList<>();
+        for (Long id : ids) result.add(ShipmentDTO.builder().id(id).created(created).build());
+        return result;
+    }
+}
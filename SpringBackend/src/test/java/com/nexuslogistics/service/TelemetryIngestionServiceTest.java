@@ -0,0 +1,158 @@
+package com.nexuslogistics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexuslogistics.dto.TelemetryBatchResult;
+import com.nexuslogistics.dto.TelemetryPing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TelemetryIngestionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private FleetStateRegistry fleetStateRegistry;
+
+    @Mock
+    private GeofencingService geofencingService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private TelemetryIngestionService ingestionService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(ingestionService, "queueCapacity", 2);
+        ReflectionTestUtils.setField(ingestionService, "flushBatchSize", 500);
+        ReflectionTestUtils.setField(ingestionService, "bulkTransactionSize", 2);
+        ReflectionTestUtils.setField(ingestionService, "objectMapper", new ObjectMapper());
+        ingestionService.init();
+    }
+
+    @Test
+    public void testCoalescesPingsAndAppliesBackpressure() {
+        assertEquals(TelemetryIngestionService.OfferResult.ACCEPTED, ingestionService.offer(ping(1L, 10.0)));
+        assertEquals(TelemetryIngestionService.OfferResult.COALESCED, ingestionService.offer(ping(1L, 11.0)));
+        assertEquals(TelemetryIngestionService.OfferResult.ACCEPTED, ingestionService.offer(ping(2L, 20.0)));
+        assertEquals(TelemetryIngestionService.OfferResult.QUEUE_FULL, ingestionService.offer(ping(3L, 30.0)));
+
+        // A vehicle that is already buffered can still update its position when the queue is full
+        assertEquals(TelemetryIngestionService.OfferResult.COALESCED, ingestionService.offer(ping(2L, 21.0)));
+        assertEquals(2, ingestionService.getQueueDepth());
+
+        // A ping turned away has not moved the vehicle, so a retry is not applied twice
+        verify(fleetStateRegistry, never()).updatePosition(eq(3L), anyDouble(), anyDouble(), anyDouble());
+        verify(fleetStateRegistry, times(4)).updatePosition(anyLong(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    public void testRejectsUnknownVehiclesWithoutTouchingLiveState() {
+        when(fleetStateRegistry.isLoaded()).thenReturn(true);
+
+        assertEquals(TelemetryIngestionService.OfferResult.UNKNOWN_VEHICLE, ingestionService.offer(ping(9L, 10.0)));
+        assertEquals(0, ingestionService.getQueueDepth());
+        verify(fleetStateRegistry, never()).updatePosition(anyLong(), anyDouble(), anyDouble(), anyDouble());
+        verifyNoInteractions(geofencingService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushWritesLatestPositionsInOneBatch() {
+        ingestionService.offer(ping(1L, 10.0));
+        ingestionService.offer(ping(1L, 11.0));
+        ingestionService.offer(ping(2L, 20.0));
+
+        ingestionService.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(),
+                argThat((List<TelemetryPing> batch) -> batch.size() == 2
+                        && batch.stream().anyMatch(p -> p.getVehicleId() == 1L && p.getLatitude() == 11.0)),
+                eq(2), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(0, ingestionService.getQueueDepth());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchStreamsNdjsonInTransactionChunks() throws Exception {
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<int[]>) inv.getArgument(0)).doInTransaction(null));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 0}}, new int[][]{{1}});
+
+        String body = "{\"id\":1,\"latitude\":37.7,\"longitude\":-122.4,\"speed\":60,\"driver\":{\"id\":7}}\n"
+                + "{\"vehicleId\":99,\"lat\":37.8,\"lng\":-122.5}\n"
+                + "{\"id\":2,\"lat\":120.0,\"lng\":-122.5}\n"
+                + "{\"id\":3,\"lat\":37.9,\"lng\":-122.6}\n";
+
+        TelemetryBatchResult result = ingestionService.ingestBatch(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(4, result.getReceived());
+        assertEquals(2, result.getAccepted());
+        assertEquals(2, result.getRejected()); // unknown vehicle 99, latitude out of range
+        assertEquals(2, result.getBatches());
+        assertTrue(result.isComplete());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchRejectsPositionFieldsHoldingObjects() throws Exception {
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<int[]>) inv.getArgument(0)).doInTransaction(null));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}});
+
+        // The nested values hold keys of their own that must not be read as the item's fields
+        String body = "[{\"id\":{\"id\":5},\"lat\":37.7,\"lng\":-122.4},"
+                + "{\"id\":1,\"lat\":[{\"lat\":1}],\"lng\":-122.4},"
+                + "{\"id\":2,\"lat\":37.8,\"lng\":-122.5,\"speed\":{\"value\":60}},"
+                + "{\"id\":3,\"lat\":37.9,\"lng\":-122.6}]";
+
+        TelemetryBatchResult result = ingestionService.ingestBatch(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(4, result.getReceived());
+        assertEquals(1, result.getAccepted()); // the parser is still in step for the item after them
+        assertEquals(3, result.getRejected());
+        assertTrue(result.isComplete());
+        verify(jdbcTemplate).batchUpdate(anyString(),
+                argThat((List<TelemetryPing> batch) -> batch.size() == 1 && batch.get(0).getVehicleId() == 3L),
+                eq(1), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private TelemetryPing ping(Long vehicleId, double latitude) {
+        return TelemetryPing.builder()
+                .vehicleId(vehicleId)
+                .latitude(latitude)
+                .longitude(-122.0)
+                .speed(55.0)
+                .build();
+    }
+}
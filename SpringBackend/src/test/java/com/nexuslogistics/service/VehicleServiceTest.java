@@ -20,6 +20,9 @@ public class VehicleServiceTest {
     @Mock
     private VehicleRepository vehicleRepository;
 
+    @Mock
+    private FleetStateRegistry fleetStateRegistry;
+
     @InjectMocks
     private VehicleService vehicleService;
 
@@ -0,0 +1,69 @@
+package com.nexuslogistics.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSystemContentStoreTest {
+
+    @TempDir
+    Path root;
+
+    private FileSystemContentStore store;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        store = new FileSystemContentStore();
+        ReflectionTestUtils.setField(store, "root", root.toString());
+        store.init();
+    }
+
+    @Test
+    public void testStoresIdenticalContentOnce() throws Exception {
+        String first = put("signature");
+        String second = put("signature");
+        String other = put("photo");
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertEquals("1a2fc26dc7ea5a2a4748b7cb2b1ef193d96ab2c99f93092f69e63075b28d1278", first);
+        assertEquals(9, store.size(first));
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(2, files.filter(Files::isRegularFile).count()); // no temporary files left either
+        }
+    }
+
+    @Test
+    public void testTransfersRanges() throws Exception {
+        String id = put("0123456789");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        store.transferTo(id, 2, 5, Channels.newChannel(out));
+        assertEquals("23456", out.toString(StandardCharsets.US_ASCII));
+
+        out.reset();
+        store.transferTo(id, 8, 10, Channels.newChannel(out));
+        assertEquals("89", out.toString(StandardCharsets.US_ASCII));
+
+        String missing = "0".repeat(64);
+        assertEquals(-1, store.size(missing));
+        assertThrows(NoSuchFileException.class, () -> store.transferTo(missing, 0, 1, Channels.newChannel(out)));
+        assertThrows(IllegalArgumentException.class, () -> store.size("../../etc/passwd"));
+    }
+
+    private String put(String content) throws Exception {
+        return store.put(Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII))));
+    }
+}